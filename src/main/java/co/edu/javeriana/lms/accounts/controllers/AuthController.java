@@ -10,6 +10,7 @@ import co.edu.javeriana.lms.accounts.dtos.LoginDto;
 import co.edu.javeriana.lms.accounts.dtos.LoginResponseDto;
 import co.edu.javeriana.lms.accounts.services.AuthService;
 import co.edu.javeriana.lms.shared.dtos.ApiResponseDto;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,11 +23,12 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponseDto<?>> login(@Valid @RequestBody LoginDto loginDTO) {
+    public ResponseEntity<ApiResponseDto<?>> login(@Valid @RequestBody LoginDto loginDTO, HttpServletRequest request) {
         String email = loginDTO.getEmail();
         String password = loginDTO.getPassword();
         
-        LoginResponseDto res = authService.login(email, password);
+        // The client address, resolved from the forwarded headers when behind the load balancer
+        LoginResponseDto res = authService.login(email, password, request.getRemoteAddr());
 
         return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "User authenticated successfully", res, null));
     }
@@ -62,7 +62,8 @@ public class User implements UserDetails {
     private Role preferredRole;
 
     @ManyToMany
-    @JoinTable(name = "professor_classes", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "classId"))
+    @JoinTable(name = "professor_classes", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "classId"),
+            indexes = @Index(name = "idx_professor_classes_user_class", columnList = "id, classId"))
     @JsonIgnore
     private List<ClassModel> professorClasses;
 
@@ -71,12 +72,14 @@ public class User implements UserDetails {
     private List<Course> courses;
 
     @ManyToMany
-    @JoinTable(name = "class_students", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "classId"))
+    @JoinTable(name = "class_students", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "classId"),
+            indexes = @Index(name = "idx_class_students_user_class", columnList = "id, classId"))
     @JsonIgnore
     private List<ClassModel> studentClasses;
 
     @ManyToMany
-    @JoinTable(name = "simulation_users", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "simulationId"))
+    @JoinTable(name = "simulation_users", joinColumns = @JoinColumn(name = "id"), inverseJoinColumns = @JoinColumn(name = "simulationId"),
+            indexes = @Index(name = "idx_simulation_users_user_simulation", columnList = "id, simulationId"))
     @JsonIgnore
     private List<Simulation> simulations;
 
@@ -39,4 +39,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u WHERE u.institutionalId = :idMember")
     Optional<User> findByInstitutionalId(@Param("idMember") Long idMember);
+
+    @Query(value = "SELECT class_id FROM class_students WHERE id = :userId", nativeQuery = true)
+    List<Long> findStudentClassIds(@Param("userId") Long userId);
+
+    @Query(value = "SELECT class_id FROM professor_classes WHERE id = :userId", nativeQuery = true)
+    List<Long> findProfessorClassIds(@Param("userId") Long userId);
+
+    @Query(value = "SELECT simulation_id FROM simulation_users WHERE id = :userId", nativeQuery = true)
+    List<Long> findSimulationIds(@Param("userId") Long userId);
+
+    List<User> findBySimulations_SimulationIdOrderById(Long simulationId);
 }
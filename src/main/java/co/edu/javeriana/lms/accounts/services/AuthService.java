@@ -1,6 +1,12 @@
 package co.edu.javeriana.lms.accounts.services;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -8,6 +14,9 @@ import org.springframework.stereotype.Service;
 import co.edu.javeriana.lms.accounts.dtos.LoginResponseDto;
 import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.shared.dtos.MembershipClaimDto;
+import co.edu.javeriana.lms.shared.errors.RetryLaterException;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 import co.edu.javeriana.lms.shared.services.JwtService;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,6 +36,30 @@ public class AuthService {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Adds the user's class and simulation ids to the tokens, so most authorization checks need no query
+    @Value("${JWT_MEMBERSHIP_CLAIM:false}")
+    private boolean membershipClaim = false;
+
+    // Rate limited per email and client address, and hashed on the bounded login pool
+    // Only attempts with wrong credentials count against the limits, so regular logins never drain them
+    public LoginResponseDto login(String email, String password, String clientIp) {
+        loginThrottleService.checkRate(email, clientIp);
+        try {
+            LoginResponseDto response = loginThrottleService.runBounded(() -> login(email, password));
+            loginThrottleService.refund(email, clientIp);
+            return response;
+        } catch (RetryLaterException e) {
+            loginThrottleService.refund(email, clientIp);
+            throw e;
+        }
+    }
+
     public LoginResponseDto login(String email, String password) {
         log.info("Logging in user: " + email);
         User user = userRepository.findByEmail(email)
@@ -36,7 +69,15 @@ public class AuthService {
             throw new IllegalArgumentException("Invalid credentials");
         }
 
-        String token = jwtService.generateToken(user);
+        // Hashes made with a lower cost are replaced while the plain password is at hand
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            log.info("Rehashing password for user: " + email);
+            user.setPassword(passwordEncoder.encode(password));
+            userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(Set.of(email)));
+        }
+
+        String token = issueToken(user);
 
         return new LoginResponseDto(token, user.getRoles(), user.getPreferredRole());
     }
@@ -51,6 +92,7 @@ public class AuthService {
         }
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(Set.of(email)));
         String subject = "Cambio de contraseña LMS";
         String body = """
         <html>
@@ -65,12 +107,32 @@ public class AuthService {
         </html>
         """.formatted(user.getEmail());
         new Thread(() -> emailService.sendEmail(user.getEmail(), subject, body)).start();
-        String newToken = jwtService.generateToken(user);
+        String newToken = issueToken(user);
         return newToken;
     }
 
+    // A token with the user's current memberships, sent back when the one in use is stale
+    public String reissueToken(Long userId) {
+        log.info("Reissuing token for user: " + userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return issueToken(user);
+    }
+
+    public Optional<MembershipClaimDto> getMembershipByToken(String token) {
+        return jwtService.extractMembership(token);
+    }
+
+    public boolean isMembershipClaimEnabled() {
+        return membershipClaim;
+    }
+
     public String[] getRolesByToken(String token) {
         log.info("Getting roles for token: " + token);
+        Optional<List<String>> roles = jwtService.extractRoles(token);
+        if (roles.isPresent()) {
+            return roles.get().toArray(String[]::new);
+        }
         String email = jwtService.extractUserName(token);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -94,9 +156,31 @@ public class AuthService {
 
     public Long getUserIdByToken(String token) {
         log.info("Getting user ID for token: " + token);
+        Optional<Long> userId = jwtService.extractUserId(token);
+        if (userId.isPresent()) {
+            return userId.get();
+        }
         String email = jwtService.extractUserName(token);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return user.getId();
     }
+
+    private String issueToken(User user) {
+        if (!membershipClaim) {
+            return jwtService.generateToken(user);
+        }
+        // Taken before reading, so a change committed meanwhile makes the claim stale instead of lost
+        long issuedAt = System.currentTimeMillis();
+        MembershipClaimDto membership = new MembershipClaimDto(
+                toArray(userRepository.findStudentClassIds(user.getId())),
+                toArray(userRepository.findProfessorClassIds(user.getId())),
+                toArray(userRepository.findSimulationIds(user.getId())),
+                issuedAt);
+        return jwtService.generateToken(user, membership);
+    }
+
+    private long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
 }
\ No newline at end of file
@@ -1,21 +1,29 @@
 package co.edu.javeriana.lms.accounts.services;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import co.edu.javeriana.lms.accounts.models.Role;
 import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.shared.cache.BoundedCache;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 import co.edu.javeriana.lms.shared.services.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class CustomUserDetailService implements UserDetailsService {
@@ -26,8 +34,50 @@ public class CustomUserDetailService implements UserDetailsService {
     @Autowired
     private JwtService jwtService;
 
+    @Value("${USER_DETAILS_CACHE_ENABLED:true}")
+    private boolean cacheEnabled = true;
+
+    @Value("${USER_DETAILS_CACHE_SIZE:10000}")
+    private int cacheSize = 10000;
+
+    // Kept short, a change that publishes no event is picked up within this time
+    @Value("${USER_DETAILS_CACHE_TTL:60}")
+    private long cacheTtlSeconds = 60;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Accounts by email
+    private BoundedCache<String, CachedUser> users;
+
+    @PostConstruct
+    public void init() {
+        users = BoundedCache.create("user.details", cacheSize, Duration.ofSeconds(cacheTtlSeconds), meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (!cacheEnabled) {
+            return loadUserByUsernameUncached(email);
+        }
+        return users.get(email, this::load).toUserDetails();
+    }
+
+    // Straight from the database, for the routes that must see a disabled account or revoked role at once
+    public UserDetails loadUserByUsernameUncached(String email) throws UsernameNotFoundException {
+        return load(email).toUserDetails();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getEmails().isEmpty()) {
+            users.invalidateAll();
+        } else {
+            event.getEmails().forEach(users::invalidate);
+        }
+    }
+
+    private CachedUser load(String email) {
         // Find the user by email
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
@@ -35,12 +85,7 @@ public class CustomUserDetailService implements UserDetailsService {
         // Map roles to authorities
         Collection<GrantedAuthority> authorities = mapRolesToAuthorities(user.getRoles());
 
-        // Return a Spring Security UserDetails object
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                authorities
-        );
+        return new CachedUser(user.getEmail(), user.getPassword(), List.copyOf(authorities));
     }
 
     private Collection<GrantedAuthority> mapRolesToAuthorities(Set<Role> roles) {
@@ -65,4 +110,21 @@ public class CustomUserDetailService implements UserDetailsService {
         }
         throw new IllegalArgumentException("Invalid JWT token");
     }
+
+    private static class CachedUser {
+        private final String email;
+        private final String password;
+        private final List<GrantedAuthority> authorities;
+
+        CachedUser(String email, String password, List<GrantedAuthority> authorities) {
+            this.email = email;
+            this.password = password;
+            this.authorities = authorities;
+        }
+
+        // A new object every time, since Spring Security may erase the credentials of the one it is given
+        UserDetails toUserDetails() {
+            return new org.springframework.security.core.userdetails.User(email, password, authorities);
+        }
+    }
 }
@@ -0,0 +1,230 @@
+package co.edu.javeriana.lms.accounts.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import co.edu.javeriana.lms.shared.errors.RetryLaterException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class LoginThrottleService {
+
+    // Password hashing runs on these threads only, so a login storm cannot take every core
+    @Value("${LOGIN_THREADS:4}")
+    private int threads = 4;
+
+    @Value("${LOGIN_QUEUE_SIZE:200}")
+    private int queueSize = 200;
+
+    // A queued login that has not finished by then is dropped, the client already waited too long
+    @Value("${LOGIN_TIMEOUT:10}")
+    private long timeoutSeconds = 10;
+
+    @Value("${LOGIN_EMAIL_BURST:5}")
+    private int emailBurst = 5;
+
+    @Value("${LOGIN_EMAIL_PER_MINUTE:5}")
+    private double emailPerMinute = 5;
+
+    // Campus networks put many students behind one address, so the address limit is much higher
+    @Value("${LOGIN_IP_BURST:100}")
+    private int ipBurst = 100;
+
+    @Value("${LOGIN_IP_PER_MINUTE:300}")
+    private double ipPerMinute = 300;
+
+    @Value("${LOGIN_THROTTLE_KEYS:100000}")
+    private int maxKeys = 100000;
+
+    private static final int STRIPES = 64;
+
+    private TokenBuckets emailBuckets;
+    private TokenBuckets ipBuckets;
+    private ThreadPoolExecutor executor;
+
+    // Moving average of a login's run time, used to tell rejected clients when to come back
+    private final AtomicLong averageNanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(100));
+
+    // Throws when the email or the client address used up its attempts. The client address is the one resolved
+    // from the forwarded headers of a trusted proxy, and is not throttled when unknown
+    public void checkRate(String email, String clientIp) {
+        long emailWait = emailBuckets().tryAcquire(email.toLowerCase(Locale.ROOT));
+        if (emailWait > 0) {
+            log.warn("Too many login attempts for {}", email);
+            throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", emailWait);
+        }
+        if (clientIp != null && !clientIp.isBlank()) {
+            long ipWait = ipBuckets().tryAcquire(clientIp);
+            if (ipWait > 0) {
+                log.warn("Too many login attempts from {}", clientIp);
+                throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", ipWait);
+            }
+        }
+    }
+
+    // Gives back the attempt checkRate took, for logins that succeeded or never checked the credentials
+    public void refund(String email, String clientIp) {
+        emailBuckets().refund(email.toLowerCase(Locale.ROOT));
+        if (clientIp != null && !clientIp.isBlank()) {
+            ipBuckets().refund(clientIp);
+        }
+    }
+
+    // Runs the login on the bounded pool, and turns a full queue into a 503 instead of a longer wait
+    public <T> T runBounded(Supplier<T> login) {
+        Future<T> future;
+        try {
+            future = executor().submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return login.get();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    averageNanos.updateAndGet(average -> average + (elapsed - average) / 8);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Login queue is full with {} pending logins", executor().getQueue().size());
+            throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress",
+                    retryAfterSeconds());
+        }
+
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Login failed", e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE, "Login timed out", retryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE, "Login interrupted", retryAfterSeconds());
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    // Time for the pool to work through what is queued now
+    private long retryAfterSeconds() {
+        long queuedNanos = (getQueueDepth() + 1) * averageNanos.get() / Math.max(1, threads);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(queuedNanos) + 1);
+    }
+
+    private synchronized TokenBuckets emailBuckets() {
+        if (emailBuckets == null) {
+            emailBuckets = new TokenBuckets(emailBurst, emailPerMinute, maxKeys);
+        }
+        return emailBuckets;
+    }
+
+    private synchronized TokenBuckets ipBuckets() {
+        if (ipBuckets == null) {
+            ipBuckets = new TokenBuckets(ipBurst, ipPerMinute, maxKeys);
+        }
+        return ipBuckets;
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize), runnable -> {
+                        Thread thread = new Thread(runnable, "login-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Buckets split over independently locked stripes, each keeping its most recently used keys
+    private static class TokenBuckets {
+        private final double burst;
+        private final double tokensPerNano;
+        private final Map<String, Bucket>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        TokenBuckets(int burst, double perMinute, int maxKeys) {
+            this.burst = burst;
+            this.tokensPerNano = perMinute / Duration.ofMinutes(1).toNanos();
+            this.stripes = new Map[STRIPES];
+            int keysPerStripe = Math.max(1, maxKeys / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                        return size() > keysPerStripe;
+                    }
+                };
+            }
+        }
+
+        // 0 when a token was taken, otherwise the seconds until one is available
+        long tryAcquire(String key) {
+            Map<String, Bucket> stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+            long now = System.nanoTime();
+            synchronized (stripe) {
+                Bucket bucket = stripe.computeIfAbsent(key, k -> new Bucket(burst, now));
+                double tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+                if (tokens >= 1) {
+                    bucket.tokens = tokens - 1;
+                    return 0;
+                }
+                bucket.tokens = tokens;
+                return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1e9));
+            }
+        }
+
+        void refund(String key) {
+            Map<String, Bucket> stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(key);
+                if (bucket != null) {
+                    bucket.tokens = Math.min(burst, bucket.tokens + 1);
+                }
+            }
+        }
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
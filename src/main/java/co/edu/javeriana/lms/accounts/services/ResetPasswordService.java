@@ -1,9 +1,11 @@
 package co.edu.javeriana.lms.accounts.services;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,7 @@ import co.edu.javeriana.lms.accounts.models.PasswordResetToken;
 import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.PasswordResetTokenRepository;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,6 +34,9 @@ public class ResetPasswordService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public PasswordResetToken createPasswordResetToken (String email) {
         log.info("Creating password reset token for user: " + email);
         if (!userRepository.existsByEmail(email)) {
@@ -95,6 +101,7 @@ public class ResetPasswordService {
         user.setPassword(passwordEncoder.encode(password));
         userRepository.save(user);
         passwordResetTokenRepository.deleteByToken(token);
+        eventPublisher.publishEvent(new UserChangedEvent(Set.of(email)));
         String subject = "Cambio de contraseña LMS";
         String body = """
         <html>
@@ -1,8 +1,13 @@
 package co.edu.javeriana.lms.accounts.services;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,6 +22,7 @@ import co.edu.javeriana.lms.accounts.models.Role;
 import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.config.security.PasswordGenerator;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -35,6 +41,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Page<User> getAllUsers(String filter, Integer page, Integer size, String sort, Boolean asc) {
         log.info("Getting all users");
         Sort sortOrder = asc ? Sort.by(sort).ascending() : Sort.by(sort).descending();
@@ -112,19 +121,27 @@ public class UserService implements UserDetailsService {
         log.info("Updating user by id: " + id);
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+        String previousEmail = existingUser.getEmail();
         existingUser.setName(user.getName());
         existingUser.setLastName(user.getLastName());
         existingUser.setEmail(user.getEmail());
         existingUser.setInstitutionalId(user.getInstitutionalId());
         existingUser.setRoles(user.getRoles());
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        // Both the old and the new email, which are the same one when the email did not change
+        eventPublisher.publishEvent(new UserChangedEvent(Stream.of(previousEmail, user.getEmail())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+        return savedUser;
     }
 
     public User setPreferredRoleToUser(String email, Role role) {
         log.info("Setting default role to user by name: " + email);
         User existingUser = userRepository.findByEmail(email).orElseThrow();
         existingUser.setPreferredRole(role);
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(Set.of(email)));
+        return savedUser;
     }
 
     @Override
@@ -140,7 +157,10 @@ public class UserService implements UserDetailsService {
         if (!userRepository.existsById(id)) {
             throw new EntityNotFoundException("User not found with id: " + id);
         }
+        // Without the email every cached account is dropped
+        Set<String> emails = userRepository.findById(id).map(User::getEmail).map(Set::of).orElse(Set.of());
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(emails));
     }
 
     public List<User> findAllCoordinators() {
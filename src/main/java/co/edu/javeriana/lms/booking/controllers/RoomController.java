@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import co.edu.javeriana.lms.booking.dtos.FreeRoomDto;
 import co.edu.javeriana.lms.booking.dtos.RoomDto;
 import co.edu.javeriana.lms.booking.dtos.RoomTypeDto;
 import co.edu.javeriana.lms.booking.models.Room;
@@ -61,6 +62,22 @@ public class RoomController {
 						metadata));
 	}
 
+	@GetMapping("/free")
+	public ResponseEntity<ApiResponseDto<?>> getFreeRooms(
+			@RequestParam String start,
+			@RequestParam String end,
+			@Min(1) @RequestParam Integer duration,
+			@Min(0) @RequestParam(defaultValue = "0") Integer minCapacity,
+			@RequestParam(required = false) List<Long> typeIds) {
+
+		log.info("Requesting free rooms between {} and {} for {} minutes", start, end, duration);
+
+		List<FreeRoomDto> freeRooms = roomService.findFreeRooms(start, end, duration, minCapacity, typeIds);
+
+		return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "Free rooms retrieved successfully",
+				freeRooms, null));
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<ApiResponseDto<?>> getRoomById(@PathVariable Long id) {
 		log.info("Requesting room with id={}", id);
@@ -0,0 +1,20 @@
+package co.edu.javeriana.lms.booking.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeRoomDto {
+    private Long roomId;
+    private String name;
+    private Integer capacity;
+    private String type;
+    private List<FreeWindowDto> windows;
+}
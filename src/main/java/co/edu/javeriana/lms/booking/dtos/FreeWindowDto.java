@@ -0,0 +1,17 @@
+package co.edu.javeriana.lms.booking.dtos;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeWindowDto {
+    private Date startDateTime;
+    private Date endDateTime;
+}
@@ -1,5 +1,8 @@
 package co.edu.javeriana.lms.booking.repositories;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
@@ -18,5 +21,9 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     long countByType(RoomType type);
 
     Page<Room> findByNameContaining(String name, Pageable pageable);
-    
+
+    List<Room> findByCapacityGreaterThanEqualOrderById(Integer capacity);
+
+    List<Room> findByCapacityGreaterThanEqualAndType_IdInOrderById(Integer capacity, Collection<Long> typeIds);
+
 }
@@ -1,19 +1,31 @@
 package co.edu.javeriana.lms.booking.services;
 
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import co.edu.javeriana.lms.booking.dtos.FreeRoomDto;
+import co.edu.javeriana.lms.booking.dtos.FreeWindowDto;
 import co.edu.javeriana.lms.booking.models.Room;
 import co.edu.javeriana.lms.booking.models.RoomType;
 import co.edu.javeriana.lms.booking.repositories.RoomRepository;
 import co.edu.javeriana.lms.booking.repositories.RoomTypeRepository;
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
@@ -25,6 +37,12 @@ public class RoomService {
     @Autowired
     private RoomTypeRepository roomTypeRepository;
 
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Value("${FREE_ROOM_SEARCH_MAX_DAYS:200}")
+    private long freeRoomSearchMaxDays = 200;
+
     public Page<Room> searchRooms(String keyword, Integer page, Integer size, String sort, Boolean asc) {
         Sort sortOrder = asc ? Sort.by(sort).ascending() : Sort.by(sort).descending();
         Pageable pageable = PageRequest.of(page, size, sortOrder);
@@ -103,6 +121,73 @@ public class RoomService {
         }
     }
 
+    // Free windows of at least the duration in every matching room, from one query for the rooms and one for
+    // their bookings. The bookings are sorted by room and start, so a single sweep merges them into gaps
+    public List<FreeRoomDto> findFreeRooms(String start, String end, Integer duration, Integer minCapacity,
+            List<Long> typeIds) {
+        Date startDate = parseDate(start);
+        Date endDate = parseDate(end);
+        if (!startDate.before(endDate)) {
+            throw new IllegalArgumentException("The start date must be before the end date");
+        }
+        if (Duration.between(startDate.toInstant(), endDate.toInstant()).toDays() > freeRoomSearchMaxDays) {
+            throw new IllegalArgumentException("The search range can not exceed " + freeRoomSearchMaxDays + " days");
+        }
+
+        List<Room> rooms = typeIds == null || typeIds.isEmpty()
+                ? roomRepository.findByCapacityGreaterThanEqualOrderById(minCapacity)
+                : roomRepository.findByCapacityGreaterThanEqualAndType_IdInOrderById(minCapacity, typeIds);
+        if (rooms.isEmpty()) {
+            return List.of();
+        }
+
+        List<RoomIntervalDto> bookings = new ArrayList<>(simulationRepository.findIntervalsByRoomIdsOverlapping(
+                rooms.stream().map(Room::getId).toList(), startDate, endDate));
+        bookings.sort(Comparator.comparing(RoomIntervalDto::getRoomId)
+                .thenComparing(booking -> booking.getStartDateTime().getTime()));
+
+        long durationMillis = Duration.ofMinutes(duration).toMillis();
+        List<FreeRoomDto> freeRooms = new ArrayList<>();
+        int next = 0;
+        for (Room room : rooms) {
+            List<FreeWindowDto> windows = new ArrayList<>();
+            long freeFrom = startDate.getTime();
+            while (next < bookings.size() && bookings.get(next).getRoomId().equals(room.getId())) {
+                RoomIntervalDto booking = bookings.get(next++);
+                addWindow(windows, freeFrom, booking.getStartDateTime().getTime(), durationMillis);
+                // Overlapping or touching bookings merge into one busy block
+                freeFrom = Math.max(freeFrom, booking.getEndDateTime().getTime());
+            }
+            addWindow(windows, freeFrom, endDate.getTime(), durationMillis);
+
+            if (!windows.isEmpty()) {
+                freeRooms.add(FreeRoomDto.builder()
+                        .roomId(room.getId())
+                        .name(room.getName())
+                        .capacity(room.getCapacity())
+                        .type(room.getType() == null ? null : room.getType().getName())
+                        .windows(windows)
+                        .build());
+            }
+        }
+        return freeRooms;
+    }
+
+    private void addWindow(List<FreeWindowDto> windows, long start, long end, long durationMillis) {
+        if (end - start >= durationMillis) {
+            windows.add(new FreeWindowDto(new Date(start), new Date(end)));
+        }
+    }
+
+    private Date parseDate(String date) {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm").parse(date);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid date format. Expected format: yyyy-MM-dd HH:mm");
+        }
+    }
+
     public Room findByName(String name) {
         return roomRepository.findByName(name);
     }
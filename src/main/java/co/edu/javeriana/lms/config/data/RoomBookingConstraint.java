@@ -0,0 +1,76 @@
+package co.edu.javeriana.lms.config.data;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Keeps one row per room a simulation is booked into, and lets Postgres reject two overlapping bookings of a
+// room even when both requests passed the RoomBookingIndex check at the same time. Triggers on simulation and
+// simulation_rooms maintain the rows, so the table is rebuilt from them on every start.
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RoomBookingConstraint implements CommandLineRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS btree_gist",
+            "DROP TABLE IF EXISTS room_booking",
+            "CREATE TABLE room_booking (room_id bigint NOT NULL, simulation_id bigint NOT NULL, "
+                    + "during tsrange NOT NULL, PRIMARY KEY (room_id, simulation_id), "
+                    + "CONSTRAINT room_booking_no_overlap EXCLUDE USING gist (room_id WITH =, during WITH &&))",
+            "INSERT INTO room_booking (room_id, simulation_id, during) "
+                    + "SELECT DISTINCT sr.id, s.simulation_id, tsrange(s.start_date_time, s.end_date_time) "
+                    + "FROM simulation s JOIN simulation_rooms sr ON sr.simulation_id = s.simulation_id "
+                    + "WHERE s.start_date_time < s.end_date_time",
+            // A room added to or removed from a simulation
+            "CREATE OR REPLACE FUNCTION room_booking_on_simulation_rooms() RETURNS trigger AS $$ BEGIN "
+                    + "IF TG_OP = 'DELETE' THEN "
+                    + "DELETE FROM room_booking WHERE room_id = OLD.id AND simulation_id = OLD.simulation_id; "
+                    + "RETURN OLD; END IF; "
+                    + "INSERT INTO room_booking (room_id, simulation_id, during) "
+                    + "SELECT NEW.id, s.simulation_id, tsrange(s.start_date_time, s.end_date_time) FROM simulation s "
+                    + "WHERE s.simulation_id = NEW.simulation_id AND s.start_date_time < s.end_date_time "
+                    + "ON CONFLICT (room_id, simulation_id) DO NOTHING; "
+                    + "RETURN NEW; END $$ LANGUAGE plpgsql",
+            "DROP TRIGGER IF EXISTS room_booking_simulation_rooms ON simulation_rooms",
+            "CREATE TRIGGER room_booking_simulation_rooms AFTER INSERT OR DELETE ON simulation_rooms "
+                    + "FOR EACH ROW EXECUTE FUNCTION room_booking_on_simulation_rooms()",
+            // A simulation moved or deleted, every room it is booked into follows
+            "CREATE OR REPLACE FUNCTION room_booking_on_simulation() RETURNS trigger AS $$ BEGIN "
+                    + "DELETE FROM room_booking WHERE simulation_id = OLD.simulation_id; "
+                    + "IF TG_OP = 'DELETE' THEN RETURN OLD; END IF; "
+                    + "INSERT INTO room_booking (room_id, simulation_id, during) "
+                    + "SELECT DISTINCT sr.id, NEW.simulation_id, tsrange(NEW.start_date_time, NEW.end_date_time) "
+                    + "FROM simulation_rooms sr WHERE sr.simulation_id = NEW.simulation_id "
+                    + "AND NEW.start_date_time < NEW.end_date_time; "
+                    + "RETURN NEW; END $$ LANGUAGE plpgsql",
+            "DROP TRIGGER IF EXISTS room_booking_simulation ON simulation",
+            "CREATE TRIGGER room_booking_simulation AFTER UPDATE OF start_date_time, end_date_time OR DELETE "
+                    + "ON simulation FOR EACH ROW EXECUTE FUNCTION room_booking_on_simulation()");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> STATEMENTS.forEach(jdbcTemplate::execute));
+            log.info("Room booking exclusion constraint installed");
+        } catch (DataAccessException e) {
+            // Rooms already double booked, the application still checks every new booking itself
+            log.error("Room booking exclusion constraint not installed: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package co.edu.javeriana.lms.config.data;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Keeps simulation.seats_taken equal to the number of students in each simulation, whichever path adds or removes
+// them. Joining a simulation locks its row with a conditional update on this counter, so concurrent joins queue on
+// one row and each sees the seats the previous one took. The counters are recounted on every start.
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SimulationSeatCounter implements CommandLineRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            "UPDATE simulation s SET seats_taken = "
+                    + "(SELECT COUNT(*) FROM simulation_users su WHERE su.simulation_id = s.simulation_id)",
+            "CREATE OR REPLACE FUNCTION simulation_seats_on_simulation_users() RETURNS trigger AS $$ BEGIN "
+                    + "IF TG_OP = 'DELETE' THEN "
+                    + "UPDATE simulation SET seats_taken = seats_taken - 1 WHERE simulation_id = OLD.simulation_id; "
+                    + "RETURN OLD; END IF; "
+                    + "UPDATE simulation SET seats_taken = seats_taken + 1 WHERE simulation_id = NEW.simulation_id; "
+                    + "RETURN NEW; END $$ LANGUAGE plpgsql",
+            "DROP TRIGGER IF EXISTS simulation_seats_simulation_users ON simulation_users",
+            "CREATE TRIGGER simulation_seats_simulation_users AFTER INSERT OR DELETE ON simulation_users "
+                    + "FOR EACH ROW EXECUTE FUNCTION simulation_seats_on_simulation_users()");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> STATEMENTS.forEach(jdbcTemplate::execute));
+            log.info("Simulation seat counter installed");
+        } catch (DataAccessException e) {
+            log.error("Simulation seat counter not installed: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+}
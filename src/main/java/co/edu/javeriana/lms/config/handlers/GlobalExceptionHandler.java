@@ -111,7 +111,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Object> handleResponseStatusException(ResponseStatusException ex) {
         log.warn("Response status exception: {}", ex.getMessage());
 
-        return new ResponseEntity<>(new ErrorDto("Response status exception", ex.getMessage()), ex.getStatusCode());
+        return new ResponseEntity<>(new ErrorDto("Response status exception", ex.getMessage()), ex.getHeaders(), ex.getStatusCode());
     }
 
     @ExceptionHandler(IllegalStateException.class)
@@ -3,6 +3,7 @@ package co.edu.javeriana.lms.config.handlers;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,7 +12,9 @@ import org.springframework.stereotype.Component;
 
 import co.edu.javeriana.lms.booking.models.Room;
 import co.edu.javeriana.lms.booking.repositories.RoomRepository;
-import co.edu.javeriana.lms.videos.services.ArecService;
+import co.edu.javeriana.lms.config.security.MembershipChangeFeed;
+import co.edu.javeriana.lms.practices.services.EnrollmentQueueService;
+import co.edu.javeriana.lms.videos.services.ArecSyncService;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -19,11 +22,17 @@ import lombok.extern.slf4j.Slf4j;
 public class ScheduleTaskHandler {
 
     @Autowired
-    private ArecService arecService;
+    private ArecSyncService arecSyncService;
 
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private EnrollmentQueueService enrollmentQueueService;
+
+    @Autowired
+    private MembershipChangeFeed membershipChangeFeed;
+
     @Value("${AREC_SYNC:false}")
     private Boolean arecSync;
 
@@ -37,13 +46,26 @@ public class ScheduleTaskHandler {
             log.info("Arec sync is disabled. Skipping video sync.");
             return;
         }
-        rooms.forEach(room -> {
-            try {
-                log.info("Syncing videos for room: {}", room.getName());
-                arecService.syncVideos(room.getId(), room.getIp());
-            } catch (Exception e) {
-                log.error("Error syncing videos for room {}: {}", room.getName(), e.getMessage());
-            }
-        });
+        arecSyncService.syncRooms(rooms);
+    }
+
+    // The hourly sweep above stays as a fallback for anything this misses
+    @Scheduled(fixedDelayString = "${AREC_SYNC_PLAN_INTERVAL_MINUTES:10}", timeUnit = TimeUnit.MINUTES)
+    public void planSimulationEndSyncs() {
+        if (!arecSync) {
+            return;
+        }
+        log.info("Planning video syncs for simulations about to end");
+        arecSyncService.planSimulationEndSyncs();
+    }
+
+    @Scheduled(fixedDelayString = "${ENROLLMENT_QUEUE_INTERVAL_MS:1000}")
+    public void processEnrollmentQueue() {
+        enrollmentQueueService.processQueue();
+    }
+
+    @Scheduled(fixedDelayString = "${AUTHORIZATION_SYNC_INTERVAL_MS:5000}")
+    public void pollMembershipChanges() {
+        membershipChangeFeed.poll();
     }
 }
@@ -0,0 +1,189 @@
+package co.edu.javeriana.lms.config.security;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import co.edu.javeriana.lms.practices.services.PracticeService;
+import co.edu.javeriana.lms.practices.services.SimulationService;
+import co.edu.javeriana.lms.shared.cache.BoundedCache;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.subjects.services.ClassService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class AuthorizationCache {
+
+    @Autowired
+    private ClassService classService;
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private PracticeService practiceService;
+
+    @Value("${AUTHORIZATION_CACHE_ENABLED:true}")
+    private boolean enabled = true;
+
+    @Value("${AUTHORIZATION_CACHE_SIZE:10000}")
+    private int cacheSize = 10000;
+
+    // Safety net for changes that publish no event, such as a new course coordinator
+    @Value("${AUTHORIZATION_CACHE_TTL:300}")
+    private long ttlSeconds = 300;
+
+    // Membership claims older than this are checked against the database even without a known change
+    @Value("${JWT_MEMBERSHIP_CLAIM_TTL:900}")
+    private long claimTtlSeconds = 900;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Membership bits by user, resource type and id
+    private BoundedCache<String, CachedMembership> memberships;
+
+    // Last membership change per user, a user dropped from here moves the change time of everyone forward.
+    // Changes made on other instances are recorded when MembershipChangeFeed reads them, so a claim issued
+    // elsewhere is trusted here until the next poll, give or take the clock difference between the instances
+    private final Map<Long, Long> changedAt = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            if (size() > cacheSize) {
+                allChangedAt = Math.max(allChangedAt, eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private long allChangedAt;
+
+    // Issue time of the stale claim each user was last sent a new token for
+    private final Map<Long, Long> reissued = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        memberships = BoundedCache.create("authorization", cacheSize, Duration.ofSeconds(ttlSeconds), meterRegistry);
+    }
+
+    public int findMembership(Long userId, Resource resource, Long resourceId) {
+        if (!enabled) {
+            return load(userId, resource, resourceId).membership;
+        }
+        return memberships.get(userId + ":" + resource + ":" + resourceId,
+                key -> load(userId, resource, resourceId)).membership;
+    }
+
+    // A claim can be trusted when no membership of the user changed since it was issued, as far as this instance
+    // has seen
+    public boolean isClaimCurrent(Long userId, long issuedAt) {
+        if (issuedAt <= System.currentTimeMillis() - Duration.ofSeconds(claimTtlSeconds).toMillis()) {
+            return false;
+        }
+        synchronized (changedAt) {
+            return issuedAt > allChangedAt && issuedAt > changedAt.getOrDefault(userId, 0L);
+        }
+    }
+
+    // True once per stale claim, so a client that keeps the old token is not sent a new one on every request
+    public boolean shouldReissue(Long userId, long issuedAt) {
+        Long previous = reissued.put(userId, issuedAt);
+        return previous == null || previous != issuedAt;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        markChanged(event.getUserIds());
+        memberships.invalidateIf(cached -> isAffected(cached, event));
+        log.debug("Membership of {} {} changed, cached decisions dropped", event.getResource(),
+                event.getResourceId());
+    }
+
+    // A change made on another instance is only known by user, so every decision of those users is dropped
+    public void onRemoteMembershipChanged(Set<Long> userIds) {
+        markChanged(userIds);
+        memberships.invalidateIf(cached -> userIds.isEmpty() || userIds.contains(cached.userId));
+        log.debug("Membership of {} users changed on another instance, cached decisions dropped",
+                userIds.isEmpty() ? "all" : userIds.size());
+    }
+
+    private void markChanged(Set<Long> userIds) {
+        long now = System.currentTimeMillis();
+        synchronized (changedAt) {
+            if (userIds.isEmpty()) {
+                allChangedAt = now;
+            } else {
+                userIds.forEach(userId -> changedAt.put(userId, now));
+            }
+        }
+    }
+
+    private CachedMembership load(Long userId, Resource resource, Long resourceId) {
+        switch (resource) {
+            case SIMULATION:
+                return new CachedMembership(userId, resource, resourceId, null,
+                        simulationService.findMembership(resourceId, userId));
+            case PRACTICE:
+                Long classId = practiceService.findClassId(resourceId);
+                return new CachedMembership(userId, resource, resourceId, classId,
+                        classService.findMembership(classId, userId));
+            default:
+                return new CachedMembership(userId, resource, resourceId, resourceId,
+                        classService.findMembership(resourceId, userId));
+        }
+    }
+
+    private boolean isAffected(CachedMembership cached, MembershipChangedEvent event) {
+        if (!event.getUserIds().isEmpty() && !event.getUserIds().contains(cached.userId)) {
+            return false;
+        }
+        // Simulation decisions depend on the class and practice above them, whose ids they do not keep
+        if (cached.resource == Resource.SIMULATION) {
+            return event.getResource() != Resource.SIMULATION || event.getResourceId() == null
+                    || event.getResourceId().equals(cached.resourceId);
+        }
+        switch (event.getResource()) {
+            case CLASS:
+                return event.getResourceId() == null || event.getResourceId().equals(cached.classId);
+            case PRACTICE:
+                return cached.resource == Resource.PRACTICE
+                        && (event.getResourceId() == null || event.getResourceId().equals(cached.resourceId));
+            default:
+                return false;
+        }
+    }
+
+    private static class CachedMembership {
+        private final Long userId;
+        private final Resource resource;
+        private final Long resourceId;
+        private final Long classId;
+        private final int membership;
+
+        CachedMembership(Long userId, Resource resource, Long resourceId, Long classId, int membership) {
+            this.userId = userId;
+            this.resource = resource;
+            this.resourceId = resourceId;
+            this.classId = classId;
+            this.membership = membership;
+        }
+    }
+}
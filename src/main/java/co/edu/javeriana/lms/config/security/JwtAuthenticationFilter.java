@@ -1,8 +1,10 @@
 package co.edu.javeriana.lms.config.security;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -11,6 +13,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -35,6 +38,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailService customUserDetailService;
 
+    // Strict mode reloads the user on sensitive routes, so a disabled account or revoked role applies at once
+    @Value("${JWT_STRICT_MODE:true}")
+    private boolean strictMode = true;
+
+    @Value("${JWT_STRICT_PATHS:/auth/change-password,/user/**}")
+    private String[] strictPaths = { "/auth/change-password", "/user/**" };
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
@@ -49,7 +61,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             final String userName = jwtService.extractUserName(jwt);
 
             if (StringUtils.hasText(userName) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = customUserDetailService.loadUserByUsername(userName);
+                UserDetails userDetails;
+                if (isStrict(request)) {
+                    // Past the user cache too, which could still hold the account as it was before the change
+                    userDetails = customUserDetailService.loadUserByUsernameUncached(userName);
+                } else {
+                    userDetails = jwtService.extractPrincipal(jwt);
+                    if (userDetails == null) {
+                        userDetails = customUserDetailService.loadUserByUsername(userName);
+                    }
+                }
                 if (jwtService.isTokenValid(jwt, userDetails)) {
                     SecurityContext context = SecurityContextHolder.createEmptyContext();
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -74,4 +95,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isStrict(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return strictMode && Arrays.stream(strictPaths).anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
 }
@@ -0,0 +1,115 @@
+package co.edu.javeriana.lms.config.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+import lombok.extern.slf4j.Slf4j;
+
+// Shares membership changes between instances through the membership_change table. Each instance writes the
+// users it changed in the same transaction, and reads what the others changed every few seconds, so a removal
+// made on one instance reaches the cached decisions and membership claims of the others within one poll.
+@Slf4j
+@Component
+public class MembershipChangeFeed {
+
+    // Stands for every user, for changes that name none
+    static final long EVERYONE = 0L;
+
+    private static final String RECORD = "INSERT INTO membership_change (user_id, changed_at, changed_by) "
+            + "VALUES (?, clock_timestamp(), ?) "
+            + "ON CONFLICT (user_id) DO UPDATE SET changed_at = EXCLUDED.changed_at, changed_by = EXCLUDED.changed_by";
+
+    private static final String CHANGES = "SELECT user_id, changed_at FROM membership_change "
+            + "WHERE changed_at > now() - ? * interval '1 second' AND changed_by <> ?";
+
+    // A change is written before its transaction commits, so it is read again for this long in case it shows up late
+    private static final Duration OVERLAP = Duration.ofSeconds(60);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Autowired
+    private AuthorizationCache authorizationCache;
+
+    @Value("${AUTHORIZATION_SYNC_ENABLED:true}")
+    private boolean enabled = true;
+
+    // Nothing older than the longest cached decision or trusted claim needs to be read
+    @Value("${AUTHORIZATION_CACHE_TTL:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${JWT_MEMBERSHIP_CLAIM_TTL:900}")
+    private long claimTtlSeconds = 900;
+
+    // Changes already applied, by user
+    private final Map<Long, Long> applied = new HashMap<>();
+
+    private long lastPolledAt;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> userIds = event.getUserIds().isEmpty() ? List.of(EVERYONE) : List.copyOf(event.getUserIds());
+        jdbcTemplate.batchUpdate(RECORD, userIds, userIds.size(), (statement, userId) -> {
+            statement.setLong(1, userId);
+            statement.setString(2, jobLockService.getInstanceId());
+        });
+    }
+
+    // Applies the changes other instances made since the last poll
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long window = Math.max(ttlSeconds, claimTtlSeconds);
+        long lookback = lastPolledAt == 0 ? window
+                : Math.min(window, Duration.ofMillis(now - lastPolledAt).plus(OVERLAP).toSeconds());
+
+        List<long[]> changes;
+        try {
+            changes = jdbcTemplate.query(CHANGES, (rs, rowNum) -> new long[] { rs.getLong("user_id"),
+                    rs.getTimestamp("changed_at").getTime() }, lookback, jobLockService.getInstanceId());
+        } catch (DataAccessException e) {
+            // Polled again from the same point next time
+            log.warn("Could not read membership changes of other instances: {}", e.getMessage());
+            return;
+        }
+        lastPolledAt = now;
+
+        List<Long> userIds = new ArrayList<>();
+        for (long[] change : changes) {
+            Long previous = applied.put(change[0], change[1]);
+            if (previous == null || previous < change[1]) {
+                userIds.add(change[0]);
+            }
+        }
+        long oldest = now - Duration.ofSeconds(window).toMillis();
+        applied.values().removeIf(changedAt -> changedAt < oldest);
+
+        if (userIds.contains(EVERYONE)) {
+            authorizationCache.onRemoteMembershipChanged(Set.of());
+        } else if (!userIds.isEmpty()) {
+            authorizationCache.onRemoteMembershipChanged(Set.copyOf(userIds));
+        }
+    }
+}
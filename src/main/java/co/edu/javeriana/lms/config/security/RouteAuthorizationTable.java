@@ -0,0 +1,100 @@
+package co.edu.javeriana.lms.config.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Path templates trie keyed by segment, "{id}" segments match a numeric id
+public class RouteAuthorizationTable {
+
+    public enum Resource {
+        CLASS,
+        PRACTICE,
+        SIMULATION
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+        private final Resource resource;
+        private final Long id;
+    }
+
+    private static final String ID_SEGMENT = "{id}";
+
+    private final Node root = new Node();
+
+    // The template's last segment must be "{id}", every path that starts with it is checked against that id
+    public RouteAuthorizationTable route(String template, Resource resource) {
+        if (!template.endsWith("/" + ID_SEGMENT)) {
+            throw new IllegalArgumentException("Route template must end with an id: " + template);
+        }
+        Node node = root;
+        for (String segment : template.substring(1).split("/")) {
+            if (segment.equals(ID_SEGMENT)) {
+                if (node.id == null) {
+                    node.id = new Node();
+                }
+                node = node.id;
+            } else {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.resource = resource;
+        return this;
+    }
+
+    // Walks the path once, returns the resource of the first template it starts with or null
+    public Match resolve(String path) {
+        Node node = root;
+        Long id = null;
+        int start = path.startsWith("/") ? 1 : 0;
+
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = path.length();
+            }
+
+            Node next = node.literals.isEmpty() ? null : node.literals.get(path.substring(start, end));
+            if (next == null && node.id != null) {
+                id = parseId(path, start, end);
+                next = id == null ? null : node.id;
+            }
+            if (next == null) {
+                return null;
+            }
+            if (next.resource != null) {
+                return new Match(next.resource, id);
+            }
+
+            node = next;
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private Long parseId(String path, int start, int end) {
+        // Longer ids would overflow, they can never exist
+        if (start == end || end - start > 18) {
+            return null;
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node id;
+        private Resource resource;
+    }
+}
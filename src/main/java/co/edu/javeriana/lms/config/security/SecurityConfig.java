@@ -5,6 +5,7 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -39,6 +40,10 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // Raising it rehashes each password on its next successful login
+    @Value("${BCRYPT_STRENGTH:10}")
+    private int bcryptStrength = 10;
+
     @Bean
     SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.headers(headers -> headers.frameOptions(t -> t.disable()));
@@ -50,6 +55,8 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**")
                         .access((authentication, context) -> new AuthorizationDecision(env.matchesProfiles("dev")))
                         .requestMatchers("/streaming/**").permitAll() // Public endpoint
+                        .requestMatchers("/actuator/health").permitAll() // Load balancer checks
+                        .requestMatchers("/actuator/**").hasAuthority(Role.ADMIN.name()) // Cache and request metrics
                         .requestMatchers("/admin/**").hasAuthority(Role.ADMIN.name()) // Admin-only
                         .requestMatchers("/profesor/**").hasAuthority(Role.PROFESOR.name()) // Profesor-only
                         .requestMatchers("/estudiante/**").hasAuthority(Role.ESTUDIANTE.name()) // Estudiante-only
@@ -119,7 +126,7 @@ public class SecurityConfig {
 
     @Bean
     PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -135,7 +142,8 @@ public class SecurityConfig {
                 registry
                         .addMapping("/**")
                         .allowedOrigins("*")
-                        .allowedMethods("PUT", "DELETE", "GET", "POST", "PATCH");
+                        .allowedMethods("PUT", "DELETE", "GET", "POST", "PATCH")
+                        .exposedHeaders(AuthorizationInterceptor.REFRESHED_TOKEN_HEADER);
             }
         };
     }
@@ -8,8 +8,11 @@ import co.edu.javeriana.lms.practices.dtos.SimulationByTimeSlotDto;
 import co.edu.javeriana.lms.grades.dtos.RubricDto;
 import co.edu.javeriana.lms.accounts.services.AuthService;
 import co.edu.javeriana.lms.practices.dtos.CreateSimulationRequestDto;
+import co.edu.javeriana.lms.practices.dtos.EnrollmentRequestDto;
 import co.edu.javeriana.lms.practices.dtos.SimulationAvailabilityDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationListDto;
 import co.edu.javeriana.lms.practices.models.Simulation;
+import co.edu.javeriana.lms.practices.services.EnrollmentQueueService;
 import co.edu.javeriana.lms.practices.services.SimulationService;
 import co.edu.javeriana.lms.shared.dtos.ApiResponseDto;
 import co.edu.javeriana.lms.shared.dtos.PaginationMetadataDto;
@@ -21,6 +24,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,6 +46,9 @@ public class SimulationController {
     @Autowired
     private SimulationService simulationService;
 
+    @Autowired
+    private EnrollmentQueueService enrollmentQueueService;
+
     @Autowired
     private AuthService authService;
 
@@ -52,7 +59,7 @@ public class SimulationController {
             HttpServletRequest request) {
         log.info("Requesting all simulations");
 
-        Page<Simulation> simulationsPage = simulationService.findAllSimulations(page, size);
+        Page<SimulationListDto> simulationsPage = simulationService.findAllSimulations(page, size);
 
         if (simulationsPage.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -63,7 +70,7 @@ public class SimulationController {
                 simulationsPage.getTotalElements(), simulationsPage.getTotalPages());
 
         return ResponseEntity.ok(
-                new ApiResponseDto<List<Simulation>>(HttpStatus.OK.value(), "ok", simulationsPage.getContent(),
+                new ApiResponseDto<List<SimulationListDto>>(HttpStatus.OK.value(), "ok", simulationsPage.getContent(),
                         metadata));
     }
 
@@ -85,8 +92,8 @@ public class SimulationController {
             @RequestParam(required = false) Integer groupNumber) {
         log.info("Requesting simulations for practice with id: {}, groupNumber: {}", practiceId, groupNumber);
 
-        Page<Simulation> simulationsPage = simulationService.findSimulationsByPracticeId(practiceId, page, size, sort,
-                asc, groupNumber);
+        Page<SimulationListDto> simulationsPage = simulationService.findSimulationsByPracticeId(practiceId, page, size,
+                sort, asc, groupNumber);
 
         PaginationMetadataDto metadata = new PaginationMetadataDto(page, simulationsPage.getNumberOfElements(),
                 simulationsPage.getTotalElements(), simulationsPage.getTotalPages());
@@ -135,6 +142,16 @@ public class SimulationController {
                 simulationService.findSimulationsSchedule(date), null));
     }
 
+    // Week or month views
+    @GetMapping(value = "/schedule", params = { "start", "end" })
+    public ResponseEntity<ApiResponseDto<?>> getScheduleRange(@RequestParam String start,
+            @RequestParam String end) {
+        log.info("Requesting simulations to show schedule between {} and {}", start, end);
+
+        return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "ok",
+                simulationService.findSimulationsSchedule(start, end), null));
+    }
+
     @GetMapping("/{id}/users")
     public ResponseEntity<ApiResponseDto<?>> getSimulationStudents(@PathVariable Long id) {
         log.info("Requesting simulation students with id: {}", id);
@@ -157,6 +174,33 @@ public class SimulationController {
         return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "ok", null, null));
     }
 
+    // Queued instead of joined right away, the result is polled from the returned location
+    @PostMapping("/{id}/enroll")
+    public ResponseEntity<ApiResponseDto<?>> enrollInSimulation(@RequestHeader("Authorization") String token,
+            @PathVariable Long id) {
+        token = token.substring(7);
+        log.info("Requesting to enroll in simulation with id: {}", id);
+
+        Long userId = authService.getUserIdByToken(token);
+
+        EnrollmentRequestDto request = enrollmentQueueService.enqueue(id, userId);
+
+        return ResponseEntity.accepted().location(URI.create("/simulation/enrollment/" + request.getId()))
+                .body(new ApiResponseDto<>(HttpStatus.ACCEPTED.value(), "Enrollment request queued", request, null));
+    }
+
+    @GetMapping("/enrollment/{requestId}")
+    public ResponseEntity<ApiResponseDto<?>> getEnrollmentRequest(@RequestHeader("Authorization") String token,
+            @PathVariable Long requestId) {
+        token = token.substring(7);
+        log.info("Requesting enrollment request with id: {}", requestId);
+
+        Long userId = authService.getUserIdByToken(token);
+
+        return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "ok",
+                enrollmentQueueService.findRequest(requestId, userId), null));
+    }
+
     @PostMapping("/{id}/leave")
     public ResponseEntity<ApiResponseDto<?>> leaveSimulation(@RequestHeader("Authorization") String token,
             @PathVariable Long id) {
@@ -212,7 +256,7 @@ public class SimulationController {
     public ResponseEntity<ApiResponseDto<?>> getCandidateSimulations(@PathVariable Long id) {
         log.info("Requesting simulation candidates with id: {}", id);
 
-        List<Simulation> candidates = simulationService.findSimulationCandidates(id);
+        List<SimulationListDto> candidates = simulationService.findSimulationCandidates(id);
 
         return ResponseEntity.ok(new ApiResponseDto<>(HttpStatus.OK.value(), "ok",
                 candidates, null));
@@ -0,0 +1,24 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+import co.edu.javeriana.lms.practices.models.EnrollmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentRequestDto {
+    private Long id;
+    private Long simulationId;
+    private EnrollmentStatus status;
+    // Place in the practice queue while pending, in the simulation waitlist while waitlisted
+    private Long position;
+    private String message;
+    private Date requestedAt;
+    private Date processedAt;
+}
@@ -0,0 +1,14 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+// One merged block of back-to-back or overlapping simulations in a room
+public interface RoomBusyBlockDto {
+    Long getRoomId();
+
+    String getRoomName();
+
+    Date getStartDateTime();
+
+    Date getEndDateTime();
+}
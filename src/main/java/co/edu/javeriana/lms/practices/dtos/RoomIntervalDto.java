@@ -0,0 +1,19 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomIntervalDto {
+    private Long roomId;
+    private Long simulationId;
+    private Date startDateTime;
+    private Date endDateTime;
+}
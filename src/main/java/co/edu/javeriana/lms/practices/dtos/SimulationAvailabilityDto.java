@@ -16,5 +16,6 @@ public class SimulationAvailabilityDto {
     private Integer groupNumber;
     private Date startDateTime;
     private Date endDateTime;
+    private Integer enrolledStudents;
     private Boolean available;
 }
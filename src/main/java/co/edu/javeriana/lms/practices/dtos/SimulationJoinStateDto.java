@@ -0,0 +1,24 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+import co.edu.javeriana.lms.grades.models.GradeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationJoinStateDto {
+    private Long simulationId;
+    private Long practiceId;
+    private Date startDateTime;
+    private Date endDateTime;
+    private GradeStatus gradeStatus;
+    private Integer seatsTaken;
+    private Integer maxStudentsGroup;
+    private Boolean enrolled;
+}
@@ -0,0 +1,30 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+import java.util.List;
+
+import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.grades.models.GradeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A simulation in a listing, without its videos, students, rubric or the practice and class behind it. Those are
+// served with the single simulation by GET /simulation/{id}
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationListDto {
+    private Long simulationId;
+    private Integer groupNumber;
+    private Date startDateTime;
+    private Date endDateTime;
+    private Float grade;
+    private GradeStatus gradeStatus;
+    private Date gradeDateTime;
+    private Long practiceId;
+    private Integer enrolledStudents;
+    private List<Room> rooms;
+}
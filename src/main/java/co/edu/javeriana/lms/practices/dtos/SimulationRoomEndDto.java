@@ -0,0 +1,19 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+import co.edu.javeriana.lms.booking.models.Room;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationRoomEndDto {
+    private Long simulationId;
+    private Date endDateTime;
+    private Room room;
+}
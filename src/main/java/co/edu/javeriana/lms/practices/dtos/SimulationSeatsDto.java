@@ -0,0 +1,23 @@
+package co.edu.javeriana.lms.practices.dtos;
+
+import java.util.Date;
+
+import co.edu.javeriana.lms.grades.models.GradeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationSeatsDto {
+    private Long simulationId;
+    private Integer groupNumber;
+    private Date startDateTime;
+    private Date endDateTime;
+    private GradeStatus gradeStatus;
+    private Integer enrolledStudents;
+    private Integer maxStudentsGroup;
+}
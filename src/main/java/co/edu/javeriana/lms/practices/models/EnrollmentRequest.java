@@ -0,0 +1,64 @@
+package co.edu.javeriana.lms.practices.models;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A student's request to join a simulation, queued per practice and handled in id order by the enrollment worker.
+// Plain ids instead of relations, so deleting a simulation or a practice is not blocked by its queue
+@Data
+@Entity
+@Table(name = "enrollment_request", indexes = {
+        @Index(name = "idx_enrollment_request_status_practice", columnList = "status, practiceId, id"),
+        @Index(name = "idx_enrollment_request_simulation_status", columnList = "simulationId, status, id"),
+        @Index(name = "idx_enrollment_request_user_practice", columnList = "userId, practiceId") })
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnrollmentRequest {
+    @Id
+    // One id per call, so ids from different instances still follow arrival order
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollment_request_seq")
+    @SequenceGenerator(name = "enrollment_request_seq", sequenceName = "enrollment_request_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long practiceId;
+
+    @Column(nullable = false)
+    private Long simulationId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EnrollmentStatus status;
+
+    // Why the request was rejected or failed
+    @Column(nullable = true)
+    private String message;
+
+    // Database errors while joining, the request fails once they reach the limit
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Date requestedAt;
+
+    @Column(nullable = true)
+    private Date processedAt;
+}
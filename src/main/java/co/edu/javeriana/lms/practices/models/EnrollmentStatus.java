@@ -0,0 +1,15 @@
+package co.edu.javeriana.lms.practices.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+public enum EnrollmentStatus {
+    PENDING,
+    ENROLLED,
+    WAITLISTED,
+    REJECTED,
+    CANCELLED,
+    FAILED
+}
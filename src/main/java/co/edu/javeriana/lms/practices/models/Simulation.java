@@ -3,6 +3,8 @@ package co.edu.javeriana.lms.practices.models;
 import java.util.Date;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import co.edu.javeriana.lms.accounts.models.User;
@@ -19,12 +21,16 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -34,12 +40,23 @@ import lombok.NoArgsConstructor;
 @Data
 @Entity
 @Table(name = "simulation")
+// Only to-one attributes in the list graph, a fetched collection would make Hibernate page in memory. The rubric is
+// the inverse side of its one-to-one and would otherwise cost a query per row
+@NamedEntityGraph(name = Simulation.LIST_GRAPH, attributeNodes = { @NamedAttributeNode("practice"),
+        @NamedAttributeNode("rubric") })
+@NamedEntityGraph(name = Simulation.DETAIL_GRAPH, attributeNodes = { @NamedAttributeNode("practice"),
+        @NamedAttributeNode("rubric"), @NamedAttributeNode("rooms") })
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Simulation {
+    public static final String LIST_GRAPH = "Simulation.list";
+    public static final String DETAIL_GRAPH = "Simulation.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    // Ids are reserved fifty at a time, so a batch of new simulations needs one sequence call per fifty rows
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "simulation_seq")
+    @SequenceGenerator(name = "simulation_seq", sequenceName = "simulation_seq", allocationSize = 50)
     private Long simulationId;
 
     @Column(nullable = true)
@@ -61,22 +78,29 @@ public class Simulation {
     @Column(nullable = false)
     private Integer groupNumber;
 
+    // Number of rows in simulation_users, kept by the SimulationSeatCounter trigger and never written by Hibernate
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    @JsonIgnore
+    private Integer seatsTaken;
+
     @ManyToOne
     private Practice practice;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.REMOVE)
+    @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
     @JoinColumn(name = "simulation_id")
     private List<Video> videos;
 
     @OneToOne(mappedBy = "simulation", cascade = CascadeType.ALL, orphanRemoval = true)
     private Rubric rubric;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "simulation_users", joinColumns = @JoinColumn(name = "simulationId"), inverseJoinColumns = @JoinColumn(name = "id"))
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "simulation_users", joinColumns = @JoinColumn(name = "simulationId"), inverseJoinColumns = @JoinColumn(name = "id"),
+            indexes = @Index(name = "idx_simulation_users_simulation_user", columnList = "simulationId, id", unique = true))
     @JsonIgnore
     private List<User> users;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "simulation_rooms", joinColumns = @JoinColumn(name = "simulationId"), inverseJoinColumns = @JoinColumn(name = "id"))
     private List<Room> rooms;
 }
@@ -0,0 +1,65 @@
+package co.edu.javeriana.lms.practices.repositories;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.javeriana.lms.practices.models.EnrollmentRequest;
+import co.edu.javeriana.lms.practices.models.EnrollmentStatus;
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface EnrollmentRequestRepository extends JpaRepository<EnrollmentRequest, Long> {
+
+        @Query("SELECT DISTINCT e.practiceId FROM EnrollmentRequest e WHERE e.status = :status")
+        List<Long> findPracticeIdsByStatus(@Param("status") EnrollmentStatus status);
+
+        List<EnrollmentRequest> findByPracticeIdAndStatusOrderById(Long practiceId, EnrollmentStatus status,
+                        Pageable pageable);
+
+        Optional<EnrollmentRequest> findByIdAndUserId(Long id, Long userId);
+
+        long countByPracticeIdAndStatusAndIdLessThanEqual(Long practiceId, EnrollmentStatus status, Long id);
+
+        long countBySimulationIdAndStatusAndIdLessThanEqual(Long simulationId, EnrollmentStatus status, Long id);
+
+        // A newer request of the student in the same practice replaces the open ones
+        @Modifying
+        @Query("UPDATE EnrollmentRequest e SET e.status = co.edu.javeriana.lms.practices.models.EnrollmentStatus.CANCELLED, "
+                        + "e.processedAt = :now WHERE e.userId = :userId AND e.practiceId = :practiceId "
+                        + "AND e.status IN (co.edu.javeriana.lms.practices.models.EnrollmentStatus.PENDING, "
+                        + "co.edu.javeriana.lms.practices.models.EnrollmentStatus.WAITLISTED)")
+        int cancelOpenRequests(@Param("userId") Long userId, @Param("practiceId") Long practiceId,
+                        @Param("now") Date now);
+
+        // A waitlist is over once its simulation starts or is deleted
+        @Modifying
+        @Transactional
+        @Query(value = "UPDATE enrollment_request e SET status = 'REJECTED', processed_at = now(), "
+                        + "message = 'Simulation is no longer open, cannot join group' "
+                        + "WHERE e.status = 'WAITLISTED' AND NOT EXISTS (SELECT 1 FROM simulation s "
+                        + "WHERE s.simulation_id = e.simulation_id AND (s.start_date_time IS NULL OR s.start_date_time > now()))",
+                        nativeQuery = true)
+        int closeStaleWaitlists();
+
+        // Sends the oldest waitlisted requests of each simulation back to the queue, one per free seat not already
+        // promised to a request promoted on an earlier run, which is pending with a processed time. Their ids are
+        // older than anything queued since, so the worker tries them first
+        @Modifying
+        @Transactional
+        @Query(value = "UPDATE enrollment_request e SET status = 'PENDING' FROM (SELECT w.id FROM "
+                        + "(SELECT er.id, er.simulation_id, ROW_NUMBER() OVER (PARTITION BY er.simulation_id ORDER BY er.id) AS position "
+                        + "FROM enrollment_request er WHERE er.status = 'WAITLISTED') w "
+                        + "JOIN simulation s ON s.simulation_id = w.simulation_id JOIN practice p ON p.id = s.practice_id "
+                        + "WHERE w.position <= p.max_students_group - s.seats_taken - (SELECT COUNT(*) FROM enrollment_request q "
+                        + "WHERE q.simulation_id = w.simulation_id AND q.status = 'PENDING' AND q.processed_at IS NOT NULL)) promoted "
+                        + "WHERE e.id = promoted.id", nativeQuery = true)
+        int promoteWaitlisted();
+}
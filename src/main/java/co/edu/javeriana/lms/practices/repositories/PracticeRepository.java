@@ -1,9 +1,12 @@
 package co.edu.javeriana.lms.practices.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,4 +25,7 @@ public interface PracticeRepository extends JpaRepository<Practice, Long> {
     List<Practice> findByClassModel_ClassId(Long classId);
 
     List<Practice> findByClassModelIn(List<ClassModel> classModels);
+
+    @Query("SELECT p.classModel.classId FROM Practice p WHERE p.id = :id")
+    Optional<Long> findClassIdById(@Param("id") Long id);
 }
\ No newline at end of file
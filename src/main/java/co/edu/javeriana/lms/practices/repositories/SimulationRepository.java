@@ -1,19 +1,34 @@
 package co.edu.javeriana.lms.practices.repositories;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.practices.dtos.RoomBusyBlockDto;
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationIntervalDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationRoomEndDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationSeatsDto;
 import co.edu.javeriana.lms.practices.models.Practice;
 import co.edu.javeriana.lms.practices.models.Simulation;
 import co.edu.javeriana.lms.subjects.models.ClassModel;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface SimulationRepository extends JpaRepository<Simulation, Long> {
@@ -28,8 +43,50 @@ public interface SimulationRepository extends JpaRepository<Simulation, Long> {
                         @Param("startDateTime") Date startDateTime,
                         @Param("endDateTime") Date endDateTime);
 
+        // Every booking of the rooms that overlaps the window, for checking many time slots at once
+        @Query("SELECT new co.edu.javeriana.lms.practices.dtos.RoomIntervalDto(r.id, s.simulationId, s.startDateTime, s.endDateTime) "
+                        + "FROM Simulation s JOIN s.rooms r "
+                        + "WHERE r.id IN :roomIds AND s.startDateTime < :endDateTime AND s.endDateTime > :startDateTime")
+        List<RoomIntervalDto> findIntervalsByRoomIdsOverlapping(@Param("roomIds") Collection<Long> roomIds,
+                        @Param("startDateTime") Date startDateTime, @Param("endDateTime") Date endDateTime);
+
+        // Gaps and islands: a simulation starting after every earlier one in its room has ended opens a new block,
+        // the running count of opened blocks numbers them and each block is grouped into one row
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query(value = "SELECT room_id AS \"roomId\", room_name AS \"roomName\", "
+                        + "MIN(start_date_time) AS \"startDateTime\", MAX(end_date_time) AS \"endDateTime\" "
+                        + "FROM (SELECT *, SUM(opens_block) OVER (PARTITION BY room_id ORDER BY start_date_time, end_date_time "
+                        + "ROWS UNBOUNDED PRECEDING) AS block FROM (SELECT r.id AS room_id, r.name AS room_name, "
+                        + "s.start_date_time, s.end_date_time, CASE WHEN s.start_date_time <= MAX(s.end_date_time) "
+                        + "OVER (PARTITION BY r.id ORDER BY s.start_date_time, s.end_date_time "
+                        + "ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING) THEN 0 ELSE 1 END AS opens_block "
+                        + "FROM simulation s JOIN simulation_rooms sr ON sr.simulation_id = s.simulation_id "
+                        + "JOIN room r ON r.id = sr.id "
+                        + "WHERE s.start_date_time >= :startDate AND s.start_date_time < :endDate "
+                        + "AND s.end_date_time IS NOT NULL) flagged) numbered "
+                        + "GROUP BY room_id, room_name, block ORDER BY room_id, MIN(start_date_time)", nativeQuery = true)
+        Stream<RoomBusyBlockDto> streamBusyBlocksByStartDateTimeBetween(@Param("startDate") Date startDate,
+                        @Param("endDate") Date endDate);
+
+        // Listings fetch the practice and rubric with the page, the rooms of the whole page come in one more query
+        @Override
+        @EntityGraph(value = Simulation.LIST_GRAPH, type = EntityGraphType.LOAD)
+        Page<Simulation> findAll(Pageable pageable);
+
+        @EntityGraph(value = Simulation.LIST_GRAPH, type = EntityGraphType.LOAD)
         Page<Simulation> findByPracticeId(Long practiceId, Pageable pageable);
 
+        @EntityGraph(value = Simulation.DETAIL_GRAPH, type = EntityGraphType.LOAD)
+        Optional<Simulation> findWithDetailsBySimulationId(Long simulationId);
+
+        // The other simulations starting in the window in any of the rooms
+        @EntityGraph(value = Simulation.LIST_GRAPH, type = EntityGraphType.LOAD)
+        @Query("SELECT DISTINCT s FROM Simulation s JOIN s.rooms r WHERE r.id IN :roomIds "
+                        + "AND s.startDateTime >= :startDate AND s.startDateTime < :endDate AND s.simulationId <> :simulationId")
+        List<Simulation> findCandidates(@Param("simulationId") Long simulationId,
+                        @Param("roomIds") Collection<Long> roomIds, @Param("startDate") Date startDate,
+                        @Param("endDate") Date endDate);
+
         List<Simulation> findByPracticeId(Long practiceId);
 
         List<Simulation> findByStartDateTimeAfter(Date startDateTime);
@@ -38,12 +95,23 @@ public interface SimulationRepository extends JpaRepository<Simulation, Long> {
 
         List<Simulation> findByPracticeIn(List<Practice> practices);
 
+        // The groups of a practice with their seat counters, one row each however many students and videos they have
+        @Query(value = "SELECT new co.edu.javeriana.lms.practices.dtos.SimulationSeatsDto(s.simulationId, s.groupNumber, "
+                        + "s.startDateTime, s.endDateTime, s.gradeStatus, s.seatsTaken, p.maxStudentsGroup) "
+                        + "FROM Simulation s JOIN s.practice p "
+                        + "WHERE p.id = :practiceId AND (:groupNumber IS NULL OR s.groupNumber = :groupNumber)",
+                        countQuery = "SELECT COUNT(s) FROM Simulation s WHERE s.practice.id = :practiceId "
+                                        + "AND (:groupNumber IS NULL OR s.groupNumber = :groupNumber)")
+        Page<SimulationSeatsDto> findSeatsByPracticeId(@Param("practiceId") Long practiceId,
+                        @Param("groupNumber") Integer groupNumber, Pageable pageable);
+
         @Query("SELECT MAX(s.groupNumber) FROM Simulation s WHERE s.practice.id = :practiceId")
         Integer findMaxGroupNumberByPracticeId(@Param("practiceId") Long practiceId);
 
         Page<Simulation> findByPracticeIdAndGroupNumberContaining(Long practiceId, String groupNumber,
                         Pageable pageable);
 
+        @EntityGraph(value = Simulation.LIST_GRAPH, type = EntityGraphType.LOAD)
         Page<Simulation> findByPracticeIdAndGroupNumber(Long practiceId, Integer groupNumber, Pageable pageable);
 
         List<Simulation> findByPracticeInAndStartDateTimeBetween(
@@ -61,8 +129,72 @@ public interface SimulationRepository extends JpaRepository<Simulation, Long> {
         List<Simulation> findAllByRooms_IdAndStartDateTimeAfterAndEndDateTimeBefore(Long roomId, Date startDateTime,
                         Date endDateTime);
 
-        @Query("SELECT s FROM Simulation s JOIN s.rooms r WHERE r.id = :roomId AND s.startDateTime >= :startDate AND s.startDateTime < :endDate")
-        List<Simulation> findByRooms_IdAndStartDateTimeBetween(@Param("roomId") Long roomId,
+        @Query("SELECT new co.edu.javeriana.lms.practices.dtos.SimulationIntervalDto(s.simulationId, s.startDateTime, s.endDateTime) "
+                        + "FROM Simulation s JOIN s.rooms r "
+                        + "WHERE r.id = :roomId AND s.startDateTime > :startDate AND s.endDateTime < :endDate "
+                        + "ORDER BY s.startDateTime")
+        List<SimulationIntervalDto> findIntervalsByRoomIdWithin(@Param("roomId") Long roomId,
                         @Param("startDate") Date startDate, @Param("endDate") Date endDate);
 
+        @Query("SELECT new co.edu.javeriana.lms.practices.dtos.SimulationRoomEndDto(s.simulationId, s.endDateTime, r) "
+                        + "FROM Simulation s JOIN s.rooms r "
+                        + "WHERE s.endDateTime >= :startDate AND s.endDateTime < :endDate")
+        List<SimulationRoomEndDto> findRoomsByEndDateTimeBetween(@Param("startDate") Date startDate,
+                        @Param("endDate") Date endDate);
+
+        // What joining or leaving a simulation is checked against, without loading its students, videos and rooms
+        @Query("SELECT new co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto(s.simulationId, p.id, "
+                        + "s.startDateTime, s.endDateTime, s.gradeStatus, s.seatsTaken, p.maxStudentsGroup, "
+                        + "CASE WHEN EXISTS (SELECT 1 FROM Simulation e JOIN e.users u WHERE e = s AND u.id = :userId) "
+                        + "THEN true ELSE false END) "
+                        + "FROM Simulation s JOIN s.practice p WHERE s.simulationId = :simulationId")
+        Optional<SimulationJoinStateDto> findJoinState(@Param("simulationId") Long simulationId,
+                        @Param("userId") Long userId);
+
+        // Locks the simulation being joined and the ones of the practice the user leaves, always in id order, so
+        // two students swapping groups wait for each other instead of deadlocking on the seat counters
+        @Query(value = "SELECT s.simulation_id FROM simulation s WHERE s.simulation_id = :simulationId "
+                        + "OR s.simulation_id IN (SELECT su.simulation_id FROM simulation_users su "
+                        + "JOIN simulation o ON o.simulation_id = su.simulation_id "
+                        + "WHERE su.id = :userId AND o.practice_id = :practiceId) "
+                        + "ORDER BY s.simulation_id FOR UPDATE", nativeQuery = true)
+        List<Long> lockSeats(@Param("simulationId") Long simulationId, @Param("userId") Long userId,
+                        @Param("practiceId") Long practiceId);
+
+        // Takes a seat only while seats_taken is below the group size, and in the same statement moves the user
+        // out of the other simulations of the practice and into this one. Returns 0 when the simulation is full
+        @Modifying
+        @Query(value = "WITH seat AS (UPDATE simulation s SET seats_taken = s.seats_taken FROM practice p "
+                        + "WHERE s.simulation_id = :simulationId AND p.id = s.practice_id "
+                        + "AND s.seats_taken < p.max_students_group RETURNING s.simulation_id, s.practice_id), "
+                        + "left_groups AS (DELETE FROM simulation_users su USING simulation o, seat "
+                        + "WHERE su.id = :userId AND su.simulation_id = o.simulation_id "
+                        + "AND o.practice_id = seat.practice_id AND o.simulation_id <> seat.simulation_id) "
+                        + "INSERT INTO simulation_users (simulation_id, id) SELECT simulation_id, :userId FROM seat",
+                        nativeQuery = true)
+        int joinIfSeatFree(@Param("simulationId") Long simulationId, @Param("userId") Long userId);
+
+        @Modifying
+        @Query(value = "INSERT INTO simulation_users (simulation_id, id) VALUES (:simulationId, :userId)",
+                        nativeQuery = true)
+        int addUser(@Param("simulationId") Long simulationId, @Param("userId") Long userId);
+
+        @Modifying
+        @Query(value = "DELETE FROM simulation_users WHERE simulation_id = :simulationId AND id = :userId",
+                        nativeQuery = true)
+        int removeUser(@Param("simulationId") Long simulationId, @Param("userId") Long userId);
+
+        // ClassMembership bits of a user in a simulation, the student bit means enrolled in the simulation itself
+        @Query(value = "SELECT CASE WHEN EXISTS (SELECT 1 FROM simulation s WHERE s.simulation_id = :simulationId) THEN 1 ELSE 0 END "
+                        + "+ CASE WHEN EXISTS (SELECT 1 FROM simulation_users su "
+                        + "WHERE su.simulation_id = :simulationId AND su.id = :userId) THEN 2 ELSE 0 END "
+                        + "+ CASE WHEN EXISTS (SELECT 1 FROM simulation s JOIN practice p ON p.id = s.practice_id "
+                        + "JOIN professor_classes pc ON pc.class_id = p.class_model_class_id "
+                        + "WHERE s.simulation_id = :simulationId AND pc.id = :userId) THEN 4 ELSE 0 END "
+                        + "+ CASE WHEN EXISTS (SELECT 1 FROM simulation s JOIN practice p ON p.id = s.practice_id "
+                        + "JOIN classes c ON c.class_id = p.class_model_class_id "
+                        + "JOIN course co ON co.course_id = c.course_course_id "
+                        + "WHERE s.simulation_id = :simulationId AND co.coordinator_id = :userId) THEN 8 ELSE 0 END", nativeQuery = true)
+        int findMembership(@Param("simulationId") Long simulationId, @Param("userId") Long userId);
+
 }
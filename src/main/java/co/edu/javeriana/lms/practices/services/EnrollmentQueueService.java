@@ -0,0 +1,204 @@
+package co.edu.javeriana.lms.practices.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.practices.dtos.EnrollmentRequestDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto;
+import co.edu.javeriana.lms.practices.models.EnrollmentRequest;
+import co.edu.javeriana.lms.practices.models.EnrollmentStatus;
+import co.edu.javeriana.lms.practices.repositories.EnrollmentRequestRepository;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+// Join requests are stored and answered right away, then joined in arrival order by a worker. A request that finds
+// its group full is waitlisted and goes back to the queue once a seat is free, so students poll instead of retrying
+@Slf4j
+@Service
+public class EnrollmentQueueService {
+
+    @Autowired
+    private EnrollmentRequestRepository enrollmentRequestRepository;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Value("${ENROLLMENT_QUEUE_ENABLED:true}")
+    private boolean enabled = true;
+
+    @Value("${ENROLLMENT_QUEUE_BATCH_SIZE:200}")
+    private int batchSize = 200;
+
+    // Upper bound for one batch, another instance takes the practice over after it
+    @Value("${ENROLLMENT_QUEUE_LEASE_SECONDS:60}")
+    private long leaseSeconds = 60;
+
+    // Runs a request may hit a database error before it fails, so one broken request cannot hold up its practice
+    @Value("${ENROLLMENT_QUEUE_MAX_ATTEMPTS:5}")
+    private int maxAttempts = 5;
+
+    @Transactional
+    public EnrollmentRequestDto enqueue(Long simulationId, Long userId) {
+        SimulationJoinStateDto simulation = simulationRepository.findJoinState(simulationId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + simulationId));
+
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
+
+        if (simulation.getEnrolled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, SimulationService.ALREADY_ENROLLED);
+        }
+
+        Date now = new Date();
+        enrollmentRequestRepository.cancelOpenRequests(userId, simulation.getPracticeId(), now);
+        EnrollmentRequest request = enrollmentRequestRepository.save(EnrollmentRequest.builder()
+                .practiceId(simulation.getPracticeId())
+                .simulationId(simulationId)
+                .userId(userId)
+                .status(EnrollmentStatus.PENDING)
+                .requestedAt(now)
+                .build());
+        log.info("User {} queued to join simulation {} with request {}", userId, simulationId, request.getId());
+        return toDto(request);
+    }
+
+    // Only the student who made the request can see it
+    public EnrollmentRequestDto findRequest(Long requestId, Long userId) {
+        return enrollmentRequestRepository.findByIdAndUserId(requestId, userId)
+                .map(this::toDto)
+                .orElseThrow(() -> new EntityNotFoundException("Enrollment request not found with id: " + requestId));
+    }
+
+    public void processQueue() {
+        if (!enabled) {
+            return;
+        }
+
+        updateWaitlists();
+
+        for (Long practiceId : enrollmentRequestRepository.findPracticeIdsByStatus(EnrollmentStatus.PENDING)) {
+            processPractice(practiceId);
+        }
+    }
+
+    // One instance at a time, two promoting at once would both count the same free seats
+    private void updateWaitlists() {
+        String lock = "enrollment-queue-waitlists";
+        if (!jobLockService.tryLock(lock, Duration.ofSeconds(leaseSeconds))) {
+            return;
+        }
+
+        try {
+            int closed = enrollmentRequestRepository.closeStaleWaitlists();
+            int promoted = enrollmentRequestRepository.promoteWaitlisted();
+            if (closed > 0 || promoted > 0) {
+                log.info("Enrollment waitlists: {} closed, {} promoted", closed, promoted);
+            }
+        } finally {
+            jobLockService.unlock(lock, Duration.ZERO);
+        }
+    }
+
+    // One instance at a time per practice, so its requests are joined in the order they arrived
+    private void processPractice(Long practiceId) {
+        String lock = "enrollment-queue-practice-" + practiceId;
+        if (!jobLockService.tryLock(lock, Duration.ofSeconds(leaseSeconds))) {
+            return;
+        }
+
+        List<EnrollmentRequest> processed = new ArrayList<>();
+        try {
+            List<EnrollmentRequest> batch = enrollmentRequestRepository.findByPracticeIdAndStatusOrderById(
+                    practiceId, EnrollmentStatus.PENDING, PageRequest.of(0, batchSize));
+            for (EnrollmentRequest request : batch) {
+                processed.add(request);
+                if (!process(request)) {
+                    break;
+                }
+            }
+        } finally {
+            // Joining twice is a no-op, so a batch cut short by a crash is simply joined again
+            try {
+                enrollmentRequestRepository.saveAll(processed);
+            } finally {
+                jobLockService.unlock(lock, Duration.ZERO);
+            }
+        }
+        log.info("Processed {} enrollment requests of practice {}", processed.size(), practiceId);
+    }
+
+    // False when the database failed, the request stays pending and the rest of the batch waits for the next run.
+    // After maxAttempts such failures the request is marked failed and the batch moves on
+    private boolean process(EnrollmentRequest request) {
+        try {
+            simulationService.joinSimulation(request.getSimulationId(), request.getUserId());
+            request.setStatus(EnrollmentStatus.ENROLLED);
+        } catch (ResponseStatusException e) {
+            if (SimulationService.SIMULATION_FULL.equals(e.getReason())) {
+                request.setStatus(EnrollmentStatus.WAITLISTED);
+            } else if (SimulationService.ALREADY_ENROLLED.equals(e.getReason())) {
+                request.setStatus(EnrollmentStatus.ENROLLED);
+            } else {
+                request.setStatus(EnrollmentStatus.REJECTED);
+                request.setMessage(e.getReason());
+            }
+        } catch (EntityNotFoundException e) {
+            request.setStatus(EnrollmentStatus.REJECTED);
+            request.setMessage(e.getMessage());
+        } catch (DataAccessException e) {
+            request.setAttempts(request.getAttempts() + 1);
+            log.error("Error processing enrollment request {} (attempt {} of {}): {}", request.getId(),
+                    request.getAttempts(), maxAttempts, e.getMessage());
+            if (request.getAttempts() < maxAttempts) {
+                return false;
+            }
+            request.setStatus(EnrollmentStatus.FAILED);
+            request.setMessage("Could not join the group, please try again");
+        }
+        request.setProcessedAt(new Date());
+        return true;
+    }
+
+    private EnrollmentRequestDto toDto(EnrollmentRequest request) {
+        Long position = switch (request.getStatus()) {
+            case PENDING -> enrollmentRequestRepository.countByPracticeIdAndStatusAndIdLessThanEqual(
+                    request.getPracticeId(), EnrollmentStatus.PENDING, request.getId());
+            case WAITLISTED -> enrollmentRequestRepository.countBySimulationIdAndStatusAndIdLessThanEqual(
+                    request.getSimulationId(), EnrollmentStatus.WAITLISTED, request.getId());
+            default -> null;
+        };
+        return EnrollmentRequestDto.builder()
+                .id(request.getId())
+                .simulationId(request.getSimulationId())
+                .status(request.getStatus())
+                .position(position)
+                .message(request.getMessage())
+                .requestedAt(request.getRequestedAt())
+                .processedAt(request.getProcessedAt())
+                .build();
+    }
+}
@@ -1,18 +1,23 @@
 package co.edu.javeriana.lms.practices.services;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
 import co.edu.javeriana.lms.grades.models.RubricTemplate;
 import co.edu.javeriana.lms.grades.repositories.RubricTemplateRepository;
 import co.edu.javeriana.lms.practices.models.Practice;
 import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
 import co.edu.javeriana.lms.subjects.models.ClassModel;
 import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -34,6 +39,9 @@ public class PracticeService {
     @Autowired
     private RubricTemplateRepository rubricTemplateRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Page<Practice> findAll(String keyword, Integer page, Integer size, String sort, Boolean asc) {
         Sort sortOder = asc ? Sort.by(sort).ascending() : Sort.by(sort).descending();
         Pageable pageable = PageRequest.of(page, size, sortOder);
@@ -45,6 +53,11 @@ public class PracticeService {
                 .orElseThrow(() -> new EntityNotFoundException("Practice not found with id: " + id));
     }
 
+    public Long findClassId(Long id) {
+        return practiceRepository.findClassIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Practice not found with id: " + id));
+    }
+
     public Practice save(Long id, Practice practice) {
 
         classRepository.findById(id)
@@ -62,6 +75,9 @@ public class PracticeService {
             throw new EntityNotFoundException("Practice not found with id: " + id);
         }
         practiceRepository.deleteById(id);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.PRACTICE, id, Set.of()));
+        // Its simulations go with it, and with them their room bookings
+        eventPublisher.publishEvent(new RoomBookingsChangedEvent(null, List.of()));
     }
 
     public Practice update(Long id, Practice practice) {
@@ -0,0 +1,262 @@
+package co.edu.javeriana.lms.practices.services;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.shared.cache.BoundedCache;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Booked [start, end) windows of each room around now, loaded per room on first use and kept current by events.
+// Each instance has its own copy and only sees the events of its own transactions, so the index is advisory: a
+// conflict it finds is confirmed against the database before it is reported, and a booking made on another instance
+// that it has not seen is rejected by the room_booking exclusion constraint as a 409 when the new one is saved.
+@Service
+public class RoomBookingIndex {
+
+    private static final Comparator<RoomIntervalDto> BY_START = Comparator
+            .comparingLong((RoomIntervalDto booking) -> booking.getStartDateTime().getTime())
+            .thenComparing(RoomIntervalDto::getSimulationId);
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Value("${ROOM_BOOKING_INDEX_ENABLED:true}")
+    private boolean enabled = true;
+
+    // How far ahead a room is loaded, windows outside of it are checked against the database
+    @Value("${ROOM_BOOKING_INDEX_HORIZON_DAYS:180}")
+    private long horizonDays = 180;
+
+    // Safety net for changes that publish no event, and moves the horizon forward
+    @Value("${ROOM_BOOKING_INDEX_TTL:3600}")
+    private long ttlSeconds = 3600;
+
+    @Value("${ROOM_BOOKING_INDEX_SIZE:1000}")
+    private int size = 1000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Loaded rooms by id. Their bookings are changed in place by events, under the lock of each room
+    private BoundedCache<Long, RoomBookings> rooms;
+
+    private Counter indexChecks;
+
+    private Counter databaseChecks;
+
+    @PostConstruct
+    public void init() {
+        rooms = BoundedCache.create("room.bookings", size, Duration.ofSeconds(ttlSeconds), meterRegistry);
+        indexChecks = meterRegistry.counter("room.bookings.checks", "source", "index");
+        databaseChecks = meterRegistry.counter("room.bookings.checks", "source", "database");
+    }
+
+    // Whether a booking of the room other than the ignored simulation overlaps [startDateTime, endDateTime)
+    public boolean overlaps(Long roomId, Date startDateTime, Date endDateTime, Long ignoredSimulationId) {
+        long start = startDateTime.getTime();
+        long end = endDateTime.getTime();
+
+        if (enabled) {
+            RoomBookings bookings = rooms.get(roomId, this::load);
+            synchronized (bookings) {
+                if (bookings.covers(start, end) && !bookings.overlaps(start, end, ignoredSimulationId)) {
+                    indexChecks.increment();
+                    return false;
+                }
+            }
+        }
+
+        databaseChecks.increment();
+        return simulationRepository.findIntervalsByRoomIdsOverlapping(List.of(roomId), startDateTime, endDateTime)
+                .stream().anyMatch(booking -> !booking.getSimulationId().equals(ignoredSimulationId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomBookingsChanged(RoomBookingsChangedEvent event) {
+        if (event.getSimulationIds() == null) {
+            rooms.invalidateAll();
+            return;
+        }
+        rooms.updateAll(bookings -> {
+            synchronized (bookings) {
+                event.getSimulationIds().forEach(bookings::remove);
+                event.getBookings().stream()
+                        .filter(booking -> booking.getRoomId().equals(bookings.roomId))
+                        .forEach(bookings::add);
+            }
+        });
+    }
+
+    private RoomBookings load(Long roomId) {
+        // Moving a simulation into the past is rare, so the horizon starts a day back
+        long now = System.currentTimeMillis();
+        long from = now - Duration.ofDays(1).toMillis();
+        long to = now + Duration.ofDays(horizonDays).toMillis();
+        RoomBookings loaded = new RoomBookings(roomId, from, to);
+        simulationRepository.findIntervalsByRoomIdsOverlapping(List.of(roomId), new Date(from), new Date(to))
+                .forEach(loaded::add);
+        return loaded;
+    }
+
+    // Bookings of a room in a treap ordered by start, where every node also holds the latest end below it. A query
+    // skips each subtree that ends before the window and stops at the first node starting after it, so it costs
+    // O(log n) however long the bookings are, even for bookings that overlap each other
+    private static class RoomBookings {
+        private final Long roomId;
+        private final long from;
+        private final long to;
+        private final Map<Long, RoomIntervalDto> bySimulation = new HashMap<>();
+        private Node root;
+
+        private RoomBookings(Long roomId, long from, long to) {
+            this.roomId = roomId;
+            this.from = from;
+            this.to = to;
+        }
+
+        private boolean covers(long start, long end) {
+            return start >= from && end <= to;
+        }
+
+        private boolean overlaps(long start, long end, Long ignoredSimulationId) {
+            return overlaps(root, start, end, ignoredSimulationId);
+        }
+
+        private void add(RoomIntervalDto booking) {
+            remove(booking.getSimulationId());
+            root = insert(root, new Node(booking));
+            bySimulation.put(booking.getSimulationId(), booking);
+        }
+
+        private void remove(Long simulationId) {
+            RoomIntervalDto booking = bySimulation.remove(simulationId);
+            if (booking != null) {
+                root = delete(root, booking);
+            }
+        }
+
+        private static boolean overlaps(Node node, long start, long end, Long ignoredSimulationId) {
+            if (node == null || node.maxEnd <= start) {
+                return false;
+            }
+            if (overlaps(node.left, start, end, ignoredSimulationId)) {
+                return true;
+            }
+            if (node.start >= end) {
+                return false;
+            }
+            if (node.end > start && !node.booking.getSimulationId().equals(ignoredSimulationId)) {
+                return true;
+            }
+            return overlaps(node.right, start, end, ignoredSimulationId);
+        }
+
+        private static Node insert(Node node, Node added) {
+            if (node == null) {
+                return added;
+            }
+            if (added.priority > node.priority) {
+                Node[] parts = split(node, added.booking);
+                added.left = parts[0];
+                added.right = parts[1];
+                return added.update();
+            }
+            if (BY_START.compare(added.booking, node.booking) < 0) {
+                node.left = insert(node.left, added);
+            } else {
+                node.right = insert(node.right, added);
+            }
+            return node.update();
+        }
+
+        private static Node delete(Node node, RoomIntervalDto booking) {
+            if (node == null) {
+                return null;
+            }
+            int comparison = BY_START.compare(booking, node.booking);
+            if (comparison == 0) {
+                return merge(node.left, node.right);
+            }
+            if (comparison < 0) {
+                node.left = delete(node.left, booking);
+            } else {
+                node.right = delete(node.right, booking);
+            }
+            return node.update();
+        }
+
+        // The nodes before the booking and the ones from it on
+        private static Node[] split(Node node, RoomIntervalDto booking) {
+            if (node == null) {
+                return new Node[2];
+            }
+            if (BY_START.compare(node.booking, booking) < 0) {
+                Node[] parts = split(node.right, booking);
+                node.right = parts[0];
+                return new Node[] { node.update(), parts[1] };
+            }
+            Node[] parts = split(node.left, booking);
+            node.left = parts[1];
+            return new Node[] { parts[0], node.update() };
+        }
+
+        // Every node of before starts ahead of every node of after
+        private static Node merge(Node before, Node after) {
+            if (before == null) {
+                return after;
+            }
+            if (after == null) {
+                return before;
+            }
+            if (before.priority > after.priority) {
+                before.right = merge(before.right, after);
+                return before.update();
+            }
+            after.left = merge(before, after.left);
+            return after.update();
+        }
+    }
+
+    private static class Node {
+        private final RoomIntervalDto booking;
+        private final long start;
+        private final long end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(RoomIntervalDto booking) {
+            this.booking = booking;
+            this.start = booking.getStartDateTime().getTime();
+            this.end = booking.getEndDateTime().getTime();
+            this.maxEnd = end;
+        }
+
+        private Node update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+            return this;
+        }
+    }
+}
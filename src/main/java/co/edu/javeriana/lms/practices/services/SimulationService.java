@@ -2,30 +2,42 @@ package co.edu.javeriana.lms.practices.services;
 
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import co.edu.javeriana.lms.practices.dtos.RoomBusyBlockDto;
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
 import co.edu.javeriana.lms.practices.dtos.SimulationByTimeSlotDto;
 import co.edu.javeriana.lms.practices.dtos.TimeSlotDto;
 import co.edu.javeriana.lms.practices.dtos.SimulationAvailabilityDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationListDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationSeatsDto;
 import co.edu.javeriana.lms.practices.models.Practice;
 import co.edu.javeriana.lms.practices.models.Simulation;
 import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
@@ -36,6 +48,9 @@ import co.edu.javeriana.lms.grades.dtos.RubricDto;
 import co.edu.javeriana.lms.grades.models.GradeStatus;
 import co.edu.javeriana.lms.grades.models.Rubric;
 import co.edu.javeriana.lms.grades.repositories.RubricRepository;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +59,13 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class SimulationService {
 
+    private static final DateTimeFormatter SCHEDULE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    // Join outcomes the enrollment queue tells apart from the other conflicts
+    public static final String SIMULATION_FULL = "Simulation is full, cannot join group";
+    public static final String ALREADY_ENROLLED = "User is already enrolled in the simulation, cannot join group";
+
     @Autowired
     private SimulationRepository simulationRepository;
 
@@ -59,20 +81,39 @@ public class SimulationService {
     @Autowired
     private RubricRepository rubricRepository;
 
-    public Page<Simulation> findAllSimulations(Integer page, Integer size) {
+    @Autowired
+    private RoomBookingIndex roomBookingIndex;
+
+    @Value("${SCHEDULE_MAX_DAYS:92}")
+    private long scheduleMaxDays = 92;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public Page<SimulationListDto> findAllSimulations(Integer page, Integer size) {
         Pageable pageable = PageRequest.of(page, size);
-        return simulationRepository.findAll(pageable);
+        return simulationRepository.findAll(pageable).map(this::toListDto);
     }
 
     public Simulation findSimulationById(Long id) {
-        return simulationRepository.findById(id)
+        return simulationRepository.findWithDetailsBySimulationId(id)
                 .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + id));
     }
 
-    public Page<Simulation> findSimulationsByPracticeId(Long practiceId, Integer page, Integer size, String sort,
-            Boolean asc, Integer groupNumber) {
-        practiceRepository.findById(practiceId)
-                .orElseThrow(() -> new EntityNotFoundException("Practice not found with id: " + practiceId));
+    // ClassMembership bits of the user in the simulation and its class, without loading either
+    public int findMembership(Long id, Long userId) {
+        int membership = simulationRepository.findMembership(id, userId);
+        if (!ClassMembership.has(membership, ClassMembership.EXISTS)) {
+            throw new EntityNotFoundException("Simulation not found with id: " + id);
+        }
+        return membership;
+    }
+
+    public Page<SimulationListDto> findSimulationsByPracticeId(Long practiceId, Integer page, Integer size,
+            String sort, Boolean asc, Integer groupNumber) {
+        if (!practiceRepository.existsById(practiceId)) {
+            throw new EntityNotFoundException("Practice not found with id: " + practiceId);
+        }
         Pageable pageable;
         if (sort != null) {
             boolean ascendingOrder = asc == null || asc;
@@ -83,12 +124,29 @@ public class SimulationService {
         }
 
         if (groupNumber == null) {
-            return simulationRepository.findByPracticeId(practiceId, pageable);
+            return simulationRepository.findByPracticeId(practiceId, pageable).map(this::toListDto);
         } else {
-            return simulationRepository.findByPracticeIdAndGroupNumber(practiceId, groupNumber, pageable);
+            return simulationRepository.findByPracticeIdAndGroupNumber(practiceId, groupNumber, pageable)
+                    .map(this::toListDto);
         }
     }
 
+    // The rooms of a page are loaded in one batch when the first of them is read
+    private SimulationListDto toListDto(Simulation simulation) {
+        return SimulationListDto.builder()
+                .simulationId(simulation.getSimulationId())
+                .groupNumber(simulation.getGroupNumber())
+                .startDateTime(simulation.getStartDateTime())
+                .endDateTime(simulation.getEndDateTime())
+                .grade(simulation.getGrade())
+                .gradeStatus(simulation.getGradeStatus())
+                .gradeDateTime(simulation.getGradeDateTime())
+                .practiceId(simulation.getPractice() != null ? simulation.getPractice().getId() : null)
+                .enrolledStudents(simulation.getSeatsTaken())
+                .rooms(simulation.getRooms() != null ? List.copyOf(simulation.getRooms()) : List.of())
+                .build();
+    }
+
     private Date convertToCorrectTimeZone(Date date) {
         if (date == null)
             return null;
@@ -99,10 +157,14 @@ public class SimulationService {
         return Date.from(zonedDateTime.toInstant());
     }
 
+    // Set based: the practice and rooms are read once, conflicts come from the booking index and every row is inserted in batches
     @Transactional
     public List<Simulation> addSimulations(List<SimulationByTimeSlotDto> simulationsDto) {
+        Map<Long, Practice> practices = new HashMap<>();
+        Practice firstPractice = findPractice(simulationsDto.get(0).getPracticeId());
+        practices.put(firstPractice.getId(), firstPractice);
 
-        if (!canAccommodateAllGroups(simulationsDto)) {
+        if (!canAccommodateAllGroups(firstPractice, simulationsDto)) {
             throw new IllegalArgumentException(
                     "The number of groups does not match the number of available time slots");
         }
@@ -112,18 +174,48 @@ public class SimulationService {
             dto.setEndDateTime(convertToCorrectTimeZone(dto.getEndDateTime()));
         });
 
+        Map<Long, Room> rooms = findRooms(simulationsDto);
+
+        // Slots of this request per room, added as they are accepted
+        Map<Long, List<Date[]>> bookings = new HashMap<>();
+
+        Map<Long, Integer> nextGroupNumbers = new HashMap<>();
         List<Simulation> createdSimulations = new ArrayList<>();
-        for (SimulationByTimeSlotDto simulation : simulationsDto) {
-            createdSimulations.addAll(addSimulationsPerTimeSlot(simulation));
+        for (SimulationByTimeSlotDto simulationDto : simulationsDto) {
+            Practice practice = practices.computeIfAbsent(simulationDto.getPracticeId(), this::findPractice);
+            List<Room> slotRooms = simulationDto.getRoomIds().stream().map(rooms::get).toList();
+
+            for (Room room : slotRooms) {
+                List<Date[]> roomBookings = bookings.computeIfAbsent(room.getId(), id -> new ArrayList<>());
+                if (overlaps(roomBookings, simulationDto.getStartDateTime(), simulationDto.getEndDateTime())
+                        || roomBookingIndex.overlaps(room.getId(), simulationDto.getStartDateTime(),
+                                simulationDto.getEndDateTime(), null)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Room is not available for the selected dates");
+                }
+
+                if (practice.getMaxStudentsGroup() > room.getCapacity()) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Room capacity is not enough for the selected practice");
+                }
+                roomBookings.add(new Date[] { simulationDto.getStartDateTime(), simulationDto.getEndDateTime() });
+            }
+
+            int groupNumber = nextGroupNumbers.computeIfAbsent(practice.getId(), this::firstFreeGroupNumber);
+            List<Simulation> slotSimulations = buildSimulationsPerTimeSlot(simulationDto, practice, slotRooms,
+                    groupNumber);
+            nextGroupNumbers.put(practice.getId(), groupNumber + slotSimulations.size());
+            createdSimulations.addAll(slotSimulations);
         }
+
+        simulationRepository.saveAll(createdSimulations);
         log.info("Simulations created: {}", createdSimulations.size());
+        eventPublisher.publishEvent(new RoomBookingsChangedEvent(
+                createdSimulations.stream().map(Simulation::getSimulationId).collect(Collectors.toSet()),
+                bookingsOf(createdSimulations)));
         return createdSimulations;
     }
 
-    private boolean canAccommodateAllGroups(List<SimulationByTimeSlotDto> simulationsDto) {
-        Practice practice = practiceRepository.findById(simulationsDto.get(0).getPracticeId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Practice not found with id: " + simulationsDto.get(0).getPracticeId()));
+    private boolean canAccommodateAllGroups(Practice practice, List<SimulationByTimeSlotDto> simulationsDto) {
         Integer duration = practice.getSimulationDuration();
         Integer numberOfGroups = practice.getNumberOfGroups();
 
@@ -139,71 +231,78 @@ public class SimulationService {
         return totalSimulationsAvailable == numberOfGroups;
     }
 
-    @Transactional
-    private List<Simulation> addSimulationsPerTimeSlot(SimulationByTimeSlotDto simulationDto) {
-
-        Practice practice = practiceRepository.findById(simulationDto.getPracticeId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Practice not found with id: " + simulationDto.getPracticeId()));
+    private Practice findPractice(Long practiceId) {
+        return practiceRepository.findById(practiceId)
+                .orElseThrow(() -> new EntityNotFoundException("Practice not found with id: " + practiceId));
+    }
 
-        List<Room> rooms = new ArrayList<>();
-        for (Long roomId : simulationDto.getRoomIds()) {
-            rooms.add(roomRepository.findById(roomId)
-                    .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId)));
+    // Every room the slots use, read in one query
+    private Map<Long, Room> findRooms(List<SimulationByTimeSlotDto> simulationsDto) {
+        List<Long> roomIds = simulationsDto.stream().flatMap(dto -> dto.getRoomIds().stream()).distinct().toList();
+        Map<Long, Room> rooms = new HashMap<>();
+        roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), room));
+        for (Long roomId : roomIds) {
+            if (!rooms.containsKey(roomId)) {
+                throw new EntityNotFoundException("Room not found with id: " + roomId);
+            }
         }
+        return rooms;
+    }
 
-        for (Room room : rooms) {
-            if (!simulationRepository.isRoomAvailable(room, simulationDto.getStartDateTime(),
-                    simulationDto.getEndDateTime())) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "Room is not available for the selected dates");
-            }
+    private int firstFreeGroupNumber(Long practiceId) {
+        Integer lastGroupNumber = simulationRepository.findMaxGroupNumberByPracticeId(practiceId);
+        return lastGroupNumber == null ? 1 : lastGroupNumber + 1;
+    }
 
-            if (practice.getMaxStudentsGroup() > room.getCapacity()) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT,
-                        "Room capacity is not enough for the selected practice");
-            }
-        }
+    private List<RoomIntervalDto> bookingsOf(List<Simulation> simulations) {
+        return simulations.stream()
+                .flatMap(simulation -> simulation.getRooms().stream().map(room -> new RoomIntervalDto(room.getId(),
+                        simulation.getSimulationId(), simulation.getStartDateTime(), simulation.getEndDateTime())))
+                .toList();
+    }
+
+    private boolean overlaps(List<Date[]> bookings, Date startDateTime, Date endDateTime) {
+        return bookings.stream()
+                .anyMatch(booking -> booking[0].before(endDateTime) && booking[1].after(startDateTime));
+    }
 
+    private List<Simulation> buildSimulationsPerTimeSlot(SimulationByTimeSlotDto simulationDto, Practice practice,
+            List<Room> rooms, int firstGroupNumber) {
         Integer duration = practice.getSimulationDuration();
 
         GradeStatus gradeStatus = practice.getGradeable() ? GradeStatus.PENDING : GradeStatus.NOT_EVALUABLE;
 
-        Integer lastGroupNumber = simulationRepository.findMaxGroupNumberByPracticeId(practice.getId());
-
-        if (lastGroupNumber == null) {
-            lastGroupNumber = 0;
-        }
-
-        lastGroupNumber++;
+        int groupNumber = firstGroupNumber;
 
         List<Simulation> createdSimulations = new ArrayList<>();
 
-        while (simulationDto.getStartDateTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime()
-                .isBefore(
-                        simulationDto.getEndDateTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime())) {
+        LocalDateTime start = simulationDto.getStartDateTime().toInstant().atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+        LocalDateTime end = simulationDto.getEndDateTime().toInstant().atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+
+        while (start.isBefore(end)) {
+            LocalDateTime simulationEnd = start.plusMinutes(duration);
             Simulation simulation = Simulation.builder()
                     .practice(practice)
                     .rooms(rooms)
-                    .startDateTime(simulationDto.getStartDateTime())
-                    .endDateTime(Date.from(simulationDto.getStartDateTime().toInstant().atZone(ZoneId.systemDefault())
-                            .toLocalDateTime().plusMinutes(duration).atZone(ZoneId.systemDefault()).toInstant()))
+                    .startDateTime(Date.from(start.atZone(ZoneId.systemDefault()).toInstant()))
+                    .endDateTime(Date.from(simulationEnd.atZone(ZoneId.systemDefault()).toInstant()))
                     .gradeDateTime(null)
                     .gradeStatus(gradeStatus)
                     .grade(null)
-                    .groupNumber(lastGroupNumber)
+                    .groupNumber(groupNumber)
                     .build();
             createdSimulations.add(simulation);
-            simulationRepository.save(simulation);
-            simulationDto.setStartDateTime(Date.from(simulationDto.getStartDateTime().toInstant()
-                    .atZone(ZoneId.systemDefault()).toLocalDateTime().plusMinutes(duration)
-                    .atZone(ZoneId.systemDefault()).toInstant()));
+            start = simulationEnd;
 
-            lastGroupNumber++;
+            groupNumber++;
         }
 
         return createdSimulations;
     }
 
+    @Transactional
     public Simulation updateSimulation(Long id, SimulationByTimeSlotDto simulationDto) {
         Simulation existingSimulation = simulationRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + id));
@@ -216,8 +315,8 @@ public class SimulationService {
         }
     
         for (Room room : rooms) {
-            if (!simulationRepository.isRoomAvailable(room, simulationDto.getStartDateTime(),
-                    simulationDto.getEndDateTime())) {
+            if (roomBookingIndex.overlaps(room.getId(), simulationDto.getStartDateTime(),
+                    simulationDto.getEndDateTime(), id)) {
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "Room is not available for the selected dates");
             }
     
@@ -227,11 +326,17 @@ public class SimulationService {
             }
         }
     
+        // The old rooms are released first, otherwise the exclusion constraint would see them at the new time
+        existingSimulation.setRooms(new ArrayList<>());
+        simulationRepository.saveAndFlush(existingSimulation);
+
         existingSimulation.setStartDateTime(simulationDto.getStartDateTime());
         existingSimulation.setEndDateTime(simulationDto.getEndDateTime());
         existingSimulation.setRooms(rooms);
-    
-        return simulationRepository.save(existingSimulation);
+
+        Simulation savedSimulation = simulationRepository.save(existingSimulation);
+        eventPublisher.publishEvent(new RoomBookingsChangedEvent(Set.of(id), bookingsOf(List.of(existingSimulation))));
+        return savedSimulation;
     }
 
     public void deleteSimulationById(Long id) {
@@ -239,25 +344,34 @@ public class SimulationService {
             throw new EntityNotFoundException("Simulation not found with id: " + id);
         }
         simulationRepository.deleteById(id);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.SIMULATION, id, Set.of()));
+        eventPublisher.publishEvent(new RoomBookingsChangedEvent(Set.of(id), List.of()));
     }
 
+    @Transactional
     public void addStudentToSimulation(Long simulationId, Long studentId) {
-        Simulation simulation = simulationRepository.findById(simulationId)
-                .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + simulationId));
+        if (!simulationRepository.existsById(simulationId)) {
+            throw new EntityNotFoundException("Simulation not found with id: " + simulationId);
+        }
+        if (!userRepository.existsById(studentId)) {
+            throw new EntityNotFoundException("User not found with id: " + studentId);
+        }
 
-        simulation.getUsers().add(userRepository.findById(studentId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + studentId)));
-        simulationRepository.save(simulation);
+        // One row instead of rewriting the whole student list, which could drop a student joining meanwhile
+        simulationRepository.addUser(simulationId, studentId);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.SIMULATION, simulationId, Set.of(studentId)));
     }
 
+    @Transactional
     public void leaveSimulation(Long simulationId, Long userId) {
-        Simulation simulation = simulationRepository.findById(simulationId)
+        SimulationJoinStateDto simulation = simulationRepository.findJoinState(simulationId, userId)
             .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + simulationId));
 
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
         
-        if (!simulation.getUsers().contains(user)) {
+        if (!simulation.getEnrolled()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "User is not enrolled in this simulation");
         }
         // Prevent leaving if simulation already happened, is in progress, or is graded
@@ -273,89 +387,68 @@ public class SimulationService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot leave simulation, it has already happened");
         }
         // Do not allow leaving if the simulation is already graded
-        if (simulation.getGradeStatus() != null && simulation.getGradeStatus() == co.edu.javeriana.lms.grades.models.GradeStatus.REGISTERED) {
+        if (simulation.getGradeStatus() == GradeStatus.REGISTERED) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot leave simulation, it is already graded");
         }
-        simulation.getUsers().remove(user);
-        simulationRepository.save(simulation);
+        simulationRepository.removeUser(simulationId, userId);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.SIMULATION, simulationId, Set.of(userId)));
     }
 
+    @Transactional
     public List<TimeSlotDto> findSimulationsSchedule(String date) {
         Date startDate = parseDate(date);
         Date endDate = new Date(startDate.getTime() + 24 * 60 * 60 * 1000);
 
         log.info("Finding simulations schedule between {} and {}", startDate, endDate);
 
-        List<Simulation> simulations = simulationRepository.findByStartDateTimeBetween(startDate, endDate);
-
         List<TimeSlotDto> timeSlots = new ArrayList<>();
+        streamSimulationsSchedule(startDate, endDate, timeSlots::add);
+        return timeSlots;
+    }
 
-        if (simulations.isEmpty()) {
-            return timeSlots;
-        }
-
-        // Mapa para agrupar simulaciones por cada roomId
-        Map<Long, List<Simulation>> simulationsByRoom = new HashMap<>();
+    // Every day from start to end, both included. The merged blocks are few even for a long range, so they are
+    // read in full and the transaction is closed before the response is written
+    @Transactional
+    public List<TimeSlotDto> findSimulationsSchedule(String start, String end) {
+        Date startDate = parseDate(start);
+        Date endDate = scheduleRangeEnd(startDate, end);
 
-        for (Simulation simulation : simulations) {
-            for (Room room : simulation.getRooms()) { // Iteramos sobre todas las salas de la simulación
-                simulationsByRoom
-                        .computeIfAbsent(room.getId(), k -> new ArrayList<>())
-                        .add(simulation);
-            }
-        }
+        log.info("Finding simulations schedule between {} and {}", startDate, endDate);
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-
-        // Procesar cada grupo de simulaciones por roomId
-        for (Map.Entry<Long, List<Simulation>> entry : simulationsByRoom.entrySet()) {
-            List<Simulation> roomSimulations = entry.getValue();
-            roomSimulations.sort(Comparator.comparing(Simulation::getStartDateTime));
-
-            Date unifiedStart = roomSimulations.get(0).getStartDateTime();
-            Date unifiedEnd = roomSimulations.get(0).getEndDateTime();
-            String roomName = roomSimulations.get(0).getRooms().stream()
-                    .filter(r -> r.getId().equals(entry.getKey()))
-                    .findFirst()
-                    .map(Room::getName)
-                    .orElse("Unknown Room");
-
-            for (int i = 1; i < roomSimulations.size(); i++) {
-                Simulation currentSimulation = roomSimulations.get(i);
-
-                if (!currentSimulation.getStartDateTime().after(unifiedEnd)) {
-                    // Se solapan o son contiguos dentro del mismo roomId
-                    unifiedEnd = unifiedEnd.after(currentSimulation.getEndDateTime()) ? unifiedEnd
-                            : currentSimulation.getEndDateTime();
-                } else {
-                    // Guardar el intervalo previo antes de actualizar
-                    timeSlots.add(TimeSlotDto.builder()
-                            .room(roomName)
-                            .startDateTime(dateFormat.format(unifiedStart))
-                            .endDateTime(dateFormat.format(unifiedEnd))
-                            .build());
-
-                    unifiedStart = currentSimulation.getStartDateTime();
-                    unifiedEnd = currentSimulation.getEndDateTime();
-                }
-            }
+        List<TimeSlotDto> timeSlots = new ArrayList<>();
+        streamSimulationsSchedule(startDate, endDate, timeSlots::add);
+        return timeSlots;
+    }
 
-            // Agregar el último intervalo del roomId actual
-            timeSlots.add(TimeSlotDto.builder()
-                    .room(roomName)
-                    .startDateTime(dateFormat.format(unifiedStart))
-                    .endDateTime(dateFormat.format(unifiedEnd))
-                    .build());
+    private Date scheduleRangeEnd(Date startDate, String end) {
+        Date endDate = Date.from(parseDate(end).toInstant().atZone(ZoneId.systemDefault()).plusDays(1).toInstant());
+        if (!startDate.before(endDate)) {
+            throw new IllegalArgumentException("The start date must not be after the end date");
         }
+        if (java.time.Duration.between(startDate.toInstant(), endDate.toInstant()).toDays() > scheduleMaxDays) {
+            throw new IllegalArgumentException("The schedule range can not exceed " + scheduleMaxDays + " days");
+        }
+        return endDate;
+    }
 
-        return timeSlots;
+    // Busy blocks per room merged by the database, read through a cursor instead of as a list of entities
+    private void streamSimulationsSchedule(Date startDate, Date endDate, Consumer<TimeSlotDto> consumer) {
+        try (Stream<RoomBusyBlockDto> blocks = simulationRepository.streamBusyBlocksByStartDateTimeBetween(startDate,
+                endDate)) {
+            blocks.forEach(block -> consumer.accept(TimeSlotDto.builder()
+                    .room(block.getRoomName())
+                    .startDateTime(SCHEDULE_FORMAT.format(block.getStartDateTime().toInstant()))
+                    .endDateTime(SCHEDULE_FORMAT.format(block.getEndDateTime().toInstant()))
+                    .build()));
+        }
     }
 
     public List<User> findSimulationStudents(Long simulationId) {
-        Simulation simulation = simulationRepository.findById(simulationId)
-                .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + simulationId));
+        if (!simulationRepository.existsById(simulationId)) {
+            throw new EntityNotFoundException("Simulation not found with id: " + simulationId);
+        }
 
-        return simulation.getUsers();
+        return userRepository.findBySimulations_SimulationIdOrderById(simulationId);
     }
 
     @Transactional
@@ -407,24 +500,27 @@ public class SimulationService {
         }
     }
 
+    // The seat is taken by a conditional update on the simulation's seat counter, so students joining at the same
+    // time queue on that row and the group never ends up over maxStudentsGroup
+    @Transactional
     public void joinSimulation(Long id, Long userId) {
         // Check if the simulation exists
-        Simulation simulation = simulationRepository.findById(id)
+        SimulationJoinStateDto simulation = simulationRepository.findJoinState(id, userId)
                 .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + id));
 
         // Check if the user exists
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
 
         // Check if the user is not already enrolled in the simulation
-        if (simulation.getUsers().contains(user)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT,
-                    "User is already enrolled in the simulation, cannot join group");
+        if (simulation.getEnrolled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ALREADY_ENROLLED);
         }
 
-        // Check if the simulation is not full
-        if (simulation.getUsers().size() >= simulation.getPractice().getMaxStudentsGroup()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Simulation is full, cannot join group");
+        // Check if the simulation is not full, the seat taken below checks it again under the lock
+        if (simulation.getSeatsTaken() >= simulation.getMaxStudentsGroup()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, SIMULATION_FULL);
         }
 
         // Check if the simulation has not already started
@@ -449,65 +545,52 @@ public class SimulationService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Simulation is already graded, cannot join group");
         }
 
-        // Check if the user is already enrolled on another simulation
-        simulation.getPractice().getSimulations().forEach(s -> {
-            if (s.getUsers().contains(user)) {
-                // Remove the user from the simulation
-                s.getUsers().remove(user);
-                simulationRepository.save(s);
-                log.info("User {} removed from simulation {}", user.getId(), s.getSimulationId());
-            }
-        });
-
-        // Add the user to the simulation
-        simulation.getUsers().add(user);
-        simulationRepository.save(simulation);
-        log.info("User {} added to simulation {}", user.getId(), simulation.getSimulationId());
+        // Take a seat and leave any other simulation of the practice in one statement
+        simulationRepository.lockSeats(id, userId, simulation.getPracticeId());
+        if (simulationRepository.joinIfSeatFree(id, userId) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, SIMULATION_FULL);
+        }
+        log.info("User {} added to simulation {}", userId, id);
+        // Joining also leaves the other simulations of the practice
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.SIMULATION, null, Set.of(userId)));
     }
 
     public Page<SimulationAvailabilityDto> findAvailableSimulationsByPracticeId(Long practiceId, Integer page,
             Integer size, String sort, Boolean asc, Integer groupNumber) {
 
-        practiceRepository.findById(practiceId)
-                .orElseThrow(() -> new EntityNotFoundException("Practice not found with id: " + practiceId));
+        if (!practiceRepository.existsById(practiceId)) {
+            throw new EntityNotFoundException("Practice not found with id: " + practiceId);
+        }
 
         Sort sortOrder = asc ? Sort.by(sort).ascending() : Sort.by(sort).descending();
         Pageable pageable = PageRequest.of(page, size, sortOrder);
 
-        Page<Simulation> simulations;
-        if (groupNumber == null) {
-            simulations = simulationRepository.findByPracticeId(practiceId, pageable);
-        } else {
-            simulations = simulationRepository.findByPracticeIdAndGroupNumber(practiceId, groupNumber, pageable);
-        }
-
-        List<SimulationAvailabilityDto> simulationDtos = mapSimulationsToAvailabilityDtos(simulations.getContent());
-
-        return new PageImpl<>(simulationDtos, pageable, simulations.getTotalElements());
+        // Seat counters instead of the simulations and their students
+        return simulationRepository.findSeatsByPracticeId(practiceId, groupNumber, pageable)
+                .map(this::toAvailabilityDto);
     }
 
-    private List<SimulationAvailabilityDto> mapSimulationsToAvailabilityDtos(List<Simulation> simulations) {
-        return simulations.stream().map(simulation -> {
-            boolean isFull = simulation.getUsers().size() >= simulation.getPractice().getMaxStudentsGroup();
-            boolean hasStarted = simulation.getStartDateTime() != null
-                    && new Date().after(simulation.getStartDateTime());
-            boolean isGraded = simulation.getGradeStatus() == GradeStatus.REGISTERED;
-
-            boolean available = !isFull && !hasStarted && !isGraded;
-
-            return SimulationAvailabilityDto.builder()
-                    .simulationId(simulation.getSimulationId())
-                    .groupNumber(simulation.getGroupNumber())
-                    .startDateTime(simulation.getStartDateTime())
-                    .endDateTime(simulation.getEndDateTime())
-                    .available(available)
-                    .build();
-        }).toList();
+    private SimulationAvailabilityDto toAvailabilityDto(SimulationSeatsDto simulation) {
+        boolean isFull = simulation.getEnrolledStudents() >= simulation.getMaxStudentsGroup();
+        boolean hasStarted = simulation.getStartDateTime() != null
+                && new Date().after(simulation.getStartDateTime());
+        boolean isGraded = simulation.getGradeStatus() == GradeStatus.REGISTERED;
+
+        boolean available = !isFull && !hasStarted && !isGraded;
+
+        return SimulationAvailabilityDto.builder()
+                .simulationId(simulation.getSimulationId())
+                .groupNumber(simulation.getGroupNumber())
+                .startDateTime(simulation.getStartDateTime())
+                .endDateTime(simulation.getEndDateTime())
+                .enrolledStudents(simulation.getEnrolledStudents())
+                .available(available)
+                .build();
     }
 
-    public List<Simulation> findSimulationCandidates(Long id) {
+    public List<SimulationListDto> findSimulationCandidates(Long id) {
         // 1. Get the base simulation
-        Simulation baseSimulation = simulationRepository.findById(id)
+        Simulation baseSimulation = simulationRepository.findWithDetailsBySimulationId(id)
             .orElseThrow(() -> new EntityNotFoundException("Simulation not found with id: " + id));
 
         // 2. Obtain the rooms associated with the simulation
@@ -539,27 +622,12 @@ public class SimulationService {
 
         log.info("[findSimulationCandidates] Searching for candidates between {} and {}", dayStart, dayEnd);
         
-        // 4. Search for all simulations in those rooms and that day
-        List<Simulation> candidates = new ArrayList<>();
-        for (Room room : rooms) {
-            List<Simulation> sims = simulationRepository.findByRooms_IdAndStartDateTimeBetween(
-                room.getId(), dayStart, dayEnd
-            );
-            candidates.addAll(sims);
-        }
-
-        // 5. Remove duplicates and the base simulation
-        int beforeRemove = candidates.size();
-        candidates.removeIf(s -> s.getSimulationId().equals(baseSimulation.getSimulationId()));
-        int afterRemove = candidates.size();
-        log.info("[findSimulationCandidates] Candidates before remove base: {}, after: {}", beforeRemove, afterRemove);
-
-        // Remove duplicates by id
-        Map<Long, Simulation> unique = new HashMap<>();
-        for (Simulation s : candidates) {
-            unique.put(s.getSimulationId(), s);
-        }
-        log.info("[findSimulationCandidates] Returning {} unique candidates", unique.size());
-        return new ArrayList<>(unique.values());
+        // 4. Search for the other simulations in those rooms and that day, in one query
+        List<Long> roomIds = rooms.stream().map(Room::getId).toList();
+        List<SimulationListDto> candidates = simulationRepository
+                .findCandidates(baseSimulation.getSimulationId(), roomIds, dayStart, dayEnd)
+                .stream().map(this::toListDto).toList();
+        log.info("[findSimulationCandidates] Returning {} unique candidates", candidates.size());
+        return candidates;
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package co.edu.javeriana.lms.shared.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Size bounded cache with expiry, published as the cache.* metrics of the actuator under its name.
+// Every invalidation bumps a generation, so a load that raced with one is not kept.
+public class BoundedCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private BoundedCache(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    // Entries expire a fixed time after they are loaded
+    public static <K, V> BoundedCache<K, V> create(String name, long maximumSize, Duration ttl,
+            MeterRegistry meterRegistry) {
+        return register(name, builder(maximumSize).expireAfterWrite(ttl).build(), meterRegistry);
+    }
+
+    // Entries expire at the epoch millisecond each value gives
+    public static <K, V> BoundedCache<K, V> create(String name, long maximumSize, ToLongFunction<V> expiresAt,
+            MeterRegistry meterRegistry) {
+        Expiry<K, V> expiry = new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                return Duration.ofMillis(Math.max(0, expiresAt.applyAsLong(value) - System.currentTimeMillis()))
+                        .toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+        return register(name, builder(maximumSize).expireAfter(expiry).build(), meterRegistry);
+    }
+
+    // The cached value, or the one the loader returns. A null from the loader is returned but not cached
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            cache.put(key, loaded);
+            if (generation.get() != loadedAt) {
+                cache.asMap().remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public void invalidateIf(Predicate<? super V> affected) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(affected);
+    }
+
+    // Changes the cached values in place. A load that raced with the change is dropped as after an invalidation
+    public void updateAll(Consumer<? super V> update) {
+        generation.incrementAndGet();
+        cache.asMap().values().forEach(update);
+    }
+
+    // Maintenance runs on the calling thread, so the size bound holds as soon as a put returns
+    private static Caffeine<Object, Object> builder(long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(Runnable::run)
+                .recordStats();
+    }
+
+    private static <K, V> BoundedCache<K, V> register(String name, Cache<K, V> cache, MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return new BoundedCache<>(cache);
+    }
+}
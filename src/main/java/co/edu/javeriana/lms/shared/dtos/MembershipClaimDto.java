@@ -0,0 +1,28 @@
+package co.edu.javeriana.lms.shared.dtos;
+
+import java.util.Arrays;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Ids of the classes and simulations a user belonged to when the token was issued, each array sorted
+@Data
+@AllArgsConstructor
+public class MembershipClaimDto {
+    private long[] studentClassIds;
+    private long[] professorClassIds;
+    private long[] simulationIds;
+    private long issuedAt;
+
+    public boolean isStudentOf(Long classId) {
+        return Arrays.binarySearch(studentClassIds, classId) >= 0;
+    }
+
+    public boolean isProfessorOf(Long classId) {
+        return Arrays.binarySearch(professorClassIds, classId) >= 0;
+    }
+
+    public boolean isEnrolledIn(Long simulationId) {
+        return Arrays.binarySearch(simulationIds, simulationId) >= 0;
+    }
+}
@@ -0,0 +1,21 @@
+package co.edu.javeriana.lms.shared.events;
+
+import java.util.Set;
+
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when who belongs to a class, practice or simulation changes
+@Getter
+@AllArgsConstructor
+public class MembershipChangedEvent {
+
+    private final Resource resource;
+
+    // Null when every resource of the type may be affected
+    private final Long resourceId;
+
+    // Empty when every user of the resource may be affected
+    private final Set<Long> userIds;
+}
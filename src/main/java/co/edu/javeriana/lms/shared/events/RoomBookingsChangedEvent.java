@@ -0,0 +1,20 @@
+package co.edu.javeriana.lms.shared.events;
+
+import java.util.List;
+import java.util.Set;
+
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when simulations are booked into rooms, moved or deleted
+@Getter
+@AllArgsConstructor
+public class RoomBookingsChangedEvent {
+
+    // Simulations whose previous bookings are dropped, null when any booking may have changed
+    private final Set<Long> simulationIds;
+
+    // The bookings those simulations hold now
+    private final List<RoomIntervalDto> bookings;
+}
@@ -0,0 +1,15 @@
+package co.edu.javeriana.lms.shared.events;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a user's account data, roles or password change
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    // Empty when the affected users are not known
+    private final Set<String> emails;
+}
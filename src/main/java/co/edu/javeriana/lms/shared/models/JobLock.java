@@ -0,0 +1,35 @@
+package co.edu.javeriana.lms.shared.models;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "job_lock")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLock {
+
+    // Job or job partition name, e.g. arec-sync-room-3
+    @Id
+    private String name;
+
+    // Nobody else may take the lock before this moment
+    @Column(nullable = false)
+    private Date lockedUntil;
+
+    @Column(nullable = false)
+    private Date lockedAt;
+
+    @Column(nullable = false)
+    private String lockedBy;
+}
@@ -0,0 +1,34 @@
+package co.edu.javeriana.lms.shared.models;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "membership_change", indexes = @Index(name = "idx_membership_change_changed_at", columnList = "changedAt"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MembershipChange {
+
+    // User whose memberships changed, 0 when the change named no user
+    @Id
+    private Long userId;
+
+    // Last change, from the database clock
+    @Column(nullable = false)
+    private Date changedAt;
+
+    // Instance that made the change, which has already applied it
+    @Column(nullable = false)
+    private String changedBy;
+}
@@ -0,0 +1,60 @@
+package co.edu.javeriana.lms.shared.services;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Leases in the job_lock table so that a scheduled job, or one partition of it, runs on a single instance.
+// Times come from the database clock, so instances with skewed clocks still agree on who holds a lease.
+@Slf4j
+@Service
+public class JobLockService {
+
+    private static final String LOCK = "INSERT INTO job_lock (name, locked_until, locked_at, locked_by) "
+            + "VALUES (?, now() + ? * interval '1 second', now(), ?) "
+            + "ON CONFLICT (name) DO UPDATE SET locked_until = EXCLUDED.locked_until, "
+            + "locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by "
+            + "WHERE job_lock.locked_until <= now()";
+
+    private static final String UNLOCK = "UPDATE job_lock "
+            + "SET locked_until = GREATEST(now(), locked_at + ? * interval '1 second') "
+            + "WHERE name = ? AND locked_by = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String instanceId = hostName() + "-" + UUID.randomUUID();
+
+    // Takes the lease unless another instance holds it. It expires by itself after lockAtMostFor
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        boolean locked = jdbcTemplate.update(LOCK, name, lockAtMostFor.toSeconds(), instanceId) > 0;
+        if (!locked) {
+            log.info("Job {} is locked by another instance", name);
+        }
+        return locked;
+    }
+
+    // Keeps the lease until lockAtLeastFor has passed since it was taken, so late instances skip the same run
+    public void unlock(String name, Duration lockAtLeastFor) {
+        jdbcTemplate.update(UNLOCK, lockAtLeastFor.toSeconds(), name, instanceId);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
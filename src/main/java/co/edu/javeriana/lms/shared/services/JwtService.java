@@ -1,22 +1,38 @@
 package co.edu.javeriana.lms.shared.services;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.shared.cache.BoundedCache;
+import co.edu.javeriana.lms.shared.dtos.MembershipClaimDto;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class JwtService {
@@ -26,14 +42,105 @@ public class JwtService {
     @Value("${JWT_SIGNING_KEY}")
     private String jwtPrivateKey;
 
+    @Value("${JWT_CLAIMS_CACHE_SIZE:10000}")
+    private int claimsCacheSize = 10000;
+
+    // Upper bound for reusing verified claims, tokens that expire sooner leave the cache sooner
+    @Value("${JWT_CLAIMS_CACHE_TTL:300}")
+    private long claimsCacheTtlSeconds = 300;
+
+    // Users with more memberships get a token without the claim, and are authorized from the database
+    @Value("${JWT_MEMBERSHIP_CLAIM_MAX_IDS:2000}")
+    private int membershipClaimMaxIds = 2000;
+
+    // Built once at startup, a parser is immutable and safe to share between requests
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Verified claims by SHA-256 of the token
+    private BoundedCache<String, CachedClaims> claimsCache;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtPrivateKey));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        claimsCache = BoundedCache.create("jwt.claims", claimsCacheSize, (CachedClaims cached) -> cached.expiresAt,
+                meterRegistry);
+    }
+
     public String extractUserName(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Empty for tokens issued before the id was part of the claims
+    public Optional<Long> extractUserId(String token) {
+        return extractClaim(token, claims -> claims.get("id") instanceof Number id
+                ? Optional.of(id.longValue())
+                : Optional.empty());
+    }
+
+    // Empty for tokens issued without roles, an empty list is a user with no roles
+    public Optional<List<String>> extractRoles(String token) {
+        return extractClaim(token, claims -> claims.get("roles") instanceof List<?> roles
+                ? Optional.of(roles.stream().map(String::valueOf).toList())
+                : Optional.empty());
+    }
+
+    // The principal is built from the signed claims alone, null when the token lacks them
+    public UserDetails extractPrincipal(String token) {
+        String userName = extractUserName(token);
+        Optional<List<String>> roles = extractRoles(token);
+        if (userName == null || roles.isEmpty() || extractUserId(token).isEmpty()) {
+            return null;
+        }
+        return org.springframework.security.core.userdetails.User.withUsername(userName)
+                .password("")
+                .authorities(roles.get().stream().map(SimpleGrantedAuthority::new).toList())
+                .build();
+    }
+
+    // Empty when the token was issued without the membership claim
+    public Optional<MembershipClaimDto> extractMembership(String token) {
+        return extractClaim(token, claims -> {
+            if (!(claims.get("mbr") instanceof Map<?, ?> membership)
+                    || !(membership.get("at") instanceof Number issuedAt)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new MembershipClaimDto(
+                        decodeIds(membership.get("sc")),
+                        decodeIds(membership.get("pc")),
+                        decodeIds(membership.get("s")),
+                        issuedAt.longValue()));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
     public String generateToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails);
     }
 
+    public String generateToken(UserDetails userDetails, MembershipClaimDto membership) {
+        Map<String, Object> extraClaims = new HashMap<>();
+        long[][] ids = { membership.getStudentClassIds(), membership.getProfessorClassIds(),
+                membership.getSimulationIds() };
+        if (Arrays.stream(ids).mapToInt(list -> list.length).sum() <= membershipClaimMaxIds) {
+            Map<String, Object> claim = new LinkedHashMap<>();
+            claim.put("sc", encodeIds(ids[0]));
+            claim.put("pc", encodeIds(ids[1]));
+            claim.put("s", encodeIds(ids[2]));
+            claim.put("at", membership.getIssuedAt());
+            extraClaims.put("mbr", claim);
+        }
+        return generateToken(extraClaims, userDetails);
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String userName = extractUserName(token);
         return (userName.equals(userDetails.getUsername())) && !isTokenExpired(token);
@@ -46,6 +153,7 @@ public class JwtService {
 
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         User user = (User) userDetails;
+        extraClaims.put("id", user.getId());
         extraClaims.put("roles", user.getRoles()); // Add roles to the token
     
         return Jwts.builder()
@@ -53,7 +161,7 @@ public class JwtService {
                 .subject(user.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + tokeDuration.toMillis()))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -66,12 +174,80 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token)
-                .getPayload();
+        return claimsCache.get(hash(token), key -> verify(token)).claims;
+    }
+
+    // Only tokens that verify are cached, expired or tampered ones throw here every time
+    private CachedClaims verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        long expiresAt = System.currentTimeMillis() + Duration.ofSeconds(claimsCacheTtlSeconds).toMillis();
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        return new CachedClaims(claims, expiresAt);
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtPrivateKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Sorted ids as varint gaps, a few hundred ids close together take about one byte each
+    private String encodeIds(long[] ids) {
+        long[] sorted = Arrays.stream(ids).sorted().distinct().toArray();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long previous = 0;
+        for (long id : sorted) {
+            long gap = id - previous;
+            while ((gap & ~0x7FL) != 0) {
+                bytes.write((int) ((gap & 0x7F) | 0x80));
+                gap >>>= 7;
+            }
+            bytes.write((int) gap);
+            previous = id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private long[] decodeIds(Object encoded) {
+        if (!(encoded instanceof String text)) {
+            throw new IllegalArgumentException("Membership ids must be a string");
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(text);
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long previous = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            long gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (i == bytes.length || shift > 63) {
+                    throw new IllegalArgumentException("Truncated membership ids");
+                }
+                b = bytes[i++];
+                gap |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += gap;
+            ids[count++] = previous;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class CachedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -0,0 +1,18 @@
+package co.edu.javeriana.lms.subjects.models;
+
+// Bits of the membership queries of classes and simulations
+public final class ClassMembership {
+
+    public static final int EXISTS = 1;
+    // Enrolled in the class, or in the simulation for simulation queries
+    public static final int STUDENT = 2;
+    public static final int PROFESSOR = 4;
+    public static final int COORDINATOR = 8;
+
+    private ClassMembership() {
+    }
+
+    public static boolean has(int membership, int bit) {
+        return (membership & bit) != 0;
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -53,7 +54,8 @@ public class ClassModel {
     private Integer numberOfParticipants;
 
     @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "professor_classes", joinColumns = @JoinColumn(name = "classId"), inverseJoinColumns = @JoinColumn(name = "id"))
+    @JoinTable(name = "professor_classes", joinColumns = @JoinColumn(name = "classId"), inverseJoinColumns = @JoinColumn(name = "id"),
+            indexes = @Index(name = "idx_professor_classes_class_user", columnList = "classId, id"))
     private List<User> professors;
 
     @ManyToOne
@@ -61,7 +63,8 @@ public class ClassModel {
     private Course course;
 
     @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "class_students", joinColumns = @JoinColumn(name = "classId"), inverseJoinColumns = @JoinColumn(name = "id"))
+    @JoinTable(name = "class_students", joinColumns = @JoinColumn(name = "classId"), inverseJoinColumns = @JoinColumn(name = "id"),
+            indexes = @Index(name = "idx_class_students_class_user", columnList = "classId, id"))
     @JsonIgnore
     private List<User> students;
 
@@ -198,4 +198,16 @@ public interface ClassRepository extends JpaRepository<ClassModel, Long> {
             Long studentId,
             String keyword,
             String period);
+
+    // ClassMembership bits of a user in a class, answered from the join table indexes without loading the rosters
+    @Query(value = """
+                SELECT CASE WHEN EXISTS (SELECT 1 FROM classes c WHERE c.class_id = :classId) THEN 1 ELSE 0 END
+                    + CASE WHEN EXISTS (SELECT 1 FROM class_students cs
+                        WHERE cs.class_id = :classId AND cs.id = :userId) THEN 2 ELSE 0 END
+                    + CASE WHEN EXISTS (SELECT 1 FROM professor_classes pc
+                        WHERE pc.class_id = :classId AND pc.id = :userId) THEN 4 ELSE 0 END
+                    + CASE WHEN EXISTS (SELECT 1 FROM classes c JOIN course co ON co.course_id = c.course_course_id
+                        WHERE c.class_id = :classId AND co.coordinator_id = :userId) THEN 8 ELSE 0 END
+            """, nativeQuery = true)
+    int findMembership(@Param("classId") Long classId, @Param("userId") Long userId);
 }
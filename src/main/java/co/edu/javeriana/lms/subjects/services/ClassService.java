@@ -5,9 +5,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,7 +21,10 @@ import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.shared.errors.CustomError;
 import co.edu.javeriana.lms.shared.errors.ErrorCode;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
 import co.edu.javeriana.lms.subjects.dtos.ClassDto;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
 import co.edu.javeriana.lms.subjects.models.ClassModel;
 import co.edu.javeriana.lms.subjects.models.Course;
 import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
@@ -40,6 +45,9 @@ public class ClassService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Page<ClassModel> findAll(String filter, Integer page, Integer size, String sort, Boolean asc) {
         Sort sortOrder = asc ? Sort.by(sort).ascending() : Sort.by(sort).descending();
         Pageable pageable = PageRequest.of(page, size, sortOrder);
@@ -140,6 +148,15 @@ public class ClassService {
                 "Class with ID " + id + " not found"));
     }
 
+    // ClassMembership bits of the user in the class, without loading its members
+    public int findMembership(Long id, Long userId) {
+        int membership = classRepository.findMembership(id, userId);
+        if (!ClassMembership.has(membership, ClassMembership.EXISTS)) {
+            throw new EntityNotFoundException("Class with ID " + id + " not found");
+        }
+        return membership;
+    }
+
     public ClassModel save(ClassDto entity) {
 
         // evaluar si el usuario es profesor
@@ -216,10 +233,13 @@ public class ClassService {
     public void deleteById(Long id) {
 
         classRepository.deleteById(id);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.CLASS, id, Set.of()));
     }
 
     public ClassModel update(ClassModel classModel) { 
         classRepository.save(classModel);
+        // Members may have been removed or the course, and with it the coordinator, replaced
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.CLASS, classModel.getClassId(), Set.of()));
 
         return classModel;
     }
@@ -253,6 +273,8 @@ public class ClassService {
         });
 
         classRepository.save(classModel);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.CLASS, id,
+                members.stream().map(User::getId).collect(Collectors.toSet())));
         
         return classModel;
     }
@@ -291,6 +313,7 @@ public class ClassService {
         }
 
         classRepository.save(classModel);
+        eventPublisher.publishEvent(new MembershipChangedEvent(Resource.CLASS, id, Set.of(member.getId())));
 
         return classModel;
     }
@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,8 +26,8 @@ public class StreamingController {
 
     @GetMapping(value = "/video/{title}", produces = "video/mp4")
     public ResponseEntity<Resource> getVideo(@Valid @PathVariable String title,
-            @Valid @RequestHeader(value = "Range", required = false) String range) throws IOException {
-        log.info("Request received for video: {}, requesting Range of: {}", title, range);
-        return service.getVideo(title, range);
+            @RequestHeader HttpHeaders headers) throws IOException {
+        log.info("Request received for video: {}, requesting Range of: {}", title, headers.getFirst(HttpHeaders.RANGE));
+        return service.getVideo(title, headers);
     }
 }
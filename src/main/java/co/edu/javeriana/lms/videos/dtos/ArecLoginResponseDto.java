@@ -1,5 +1,7 @@
 package co.edu.javeriana.lms.videos.dtos;
 
+import java.time.Instant;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -9,4 +11,5 @@ import lombok.RequiredArgsConstructor;
 @AllArgsConstructor
 public class ArecLoginResponseDto {
     private String session;
+    private Instant expiresAt;
 }
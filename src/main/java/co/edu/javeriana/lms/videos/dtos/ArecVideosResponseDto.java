@@ -29,6 +29,7 @@ public class ArecVideosResponseDto {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class Video {
+        private Long id;
         private String name;
         private Double length;
         @SerializedName("recorded_at")
@@ -0,0 +1,33 @@
+package co.edu.javeriana.lms.videos.models;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "arec_sync_state")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArecSyncState {
+
+    // One watermark per room, keyed by the room id
+    @Id
+    private Long roomId;
+
+    // Newest recording id already synced from the room's recorder
+    @Column(nullable = false)
+    private Long lastRecordingId;
+
+    private Date lastRecordedAt;
+
+    private Date lastSyncedAt;
+}
@@ -0,0 +1,10 @@
+package co.edu.javeriana.lms.videos.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.javeriana.lms.videos.models.ArecSyncState;
+
+@Repository
+public interface ArecSyncStateRepository extends JpaRepository<ArecSyncState, Long> {
+}
@@ -0,0 +1,11 @@
+package co.edu.javeriana.lms.videos.repositories;
+
+import java.util.List;
+
+import co.edu.javeriana.lms.videos.models.Video;
+
+public interface VideoBatchRepository {
+
+    // Inserts the videos in one batch, skipping names that already exist. Returns how many were inserted
+    int insertIgnoringExisting(List<Video> videos);
+}
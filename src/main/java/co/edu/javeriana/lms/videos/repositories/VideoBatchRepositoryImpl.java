@@ -0,0 +1,47 @@
+package co.edu.javeriana.lms.videos.repositories;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import co.edu.javeriana.lms.videos.models.Video;
+
+public class VideoBatchRepositoryImpl implements VideoBatchRepository {
+
+    // Ids come from the same sequence Hibernate uses for videos, so both can insert side by side
+    private static final String INSERT_VIDEO = "INSERT INTO videos "
+            + "(video_id, name, available, recording_date, duration, size, video_url, simulation_id) "
+            + "VALUES (nextval('videos_seq'), ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (name) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertIgnoringExisting(List<Video> videos) {
+        if (videos.isEmpty()) {
+            return 0;
+        }
+
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_VIDEO, videos, videos.size(), (statement, video) -> {
+            statement.setString(1, video.getName());
+            statement.setBoolean(2, video.getAvailable());
+            statement.setTimestamp(3, new Timestamp(video.getRecordingDate().getTime()));
+            statement.setLong(4, video.getDuration());
+            statement.setDouble(5, video.getSize());
+            statement.setString(6, video.getVideoUrl());
+            if (video.getSimulation() != null) {
+                statement.setLong(7, video.getSimulation().getSimulationId());
+            } else {
+                statement.setNull(7, Types.BIGINT);
+            }
+        });
+
+        // Skipped rows report 0, drivers that rewrite the batch report SUCCESS_NO_INFO (-2)
+        return Arrays.stream(results).flatMapToInt(Arrays::stream).map(count -> count > 0 ? count : 0).sum();
+    }
+}
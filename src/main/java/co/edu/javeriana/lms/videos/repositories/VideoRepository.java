@@ -1,17 +1,32 @@
 package co.edu.javeriana.lms.videos.repositories;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import co.edu.javeriana.lms.videos.models.Video;
+import jakarta.transaction.Transactional;
 
 @Repository
-public interface VideoRepository extends JpaRepository<Video, Long> {
+public interface VideoRepository extends JpaRepository<Video, Long>, VideoBatchRepository {
     Page<Video> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
     Optional<Video> findByName(String name);
+
+    @Query("SELECT v.name FROM Video v WHERE v.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // Recordings stored while the recorder was still processing them, once they are ready
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.available = true WHERE v.name IN :names AND v.available = false")
+    int markAvailable(@Param("names") Collection<String> names);
 }
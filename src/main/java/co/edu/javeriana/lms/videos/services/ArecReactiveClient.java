@@ -0,0 +1,163 @@
+package co.edu.javeriana.lms.videos.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.google.gson.Gson;
+
+import co.edu.javeriana.lms.videos.dtos.ArecLoginResponseDto;
+import co.edu.javeriana.lms.videos.dtos.ArecVideosResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+@Slf4j
+@Service
+public class ArecReactiveClient {
+
+    @Value("${AREC_USERNAME}")
+    private String AREC_USERNAME;
+    @Value("${AREC_PASSWORD}")
+    private String AREC_PASSWORD;
+    private static final String AREC_LOGIN_PATH = "/api/login";
+    private static final String AREC_RECORDINGS_PATH = "/api/recording";
+
+    @Value("${AREC_REQUEST_TIMEOUT:30}")
+    private long requestTimeoutSeconds = 30;
+
+    @Value("${AREC_PAGE_SIZE:50}")
+    private int pageSize = 50;
+
+    @Value("${AREC_RETRY_ATTEMPTS:3}")
+    private int retryAttempts = 3;
+
+    @Value("${AREC_RETRY_BACKOFF_MS:500}")
+    private long retryBackoffMillis = 500;
+
+    @Autowired
+    private WebClient webClient;
+
+    private final Gson gson = new Gson();
+
+    // Session cookie per recorder IP, reused until it expires
+    private final Map<String, ArecLoginResponseDto> sessions = new ConcurrentHashMap<>();
+
+    public Mono<ArecLoginResponseDto> login(String ipAddress) {
+        log.info("Logging in to Arec {} with username: {}", ipAddress, AREC_USERNAME);
+
+        return webClient.post()
+                .uri("http://" + ipAddress + AREC_LOGIN_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ArecService.loginRequestBody(gson, AREC_USERNAME, AREC_PASSWORD))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .retryWhen(retry())
+                .map(response -> {
+                    String setCookieHeader = response.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+                    if (setCookieHeader == null) {
+                        throw new IllegalStateException("No Set-Cookie header found");
+                    }
+                    return ArecService.sessionFromSetCookie(setCookieHeader);
+                });
+    }
+
+    public Mono<ArecLoginResponseDto> getSession(String ipAddress) {
+        ArecLoginResponseDto session = sessions.get(ipAddress);
+        if (session != null && session.getExpiresAt() != null && session.getExpiresAt().isAfter(Instant.now())) {
+            return Mono.just(session);
+        }
+        return login(ipAddress).doOnNext(newSession -> sessions.put(ipAddress, newSession));
+    }
+
+    // Recordings newer than the watermark, newest first, requesting the next page only when the previous one is done
+    public Flux<ArecVideosResponseDto.Video> fetchVideos(String ipAddress, Long lastRecordingId) {
+        return fetchPage(ipAddress, 1, lastRecordingId)
+                .expand(page -> page.summary.hasNext(page.number, pageSize)
+                        ? fetchPage(ipAddress, page.number + 1, lastRecordingId)
+                        : Mono.empty())
+                .concatMapIterable(page -> page.videos);
+    }
+
+    private Mono<Page> fetchPage(String ipAddress, int number, Long lastRecordingId) {
+        return getSession(ipAddress)
+                .flatMap(session -> requestPage(ipAddress, session, number, lastRecordingId))
+                .onErrorResume(this::isSessionRejected, e -> {
+                    log.info("Arec session for {} was rejected, logging in again", ipAddress);
+                    sessions.remove(ipAddress);
+                    return getSession(ipAddress)
+                            .flatMap(session -> requestPage(ipAddress, session, number, lastRecordingId));
+                })
+                .retryWhen(retry());
+    }
+
+    private Mono<Page> requestPage(String ipAddress, ArecLoginResponseDto session, int number,
+            Long lastRecordingId) {
+        return webClient.get()
+                .uri("http://" + ipAddress + AREC_RECORDINGS_PATH + "?page=" + number + "&per_page=" + pageSize)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.COOKIE, "session=" + session.getSession())
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    // A page is bounded by AREC_PAGE_SIZE, so it is joined and then bound one recording at a time
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class))
+                            .map(buffer -> readPage(buffer, number, lastRecordingId));
+                })
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds));
+    }
+
+    private Page readPage(DataBuffer buffer, int number, Long lastRecordingId) {
+        Page page = new Page();
+        page.number = number;
+        try (InputStream body = buffer.asInputStream(true)) {
+            page.summary = ArecService.readPage(gson, body, lastRecordingId, page.videos::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Total videos: {}, page {} has {}", page.summary.total, number, page.summary.count);
+        return page;
+    }
+
+    private boolean isSessionRejected(Throwable error) {
+        return error instanceof WebClientResponseException.Unauthorized
+                || error instanceof WebClientResponseException.Forbidden;
+    }
+
+    // Connection failures, timeouts and server errors are worth another try, anything else is not
+    private Retry retry() {
+        return Retry.backoff(retryAttempts, Duration.ofMillis(retryBackoffMillis))
+                .filter(error -> error instanceof WebClientRequestException
+                        || error instanceof TimeoutException
+                        || (error instanceof WebClientResponseException responseError
+                                && responseError.getStatusCode().is5xxServerError()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static class Page {
+        private int number;
+        private ArecService.RecordingsPage summary;
+        private final List<ArecVideosResponseDto.Video> videos = new ArrayList<>();
+    }
+}
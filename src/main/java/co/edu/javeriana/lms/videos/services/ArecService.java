@@ -1,6 +1,8 @@
 package co.edu.javeriana.lms.videos.services;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.HttpCookie;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -10,24 +12,39 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 // import java.nio.file.Files;
 // import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Date;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 
+import co.edu.javeriana.lms.practices.dtos.SimulationIntervalDto;
 import co.edu.javeriana.lms.practices.models.Simulation;
 import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
 import co.edu.javeriana.lms.videos.dtos.ArecLoginRequestDto;
 import co.edu.javeriana.lms.videos.dtos.ArecLoginResponseDto;
 import co.edu.javeriana.lms.videos.dtos.ArecVideosResponseDto;
+import co.edu.javeriana.lms.videos.models.ArecSyncState;
 import co.edu.javeriana.lms.videos.models.Video;
+import co.edu.javeriana.lms.videos.repositories.ArecSyncStateRepository;
 import co.edu.javeriana.lms.videos.repositories.VideoRepository;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Service
@@ -38,6 +55,32 @@ public class ArecService {
     private String AREC_PASSWORD;
     private static final String AREC_LOGIN_PATH = "/api/login";
     private static final String AREC_RECORDINGS_PATH = "/api/recording";
+    private static final Duration AREC_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    // Used when the recorder does not send a Max-Age for its session cookie
+    private static final Duration AREC_SESSION_TTL = Duration.ofMinutes(30);
+
+    @Value("${AREC_REQUEST_TIMEOUT:30}")
+    private long requestTimeoutSeconds = 30;
+
+    @Value("${AREC_PAGE_SIZE:50}")
+    private int pageSize = 50;
+
+    @Value("${AREC_SYNC_BATCH_SIZE:500}")
+    private int batchSize = 500;
+
+    // How long a finished recording without its movie, or still processing, keeps the watermark below it
+    @Value("${AREC_SYNC_RETRY_HOURS:24}")
+    private long retryHours = 24;
+
+    // One client for every recorder, it keeps its connections alive between requests
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(AREC_CONNECT_TIMEOUT)
+            .build();
+
+    private final Gson gson = new Gson();
+
+    // Session cookie per recorder IP, reused until it expires
+    private final Map<String, ArecLoginResponseDto> sessions = new ConcurrentHashMap<>();
 
     @Autowired
     private VideoRepository videoRepository;
@@ -45,42 +88,49 @@ public class ArecService {
     @Autowired
     private SimulationRepository simulationRepository;
 
-    public String encodeCredentials(String username, String password) {
-        return Base64.getEncoder()
-                .encodeToString(String.format("%s:%s", username, password).getBytes(StandardCharsets.UTF_8));
-    }
+    @Autowired
+    private ArecSyncStateRepository arecSyncStateRepository;
+
+    @Autowired
+    private ArecReactiveClient arecReactiveClient;
 
     public ArecLoginResponseDto loginToArec(String ipAddress)
             throws URISyntaxException, IOException, InterruptedException {
         log.info("Logging in to Arec with username: {}", AREC_USERNAME);
-        Gson gson = new Gson();
-
-        String base64Auth = encodeCredentials(AREC_USERNAME, AREC_PASSWORD);
 
-        String req = gson.toJson(new ArecLoginRequestDto(AREC_USERNAME, base64Auth, "javeriana", "0"));
-        log.info("Request to Arec: {}", req);
+        String req = loginRequestBody(gson, AREC_USERNAME, AREC_PASSWORD);
+        log.debug("Request to Arec: {}", req);
 
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(new URI("http://" + ipAddress + AREC_LOGIN_PATH))
                 .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
                 .POST(HttpRequest.BodyPublishers.ofString(req))
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
-        log.info("Response from Arec: {}", response.body());
+        log.debug("Response from Arec: {}", response.body());
         log.info("Response status code: {}", response.statusCode());
-        log.info("Response headers: {}", response.headers().map());
+        log.debug("Response headers: {}", response.headers().map());
 
         String setCookieHeader = response.headers().firstValue("Set-Cookie")
                 .orElseThrow(() -> new RuntimeException("No Set-Cookie header found"));
-        log.info("Set-Cookie headers: {}", setCookieHeader);
 
-        ArecLoginResponseDto cookies = new ArecLoginResponseDto();
+        return sessionFromSetCookie(setCookieHeader);
+    }
+
+    static String loginRequestBody(Gson gson, String username, String password) {
+        String base64Auth = Base64.getEncoder()
+                .encodeToString(String.format("%s:%s", username, password).getBytes(StandardCharsets.UTF_8));
+        return gson.toJson(new ArecLoginRequestDto(username, base64Auth, "javeriana", "0"));
+    }
 
+    static ArecLoginResponseDto sessionFromSetCookie(String setCookieHeader) {
         log.info("Set-Cookie: {}", setCookieHeader);
 
+        ArecLoginResponseDto cookies = new ArecLoginResponseDto();
+
         List<HttpCookie> setCookies = HttpCookie.parse(setCookieHeader);
         for (HttpCookie setCookie : setCookies) {
             log.info("Name: " + setCookie.getName());
@@ -94,117 +144,356 @@ public class ArecService {
             log.info("Comment: " + setCookie.getComment());
             if (setCookie.getName().equals("session")) {
                 cookies.setSession(setCookie.getValue());
+                cookies.setExpiresAt(Instant.now().plus(setCookie.getMaxAge() > 0
+                        ? Duration.ofSeconds(setCookie.getMaxAge())
+                        : AREC_SESSION_TTL));
             }
         }
 
         return cookies;
     }
 
-    public ArecVideosResponseDto fetchVideos(String ipAddress)
+    public ArecLoginResponseDto getSession(String ipAddress)
             throws URISyntaxException, IOException, InterruptedException {
-        log.info("Getting videos from Arec");
-        Gson gson = new Gson();
+        ArecLoginResponseDto session = sessions.get(ipAddress);
+        if (session != null && session.getExpiresAt() != null && session.getExpiresAt().isAfter(Instant.now())) {
+            return session;
+        }
 
-        ArecLoginResponseDto cookies = loginToArec(ipAddress);
+        session = loginToArec(ipAddress);
+        sessions.put(ipAddress, session);
+        return session;
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI("http://" + ipAddress + AREC_RECORDINGS_PATH))
+    public List<ArecVideosResponseDto.Video> fetchVideos(String ipAddress, Long lastRecordingId)
+            throws URISyntaxException, IOException, InterruptedException {
+        List<ArecVideosResponseDto.Video> videos = new ArrayList<>();
+        fetchVideos(ipAddress, lastRecordingId, videos::add);
+        return videos;
+    }
+
+    public void fetchVideos(String ipAddress, Long lastRecordingId, Consumer<ArecVideosResponseDto.Video> consumer)
+            throws URISyntaxException, IOException, InterruptedException {
+        log.info("Getting videos from Arec newer than recording {}", lastRecordingId);
+
+        // The recorder lists newest recordings first, so paging stops at the first one already synced
+        for (int page = 1;; page++) {
+            RecordingsPage recordingsPage = fetchPage(ipAddress, page, lastRecordingId, consumer);
+
+            if (recordingsPage.reachedWatermark) {
+                log.info("Reached synced recording {} on page {}", lastRecordingId, page);
+            }
+            if (!recordingsPage.hasNext(page, pageSize)) {
+                return;
+            }
+        }
+    }
+
+    // Reads one page of the catalogue straight from the response, handing over recordings as they are parsed
+    private RecordingsPage fetchPage(String ipAddress, int page, Long lastRecordingId,
+            Consumer<ArecVideosResponseDto.Video> consumer)
+            throws URISyntaxException, IOException, InterruptedException {
+        ArecLoginResponseDto cookies = getSession(ipAddress);
+
+        HttpResponse<InputStream> response = client.send(recordingsRequest(ipAddress, cookies, page),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (response.statusCode() == 401 || response.statusCode() == 403) {
+            log.info("Arec session for {} was rejected, logging in again", ipAddress);
+            response.body().close();
+            sessions.remove(ipAddress);
+            cookies = getSession(ipAddress);
+            response = client.send(recordingsRequest(ipAddress, cookies, page),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        }
+
+        log.info("Response status code: {} for page {}", response.statusCode(), page);
+
+        RecordingsPage recordingsPage = readPage(gson, response.body(), lastRecordingId, consumer);
+        log.info("Total videos: {}, page {} has {}", recordingsPage.total, page, recordingsPage.count);
+        return recordingsPage;
+    }
+
+    private HttpRequest recordingsRequest(String ipAddress, ArecLoginResponseDto cookies, int page)
+            throws URISyntaxException {
+        return HttpRequest.newBuilder()
+                .uri(new URI("http://" + ipAddress + AREC_RECORDINGS_PATH + "?page=" + page + "&per_page=" + pageSize))
                 .header("Content-Type", "application/json")
                 .header("Cookie", "session=" + cookies.getSession())
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
                 .GET()
                 .build();
+    }
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    public void associateVideoWithSimulation(Long roomId, ArecVideosResponseDto.Video video)
+            throws URISyntaxException, IOException, InterruptedException {
+        associateVideosWithSimulations(roomId, List.of(video));
+    }
+
+    public int associateVideosWithSimulations(Long roomId, List<ArecVideosResponseDto.Video> videos) {
+        log.info("Associating {} videos with simulations of room {}", videos.size(), roomId);
+
+        if (videos.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> existingNames = videoRepository.findExistingNames(
+                videos.stream().map(ArecVideosResponseDto.Video::getName).toList());
+
+        List<ArecVideosResponseDto.Video> newVideos = new ArrayList<>();
+        List<String> readyNames = new ArrayList<>();
+        for (ArecVideosResponseDto.Video video : videos) {
+            if (existingNames.contains(video.getName())) {
+                log.info("Video {} already exists in the database", video.getName());
+                if (isReady(video)) {
+                    readyNames.add(video.getName());
+                }
+            } else if (movieMetadata(video) == null) {
+                log.error("No metadata found with channelName 'movie' for video: {}", video.getName());
+            } else {
+                newVideos.add(video);
+            }
+        }
 
-        ArecVideosResponseDto res = gson.fromJson(response.body(), ArecVideosResponseDto.class);
+        // Stored before the recorder finished processing them, fetched again because they held the watermark
+        if (!readyNames.isEmpty()) {
+            videoRepository.markAvailable(readyNames);
+        }
 
-        log.info("Response from Arec: {}", response.body());
-        log.info("Total videos: {}", res.getPageInfo().getTotal());
+        if (newVideos.isEmpty()) {
+            return 0;
+        }
 
-        if (res.getPageInfo().getTotal() != res.getPageInfo().getCount()) {
-            request = HttpRequest.newBuilder()
-                    .uri(new URI(
-                            "http://" + ipAddress + AREC_RECORDINGS_PATH + "?per_page=" + res.getPageInfo().getTotal()))
-                    .header("Content-Type", "application/json")
-                    .header("Cookie", "session=" + cookies.getSession())
-                    .GET()
+        // One query for the whole batch, every simulation of the room inside the span of its recordings
+        Date from = newVideos.stream().map(ArecVideosResponseDto.Video::getRecordedAt).min(Date::compareTo).get();
+        Date to = newVideos.stream().map(ArecVideosResponseDto.Video::getFinishedAt).max(Date::compareTo).get();
+        List<SimulationIntervalDto> simulations = simulationRepository.findIntervalsByRoomIdWithin(roomId, from, to);
+
+        List<Video> rows = new ArrayList<>();
+        for (ArecVideosResponseDto.Video video : newVideos) {
+            ArecVideosResponseDto.VideoMetadata videoMetadata = movieMetadata(video);
+
+            Video newVideo = Video.builder()
+                    .name(video.getName())
+                    .duration(video.getLength().longValue())
+                    .recordingDate(video.getRecordedAt())
+                    .available(isReady(video))
+                    .videoUrl(videoMetadata.getPlaybackUrl())
+                    .size(videoMetadata.getSize() / 1000000)
                     .build();
+
+            Long simulationId = matchSimulation(simulations, video);
+            if (simulationId != null) {
+                newVideo.setSimulation(Simulation.builder().simulationId(simulationId).build());
+            }
+            rows.add(newVideo);
         }
-        return res;
-    }
 
-    public void associateVideoWithSimulation(Long roomId, ArecVideosResponseDto.Video video)
-            throws URISyntaxException, IOException, InterruptedException {
-        log.info("Associating video with simulation " + video.getName());
+        int inserted = videoRepository.insertIgnoringExisting(rows);
+        log.info("Saved {} of {} videos for room {}", inserted, videos.size(), roomId);
+        return inserted;
+    }
 
-        Optional<Video> videoData = videoRepository.findByName(video.getName());
+    private boolean isReady(ArecVideosResponseDto.Video video) {
+        return "ready".equals(video.getStatus());
+    }
 
-        if (videoData.isPresent()) {
-            log.info("Video already exists in the database");
-            return;
+    // A finished recording whose movie is missing or still processing, retried until it is too old to change
+    private boolean isPending(ArecVideosResponseDto.Video video) {
+        if ((isReady(video) && movieMetadata(video) != null) || "failed".equals(video.getStatus())) {
+            return false;
         }
-        ArecVideosResponseDto.VideoMetadata videoMetadata = video.getMetadata().stream()
+        Date retryUntil = new Date(video.getFinishedAt().getTime() + Duration.ofHours(retryHours).toMillis());
+        if (retryUntil.before(new Date())) {
+            log.error("Giving up on video {} with status {}", video.getName(), video.getStatus());
+            return false;
+        }
+        return true;
+    }
+
+    private ArecVideosResponseDto.VideoMetadata movieMetadata(ArecVideosResponseDto.Video video) {
+        return video.getMetadata().stream()
                 .filter(metadata -> metadata.getChannelName().equals("Movie"))
                 .findFirst()
                 .orElse(null);
+    }
 
-        if (videoMetadata == null) {
-            log.error("No metadata found with channelName 'movie' for video: {}", video.getName());
-            return;
+    // The simulation must happen entirely inside the recording, and be the only one that does
+    private Long matchSimulation(List<SimulationIntervalDto> simulations, ArecVideosResponseDto.Video video) {
+        int low = 0;
+        int high = simulations.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (simulations.get(mid).getStartDateTime().after(video.getRecordedAt())) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
         }
 
-        Video newVideo = Video.builder()
-                .name(video.getName())
-                .duration(video.getLength().longValue())
-                .recordingDate(video.getRecordedAt())
-                .available(video.getStatus().equals("ready"))
-                .videoUrl(videoMetadata.getPlaybackUrl())
-                .size(videoMetadata.getSize() / 1000000)
-                .build();
+        Long match = null;
+        for (int i = low; i < simulations.size()
+                && simulations.get(i).getStartDateTime().before(video.getFinishedAt()); i++) {
+            SimulationIntervalDto simulation = simulations.get(i);
+            if (!simulation.getEndDateTime().before(video.getFinishedAt())) {
+                continue;
+            }
+            if (match != null) {
+                log.error("Multiple simulations found for video: {}", video.getName());
+                return null;
+            }
+            match = simulation.getSimulationId();
+        }
 
-        Video savedVideo = videoRepository.save(newVideo);
-        log.info("Video saved: {}", savedVideo.getName());
+        if (match == null) {
+            log.error("No simulation found for video: {}", video.getName());
+        } else {
+            log.info("Simulation {} found for video: {}", match, video.getName());
+        }
+        return match;
+    }
 
-        List<Simulation> simulations = simulationRepository.findAllByRooms_IdAndStartDateTimeAfterAndEndDateTimeBefore(
-                roomId, video.getRecordedAt(), video.getFinishedAt());
+    public void syncVideos(Long roomId, String ipAddress) throws URISyntaxException, IOException, InterruptedException {
+        log.info("Syncing videos with Arec");
 
-        if (simulations.isEmpty()) {
-            log.error("No simulation found for video: {}", video.getName());
-            return;
+        ArecSyncState state = arecSyncStateRepository.findById(roomId)
+                .orElse(ArecSyncState.builder().roomId(roomId).build());
+
+        RoomSync roomSync = new RoomSync(roomId);
+        fetchVideos(ipAddress, state.getLastRecordingId(), roomSync);
+        finishSync(state, roomSync);
+    }
+
+    public Mono<Void> syncVideosReactive(Long roomId, String ipAddress) {
+        log.info("Syncing videos with Arec without blocking");
+
+        // Repository calls and batch inserts stay off the event loop
+        return Mono.fromCallable(() -> arecSyncStateRepository.findById(roomId)
+                .orElse(ArecSyncState.builder().roomId(roomId).build()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(state -> {
+                    RoomSync roomSync = new RoomSync(roomId);
+                    return arecReactiveClient.fetchVideos(ipAddress, state.getLastRecordingId())
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(roomSync)
+                            .then(Mono.fromRunnable(() -> finishSync(state, roomSync)));
+                });
+    }
+
+    private void finishSync(ArecSyncState state, RoomSync roomSync) {
+        roomSync.flush();
+        log.info("Found {} new videos for room {}", roomSync.finished, state.getRoomId());
+
+        // Only moved once every batch was stored, a failed run starts again from the previous watermark
+        Map.Entry<Long, Date> watermark = roomSync.watermark();
+        if (watermark != null
+                && (state.getLastRecordingId() == null || watermark.getKey() > state.getLastRecordingId())) {
+            state.setLastRecordingId(watermark.getKey());
+            state.setLastRecordedAt(watermark.getValue());
+            state.setLastSyncedAt(new Date());
+            arecSyncStateRepository.save(state);
         }
-        if (simulations.size() > 1) {
-            log.error("Multiple simulations found for video: {}", video.getName());
-            return;
+    }
+
+    // Binds one recording at a time from a catalogue page, stopping at the first one already synced
+    static RecordingsPage readPage(Gson gson, InputStream body, Long lastRecordingId,
+            Consumer<ArecVideosResponseDto.Video> consumer) throws IOException {
+        RecordingsPage recordingsPage = new RecordingsPage();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("page_info")) {
+                    ArecVideosResponseDto.PageInfo pageInfo = gson.fromJson(reader,
+                            ArecVideosResponseDto.PageInfo.class);
+                    recordingsPage.total = pageInfo.getTotal();
+                } else if (name.equals("result")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        ArecVideosResponseDto.Video video = gson.fromJson(reader, ArecVideosResponseDto.Video.class);
+                        if (lastRecordingId != null && video.getId() != null && video.getId() <= lastRecordingId) {
+                            // The rest of the body is dropped along with the connection
+                            recordingsPage.reachedWatermark = true;
+                            return recordingsPage;
+                        }
+                        recordingsPage.count++;
+                        consumer.accept(video);
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
         }
-        Simulation simulation = simulations.get(0);
-        log.info("Simulation found: {}", simulation.getSimulationId());
-        savedVideo.setSimulation(simulation);
+        return recordingsPage;
+    }
+
+    static class RecordingsPage {
+        Integer total;
+        int count;
+        boolean reachedWatermark;
 
-        videoRepository.save(savedVideo);
-        log.info("Video saved: {}", savedVideo.getName());
+        // Whether the catalogue goes on after this page
+        boolean hasNext(int page, int pageSize) {
+            int seen = (page - 1) * pageSize + count;
+            return !reachedWatermark && count >= pageSize && total != null && seen < total;
+        }
     }
 
-    public void syncVideos(Long roomId, String ipAddress) throws URISyntaxException, IOException, InterruptedException {
-        log.info("Syncing videos with Arec");
+    // Groups the recordings of one room into batches while the catalogue is being read
+    private class RoomSync implements Consumer<ArecVideosResponseDto.Video> {
 
-        ArecVideosResponseDto res = fetchVideos(ipAddress);
+        private final Long roomId;
+        private final List<ArecVideosResponseDto.Video> batch = new ArrayList<>();
+        // Recorded dates of the recordings that are done with, by id
+        private final NavigableMap<Long, Date> done = new TreeMap<>();
+        private Long oldestPendingId;
+        private int finished;
 
-        // Gson gson = new Gson();
-        // String jsonResponse = new String(
-        //         Files.readAllBytes(Paths.get("./src/test/resources/arecVideosResponse.json")));
-        // ArecVideosResponseDto res = gson.fromJson(jsonResponse, ArecVideosResponseDto.class);
-        // String jsonResponse2 = new String(
-        //         Files.readAllBytes(Paths.get("./src/test/resources/arecVideosResponse2.json")));
-        // ArecVideosResponseDto res = gson.fromJson(jsonResponse2, ArecVideosResponseDto.class);
+        RoomSync(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        @Override
+        public void accept(ArecVideosResponseDto.Video video) {
+            // A recording still in progress is picked up again on the next run
+            if (video.getFinishedAt() == null) {
+                log.info("Video {} is still recording in room {}", video.getName(), roomId);
+                holdWatermark(video);
+                return;
+            }
+
+            // Stored now if it can be, and picked up again on the next run to fill in what was missing
+            if (isPending(video)) {
+                log.info("Video {} is not ready yet in room {}", video.getName(), roomId);
+                holdWatermark(video);
+            } else if (video.getId() != null) {
+                done.put(video.getId(), video.getRecordedAt());
+            }
+            finished++;
+            batch.add(video);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                associateVideosWithSimulations(roomId, new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
 
-        for (ArecVideosResponseDto.Video video : res.getResult()) {
-            log.info("Video name: {}", video.getName());
-            log.info("Video length: {}", video.getLength());
-            log.info("Video recorded at: {}", video.getRecordedAt());
-            log.info("Video finished at: {}", video.getFinishedAt());
+        private void holdWatermark(ArecVideosResponseDto.Video video) {
+            if (video.getId() != null && (oldestPendingId == null || video.getId() < oldestPendingId)) {
+                oldestPendingId = video.getId();
+            }
+        }
 
-            associateVideoWithSimulation(roomId, video);
+        // Id and recorded date of the newest recording done with, below any recording still to be picked up
+        Map.Entry<Long, Date> watermark() {
+            return oldestPendingId == null ? done.lastEntry() : done.lowerEntry(oldestPendingId);
         }
     }
-}
\ No newline at end of file
+}
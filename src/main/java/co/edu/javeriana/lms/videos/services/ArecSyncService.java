@@ -0,0 +1,247 @@
+package co.edu.javeriana.lms.videos.services;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.practices.dtos.SimulationRoomEndDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Slf4j
+@Service
+public class ArecSyncService {
+
+    @Autowired
+    private ArecService arecService;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Value("${AREC_SYNC_THREADS:16}")
+    private int syncThreads = 16;
+
+    @Value("${AREC_SYNC_ROOM_TIMEOUT:120}")
+    private long roomTimeoutSeconds = 120;
+
+    // "blocking" uses the thread pool below, "reactive" drives every recorder from the WebClient event loop
+    @Value("${AREC_CLIENT:blocking}")
+    private String clientMode = "blocking";
+
+    @Value("${AREC_MAX_CONCURRENT_DEVICES:64}")
+    private int maxConcurrentDevices = 64;
+
+    @Value("${AREC_PER_DEVICE_CONCURRENCY:1}")
+    private int perDeviceConcurrency = 1;
+
+    // Recorders need a moment to close the file once a simulation ends
+    @Value("${AREC_SYNC_AFTER_END_MINUTES:5}")
+    private long syncAfterEndMinutes = 5;
+
+    @Value("${AREC_SYNC_PLAN_INTERVAL_MINUTES:10}")
+    private long planIntervalMinutes = 10;
+
+    // A synced room is left alone for this long, so an instance that fires a little later skips it
+    @Value("${AREC_SYNC_ROOM_LOCK_MINUTES:5}")
+    private long roomLockAtLeastMinutes = 5;
+
+    private ExecutorService executor;
+
+    // Room syncs already queued, keyed by trigger time and room id
+    private final Set<String> plannedSyncs = ConcurrentHashMap.newKeySet();
+
+    // Queues a sync of just the rooms of each simulation that ends before the next planning run
+    public void planSimulationEndSyncs() {
+        Instant now = Instant.now();
+        Duration afterEnd = Duration.ofMinutes(syncAfterEndMinutes);
+        Instant from = now.minus(afterEnd);
+        Instant to = now.plus(Duration.ofMinutes(planIntervalMinutes * 2));
+
+        Map<Instant, Map<Long, Room>> roomsByTrigger = new TreeMap<>();
+        for (SimulationRoomEndDto simulationRoom : simulationRepository
+                .findRoomsByEndDateTimeBetween(Date.from(from), Date.from(to))) {
+            Instant trigger = simulationRoom.getEndDateTime().toInstant().plus(afterEnd);
+            Room room = simulationRoom.getRoom();
+            if (plannedSyncs.add(trigger.toEpochMilli() + ":" + room.getId())) {
+                roomsByTrigger.computeIfAbsent(trigger, key -> new LinkedHashMap<>()).putIfAbsent(room.getId(), room);
+            }
+        }
+
+        roomsByTrigger.forEach((trigger, rooms) -> {
+            List<Room> triggerRooms = List.copyOf(rooms.values());
+            log.info("Video sync of {} rooms planned for {}", triggerRooms.size(), trigger);
+            taskScheduler.schedule(() -> {
+                triggerRooms.forEach(room -> plannedSyncs.remove(trigger.toEpochMilli() + ":" + room.getId()));
+                syncRooms(triggerRooms);
+            }, trigger);
+        });
+    }
+
+    public void syncRooms(List<Room> rooms) {
+        if (clientMode.equals("reactive")) {
+            syncRoomsReactive(rooms);
+            return;
+        }
+
+        log.info("Syncing videos for {} rooms", rooms.size());
+        long startTime = System.nanoTime();
+
+        Map<Room, Future<?>> syncs = new LinkedHashMap<>();
+        for (Room room : shuffled(rooms)) {
+            syncs.put(room, executor().submit(() -> {
+                syncRoom(room);
+                return null;
+            }));
+        }
+
+        // Every room shares the same deadline, so the sweep lasts as long as the slowest room
+        long deadline = startTime + TimeUnit.SECONDS.toNanos(roomTimeoutSeconds);
+        for (Map.Entry<Room, Future<?>> sync : syncs.entrySet()) {
+            Room room = sync.getKey();
+            try {
+                sync.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                sync.getValue().cancel(true);
+                log.error("Timed out syncing videos for room {} after {} seconds", room.getName(), roomTimeoutSeconds);
+            } catch (ExecutionException e) {
+                log.error("Error syncing videos for room {}: {}", room.getName(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                syncs.values().forEach(future -> future.cancel(true));
+                log.error("Video sync interrupted");
+                return;
+            }
+        }
+
+        log.info("Video sync of {} rooms finished in {} ms", rooms.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    // The room lease is only taken once a worker is free, so instances running the same sweep share the rooms
+    private void syncRoom(Room room) throws URISyntaxException, IOException, InterruptedException {
+        String lock = roomLock(room);
+        if (!jobLockService.tryLock(lock, Duration.ofSeconds(roomTimeoutSeconds))) {
+            return;
+        }
+
+        Duration lockAtLeastFor = Duration.ZERO;
+        try {
+            log.info("Syncing videos for room: {}", room.getName());
+            arecService.syncVideos(room.getId(), room.getIp());
+            lockAtLeastFor = Duration.ofMinutes(roomLockAtLeastMinutes);
+        } finally {
+            jobLockService.unlock(lock, lockAtLeastFor);
+        }
+    }
+
+    private void syncRoomsReactive(List<Room> rooms) {
+        log.info("Syncing videos for {} rooms without blocking", rooms.size());
+        long startTime = System.nanoTime();
+
+        // Rooms behind the same recorder share its concurrency limit
+        Map<String, List<Room>> roomsByDevice = rooms.stream()
+                .collect(Collectors.groupingBy(Room::getIp, LinkedHashMap::new, Collectors.toList()));
+
+        Flux.fromIterable(shuffled(roomsByDevice.values()))
+                .flatMap(deviceRooms -> Flux.fromIterable(deviceRooms)
+                        .flatMap(this::syncRoomReactive, perDeviceConcurrency), maxConcurrentDevices)
+                .then()
+                .block();
+
+        log.info("Video sync of {} rooms finished in {} ms", rooms.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    // A failure of one room, taking or releasing its lease included, ends only that room and not the sweep
+    private Mono<Void> syncRoomReactive(Room room) {
+        String lock = roomLock(room);
+        return Mono.fromCallable(() -> jobLockService.tryLock(lock, Duration.ofSeconds(roomTimeoutSeconds)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(locked -> locked)
+                .flatMap(locked -> {
+                    log.info("Syncing videos for room: {}", room.getName());
+                    return arecService.syncVideosReactive(room.getId(), room.getIp())
+                            .timeout(Duration.ofSeconds(roomTimeoutSeconds))
+                            .then(unlock(lock, Duration.ofMinutes(roomLockAtLeastMinutes)))
+                            .onErrorResume(e -> {
+                                log.error("Error syncing videos for room {}: {}", room.getName(), e.getMessage());
+                                return unlock(lock, Duration.ZERO);
+                            });
+                })
+                .onErrorResume(e -> {
+                    log.error("Error with the sync lease of room {}: {}", room.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> unlock(String lock, Duration lockAtLeastFor) {
+        return Mono.<Void>fromRunnable(() -> jobLockService.unlock(lock, lockAtLeastFor))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String roomLock(Room room) {
+        return "arec-sync-room-" + room.getId();
+    }
+
+    // Instances walk the rooms in different orders, so they rarely compete for the same lease
+    private <T> List<T> shuffled(Collection<T> items) {
+        List<T> order = new ArrayList<>(items);
+        Collections.shuffle(order);
+        return order;
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(syncThreads, runnable -> {
+                Thread thread = new Thread(runnable, "arec-sync-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,18 +1,38 @@
 package co.edu.javeriana.lms.videos.services;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,8 +41,30 @@ import lombok.extern.slf4j.Slf4j;
 public class StreamingService {
 
     private static final String VIDEO_PATH = "src/main/resources/videos/%s";
+    private static final String VIDEO_CONTENT_TYPE = "video/mp4";
+    private static final long DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    private static final long DEFAULT_CACHE_MAX_AGE = 86400;
+
+    // Upper bound of bytes served for an open-ended range, the player asks for the next chunk as it plays
+    @Value("${STREAMING_CHUNK_SIZE:1048576}")
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+    @Value("${STREAMING_CACHE_MAX_AGE:86400}")
+    private long cacheMaxAge = DEFAULT_CACHE_MAX_AGE;
+
+    // Recordings never change once synced, so shared caches are allowed to keep them by default
+    @Value("${STREAMING_CACHE_PUBLIC:true}")
+    private boolean cachePublic = true;
 
     public ResponseEntity<Resource> getVideo(String title, String range) throws IOException {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        if (range != null) {
+            requestHeaders.set(HttpHeaders.RANGE, range);
+        }
+        return getVideo(title, requestHeaders);
+    }
+
+    public ResponseEntity<Resource> getVideo(String title, HttpHeaders requestHeaders) throws IOException {
         Path videoPath = Paths.get(String.format(VIDEO_PATH, title));
 
         if (!Files.exists(videoPath)) {
@@ -31,42 +73,272 @@ public class StreamingService {
         }
 
         long fileSize = Files.size(videoPath);
-        long start = 0;
-        long end = fileSize - 1;
-
-        if (range != null && range.startsWith("bytes=")) {
-            String[] ranges = range.substring(6).split("-");
-            try {
-                start = Long.parseLong(ranges[0]);
-                if (ranges.length > 1) {
-                    end = Long.parseLong(ranges[1]);
-                }
-            } catch (NumberFormatException ignored) {
-            }
+        File videoFile = videoPath.toFile();
+        long lastModified = videoFile.lastModified();
+        String etag = "\"" + Long.toHexString(fileSize) + "-" + Long.toHexString(lastModified) + "\"";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Accept-Ranges", "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setCacheControl(cacheControl());
+
+        if (!preconditionsHold(requestHeaders, etag, lastModified)) {
+            log.info("Precondition failed for video: {}", title);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).headers(headers).build();
+        }
+
+        if (isNotModified(requestHeaders, etag, lastModified)) {
+            log.info("Video not modified: {}", title);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        String range = requestHeaders.getFirst(HttpHeaders.RANGE);
+
+        // Without a Range the whole video is sent, as 206 with its full Content-Range like it always was
+        if (range == null && fileSize > 0) {
+            return getFullRange(videoFile, fileSize, headers);
+        }
+        if (range == null) {
+            return getWholeVideo(videoFile, fileSize, headers);
+        }
+
+        // A stale If-Range means the client's partial copy is useless, so it gets the whole video
+        if (!ifRangeMatches(requestHeaders, etag, lastModified)) {
+            log.info("If-Range does not match for video: {}, sending full content", title);
+            return getWholeVideo(videoFile, fileSize, headers);
+        }
+
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.isEmpty()) {
+            return getWholeVideo(videoFile, fileSize, headers);
+        }
+        List<HttpRange> satisfiable = ranges.stream()
+                .filter(httpRange -> httpRange.getRangeStart(fileSize) < fileSize)
+                .toList();
+
+        if (satisfiable.isEmpty()) {
+            log.error("Range {} not satisfiable for video {} of {} bytes", range, title, fileSize);
+            headers.add("Content-Range", "bytes */" + fileSize);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
         }
 
-        if (end >= fileSize) {
-            end = fileSize - 1;
+        if (satisfiable.size() > 1) {
+            return getVideoParts(videoFile, fileSize, satisfiable, headers);
         }
 
+        HttpRange httpRange = satisfiable.get(0);
+        long start = httpRange.getRangeStart(fileSize);
+        long end = cappedEnd(httpRange, start, httpRange.getRangeEnd(fileSize));
+
         long contentLength = end - start + 1;
+        long position = start;
+
+        // The file is only opened when the body is written, and copied through its channel
+        InputStreamResource resource = new InputStreamResource(
+                () -> new FileRegionInputStream(videoFile, position, contentLength));
+
+        headers.add("Content-Type", VIDEO_CONTENT_TYPE);
+        headers.add("Content-Range", "bytes " + start + "-" + end + "/" + fileSize);
+        headers.add("Content-Length", String.valueOf(contentLength));
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT) // Important for streaming
+                .headers(headers)
+                .body(resource);
+    }
+
+    private ResponseEntity<Resource> getFullRange(File videoFile, long fileSize, HttpHeaders headers) {
+        headers.add("Content-Type", VIDEO_CONTENT_TYPE);
+        headers.add("Content-Range", "bytes 0-" + (fileSize - 1) + "/" + fileSize);
+        headers.add("Content-Length", String.valueOf(fileSize));
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new InputStreamResource(() -> new FileRegionInputStream(videoFile, 0, fileSize)));
+    }
+
+    // Also the answer to a Range that is stale or does not parse, so the body must stay a plain InputStreamResource.
+    // Spring MVC applies the request's Range itself to a 200 with any other Resource, and asks it for its length
+    private ResponseEntity<Resource> getWholeVideo(File videoFile, long fileSize, HttpHeaders headers) {
+        headers.add("Content-Type", VIDEO_CONTENT_TYPE);
+        headers.add("Content-Length", String.valueOf(fileSize));
+        return ResponseEntity.status(HttpStatus.OK)
+                .headers(headers)
+                .body(new InputStreamResource(() -> new FileRegionInputStream(videoFile, 0, fileSize)));
+    }
+
+    private ResponseEntity<Resource> getVideoParts(File videoFile, long fileSize, List<HttpRange> ranges,
+            HttpHeaders headers) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
 
-        try (RandomAccessFile file = new RandomAccessFile(videoPath.toFile(), "r")) {
-            file.seek(start);
-            byte[] videoBytes = new byte[(int) contentLength];
-            file.readFully(videoBytes);
+        List<InputStreamSource> parts = new ArrayList<>();
+        long contentLength = 0;
 
-            InputStreamResource resource = new InputStreamResource(new ByteArrayInputStream(videoBytes));
+        for (HttpRange httpRange : ranges) {
+            long start = httpRange.getRangeStart(fileSize);
+            long end = cappedEnd(httpRange, start, httpRange.getRangeEnd(fileSize));
+            long count = end - start + 1;
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("Content-Type", "video/mp4");
-            headers.add("Accept-Ranges", "bytes");
-            headers.add("Content-Range", "bytes " + start + "-" + end + "/" + fileSize);
-            headers.add("Content-Length", String.valueOf(contentLength));
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + VIDEO_CONTENT_TYPE + "\r\n"
+                    + "Content-Range: bytes " + start + "-" + end + "/" + fileSize + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+
+            parts.add(() -> new ByteArrayInputStream(partHeader));
+            parts.add(() -> new FileRegionInputStream(videoFile, start, count));
+            contentLength += partHeader.length + count;
+        }
+
+        byte[] closing = ("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII);
+        parts.add(() -> new ByteArrayInputStream(closing));
+        contentLength += closing.length;
+
+        headers.add("Content-Type", "multipart/byteranges; boundary=" + boundary);
+        headers.add("Content-Length", String.valueOf(contentLength));
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new InputStreamResource(() -> openParts(parts)));
+    }
+
+    // Only "bytes=N-" is capped, a range with an explicit end or a suffix length gets what it asked for
+    private long cappedEnd(HttpRange httpRange, long start, long end) {
+        return isOpenEnded(httpRange) ? Math.min(end, start + chunkSize - 1) : end;
+    }
+
+    // An open-ended range starts at the same byte and ends at the last one whatever the length of the file
+    private boolean isOpenEnded(HttpRange httpRange) {
+        return httpRange.getRangeStart(Long.MAX_VALUE) == httpRange.getRangeStart(Long.MAX_VALUE - 1)
+                && httpRange.getRangeEnd(Long.MAX_VALUE) == Long.MAX_VALUE - 1;
+    }
+
+    private CacheControl cacheControl() {
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(cacheMaxAge));
+        return cachePublic ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid Range header {}: {}", range, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private boolean preconditionsHold(HttpHeaders requestHeaders, String etag, long lastModified) {
+        List<String> ifMatch = requestHeaders.getIfMatch();
+        if (!ifMatch.isEmpty()) {
+            return ifMatch.stream().anyMatch(candidate -> candidate.equals("*") || candidate.equals(etag));
+        }
+        long ifUnmodifiedSince = requestHeaders.getIfUnmodifiedSince();
+        return ifUnmodifiedSince == -1 || toSeconds(lastModified) <= toSeconds(ifUnmodifiedSince);
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream()
+                    .anyMatch(candidate -> candidate.equals("*") || stripWeak(candidate).equals(etag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince != -1 && toSeconds(lastModified) <= toSeconds(ifModifiedSince);
+    }
+
+    private boolean ifRangeMatches(HttpHeaders requestHeaders, String etag, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return toSeconds(requestHeaders.getFirstDate(HttpHeaders.IF_RANGE)) == toSeconds(lastModified);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private long toSeconds(long millis) {
+        return millis / 1000;
+    }
+
+    private InputStream openParts(List<InputStreamSource> parts) {
+        Iterator<InputStreamSource> iterator = parts.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return iterator.next().getInputStream();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    private static class FileRegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        FileRegionInputStream(File file, long position, long count) throws IOException {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.position = position;
+            this.remaining = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, remaining)), position);
+            if (read > 0) {
+                position += read;
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+                transferred += sent;
+            }
+            return transferred;
+        }
 
-            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT) // Important for streaming
-                    .headers(headers)
-                    .body(resource);
+        @Override
+        public void close() throws IOException {
+            channel.close();
         }
     }
 }
@@ -0,0 +1,86 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.videos.dtos.ArecVideosResponseDto;
+import co.edu.javeriana.lms.videos.models.Video;
+import co.edu.javeriana.lms.videos.repositories.VideoRepository;
+import co.edu.javeriana.lms.videos.services.ArecService;
+
+// Videos associated per second from the recordings fixture, with every repository call costing one database
+// round-trip. Batches of one stand for the per-video association, which took four round-trips instead of three
+@Tag(Benchmarks.TAG)
+public class ArecAssociationBenchmark {
+
+    private static final int VIDEOS = 2000;
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAssociationThroughput() throws Exception {
+        List<ArecVideosResponseDto.Video> template = new Gson().fromJson(
+                Files.readString(Paths.get("src/test/resources/arecVideosResponse.json")),
+                ArecVideosResponseDto.class).getResult();
+        List<ArecVideosResponseDto.Video> videos = new ArrayList<>();
+        for (int i = 0; i < VIDEOS; i++) {
+            ArecVideosResponseDto.Video source = template.get(i % template.size());
+            videos.add(new ArecVideosResponseDto.Video((long) i, source.getName() + "_" + i, source.getLength(),
+                    source.getRecordedAt(), source.getFinishedAt(), source.getStatus(), source.getMetadata()));
+        }
+
+        VideoRepository videoRepository = mock(VideoRepository.class);
+        SimulationRepository simulationRepository = mock(SimulationRepository.class);
+        when(videoRepository.findExistingNames(any())).thenAnswer(invocation -> roundTrip(Set.of()));
+        when(simulationRepository.findIntervalsByRoomIdWithin(eq(1L), any(), any()))
+                .thenAnswer(invocation -> roundTrip(List.of()));
+        when(videoRepository.insertIgnoringExisting(any()))
+                .thenAnswer(invocation -> roundTrip(invocation.<List<Video>>getArgument(0).size()));
+
+        ArecService arecService = new ArecService();
+        ReflectionTestUtils.setField(arecService, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(arecService, "simulationRepository", simulationRepository);
+
+        for (int batchSize : new int[] { 1, 50, 500 }) {
+            roundTrips.set(0);
+            long start = System.nanoTime();
+            int inserted = 0;
+            for (int i = 0; i < videos.size(); i += batchSize) {
+                inserted += arecService.associateVideosWithSimulations(1L,
+                        videos.subList(i, Math.min(i + batchSize, videos.size())));
+            }
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            assertEquals(VIDEOS, inserted);
+            Benchmarks.report("Batches of %d: %d videos in %d ms, %d videos/s, %d round-trips", batchSize, inserted,
+                    elapsedMillis, inserted * 1000L / elapsedMillis, roundTrips.get());
+        }
+    }
+
+    private <T> T roundTrip(T result) {
+        roundTrips.incrementAndGet();
+        LockSupport.parkNanos(ROUND_TRIP_NANOS);
+        return result;
+    }
+}
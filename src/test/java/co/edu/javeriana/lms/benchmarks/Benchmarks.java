@@ -0,0 +1,38 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import java.util.Arrays;
+
+// Timing helpers for the tests tagged "benchmark", which only run with mvn test -Pbenchmark
+final class Benchmarks {
+
+    static final String TAG = "benchmark";
+
+    private Benchmarks() {
+    }
+
+    // Average nanoseconds per run, after a tenth of the runs to warm up
+    static long nanosPerRun(int runs, Runnable run) {
+        for (int i = 0; i < runs / 10; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    static long percentile(long[] samples, double percentile) {
+        if (samples.length == 0) {
+            return 0;
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    static void report(String format, Object... args) {
+        System.out.printf("[benchmark] " + format + "%n", args);
+    }
+}
@@ -0,0 +1,80 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.shared.services.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Token work done by JwtAuthenticationFilter and AuthorizationInterceptor for one request
+@Tag(Benchmarks.TAG)
+public class JwtFilterBenchmark {
+
+    private static final String SIGNING_KEY = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final int RUNS = 20000;
+
+    @Test
+    public void testTokenWorkPerRequest() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtPrivateKey", SIGNING_KEY);
+        ReflectionTestUtils.setField(jwtService, "meterRegistry", new SimpleMeterRegistry());
+        jwtService.init();
+        User user = User.builder()
+                .id(1L)
+                .email("student@javeriana.edu.co")
+                .password("encodedPassword")
+                .roles(Set.of(Role.ESTUDIANTE))
+                .build();
+        String token = jwtService.generateToken(user);
+
+        // Username, username and expiration, then user id and roles, each with a key decoded again
+        long legacy = Benchmarks.nanosPerRun(RUNS, () -> {
+            for (int i = 0; i < 5; i++) {
+                Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SIGNING_KEY))).build()
+                        .parseSignedClaims(token).getPayload();
+            }
+        });
+        long cached = Benchmarks.nanosPerRun(RUNS, () -> filterChain(jwtService, token));
+
+        // A token the cache has not seen, as on the first request after a login
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < RUNS + RUNS / 10; i++) {
+            tokens.add(Jwts.builder()
+                    .subject(user.getEmail())
+                    .claim("id", (long) i)
+                    .claim("roles", List.of("ESTUDIANTE"))
+                    .expiration(new Date(System.currentTimeMillis() + 3600000))
+                    .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SIGNING_KEY)))
+                    .compact());
+        }
+        int[] next = { 0 };
+        long firstRequest = Benchmarks.nanosPerRun(RUNS, () -> filterChain(jwtService, tokens.get(next[0]++)));
+
+        Benchmarks.report("Token work per request: %d ns with five verifications and key decodes, "
+                + "%d ns for a token seen before, %d ns for a new token", legacy, cached, firstRequest);
+    }
+
+    private void filterChain(JwtService jwtService, String token) {
+        String userName = jwtService.extractUserName(token);
+        jwtService.isTokenValid(token, jwtService.extractPrincipal(token));
+        jwtService.extractUserId(token);
+        jwtService.extractRoles(token);
+        jwtService.extractMembership(token);
+        if (userName == null) {
+            throw new IllegalStateException("Token without subject");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import co.edu.javeriana.lms.accounts.services.LoginThrottleService;
+import co.edu.javeriana.lms.shared.errors.RetryLaterException;
+
+// Latency of a cheap endpoint while most request threads are busy logging students in, with BCrypt on the request
+// threads as login used to run, and on the bounded login pool
+@Tag(Benchmarks.TAG)
+public class LoginStormBenchmark {
+
+    // Tomcat's default, each storm client holds one of them like an in-flight login request does
+    private static final int REQUEST_THREADS = 200;
+    private static final int STORM_CLIENTS = 150;
+    private static final Duration PHASE = Duration.ofSeconds(5);
+    private static final long PROBE_INTERVAL_MILLIS = 10;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
+    private final String hash = passwordEncoder.encode("password");
+
+    // Stands for the work of a request that does not log in
+    private final long[] payload = new Random(42).longs(5000).toArray();
+
+    @Test
+    public void testOtherEndpointsDuringLoginStorm() throws Exception {
+        Phase quiet = run(null);
+        Phase inline = run(() -> passwordEncoder.matches("password", hash));
+
+        LoginThrottleService loginThrottleService = new LoginThrottleService();
+        Phase bounded;
+        try {
+            bounded = run(() -> {
+                try {
+                    loginThrottleService.runBounded(() -> passwordEncoder.matches("password", hash));
+                } catch (RetryLaterException e) {
+                    // A 503 returns the request thread at once, the client retries on its next loop
+                }
+            });
+        } finally {
+            loginThrottleService.shutdown();
+        }
+
+        report("no logins", quiet);
+        report("BCrypt on request threads", inline);
+        report("BCrypt on the login pool", bounded);
+        assertTrue(Benchmarks.percentile(bounded.latencies, 99) < Benchmarks.percentile(inline.latencies, 99));
+    }
+
+    private Phase run(Runnable login) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong logins = new AtomicLong();
+        try {
+            if (login != null) {
+                for (int i = 0; i < STORM_CLIENTS; i++) {
+                    requestThreads.submit(() -> {
+                        while (!stop.get()) {
+                            login.run();
+                            logins.incrementAndGet();
+                        }
+                    });
+                }
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            long end = System.nanoTime() + PHASE.toNanos();
+            while (System.nanoTime() < end) {
+                long start = System.nanoTime();
+                Future<Long> request = requestThreads.submit(() -> Arrays.stream(payload.clone()).sorted().sum());
+                request.get();
+                latencies.add(System.nanoTime() - start);
+                Thread.sleep(PROBE_INTERVAL_MILLIS);
+            }
+            return new Phase(latencies.stream().mapToLong(Long::longValue).toArray(),
+                    logins.get() / PHASE.toSeconds());
+        } finally {
+            stop.set(true);
+            requestThreads.shutdown();
+            requestThreads.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void report(String phase, Phase result) {
+        Benchmarks.report("%s: other endpoints p50 %.2f ms, p99 %.2f ms, %d logins/s", phase,
+                Benchmarks.percentile(result.latencies, 50) / 1e6, Benchmarks.percentile(result.latencies, 99) / 1e6,
+                result.loginsPerSecond);
+    }
+
+    private static class Phase {
+        private final long[] latencies;
+        private final long loginsPerSecond;
+
+        Phase(long[] latencies, long loginsPerSecond) {
+            this.latencies = latencies;
+            this.loginsPerSecond = loginsPerSecond;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.shared.dtos.MembershipClaimDto;
+import co.edu.javeriana.lms.shared.services.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Token size and first verification time for users with many class and simulation memberships
+@Tag(Benchmarks.TAG)
+public class MembershipClaimBenchmark {
+
+    private static final String SIGNING_KEY = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final int RUNS = 2000;
+
+    private final User user = User.builder()
+            .id(1L)
+            .email("student@javeriana.edu.co")
+            .password("encodedPassword")
+            .roles(Set.of(Role.ESTUDIANTE))
+            .build();
+
+    @Test
+    public void testMembershipClaimCost() {
+        // The first pass only warms up the parser and the claim decoding, each pass starts with an empty cache
+        measure(newJwtService(), false);
+        measure(newJwtService(), true);
+    }
+
+    private void measure(JwtService jwtService, boolean report) {
+        Random random = new Random(42);
+        for (int memberships : new int[] { 100, 300, 1000 }) {
+            long[] classIds = ids(random, memberships / 4);
+            long[] simulationIds = ids(random, memberships - memberships / 4);
+            MembershipClaimDto membership = new MembershipClaimDto(classIds, new long[0], simulationIds,
+                    System.currentTimeMillis());
+
+            String encoded = jwtService.generateToken(user, membership);
+            String json = Jwts.builder()
+                    .claims(Map.of("id", 1L, "roles", List.of("ESTUDIANTE"), "mbr", Map.of(
+                            "sc", Arrays.stream(classIds).boxed().toList(),
+                            "pc", List.of(),
+                            "s", Arrays.stream(simulationIds).boxed().toList())))
+                    .subject(user.getEmail())
+                    .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SIGNING_KEY)))
+                    .compact();
+
+            // Each token is new to the service, so every run verifies the signature and decodes the ids
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < RUNS + RUNS / 10; i++) {
+                tokens.add(jwtService.generateToken(user, new MembershipClaimDto(classIds, new long[0],
+                        simulationIds, membership.getIssuedAt() + i)));
+            }
+            int[] next = { 0 };
+            long verification = Benchmarks.nanosPerRun(RUNS,
+                    () -> jwtService.extractMembership(tokens.get(next[0]++)).orElseThrow());
+
+            if (report) {
+                Benchmarks.report("%d memberships: %d bytes with delta varint, %d with JSON arrays, %d ns to verify",
+                        memberships, encoded.length(), json.length(), verification);
+            }
+        }
+
+        List<String> plain = new ArrayList<>();
+        for (int i = 0; i < RUNS + RUNS / 10; i++) {
+            plain.add(jwtService.generateToken(User.builder()
+                    .id((long) i)
+                    .email(user.getEmail())
+                    .roles(user.getRoles())
+                    .build()));
+        }
+        int[] nextPlain = { 0 };
+        long plainVerification = Benchmarks.nanosPerRun(RUNS,
+                () -> jwtService.extractUserName(plain.get(nextPlain[0]++)));
+        if (report) {
+            Benchmarks.report("No memberships: %d bytes, %d ns to verify", plain.get(0).length(),
+                    plainVerification);
+        }
+    }
+
+    private long[] ids(Random random, int count) {
+        return random.longs(count, 1, 100000).sorted().distinct().toArray();
+    }
+
+    private JwtService newJwtService() {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "jwtPrivateKey", SIGNING_KEY);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+}
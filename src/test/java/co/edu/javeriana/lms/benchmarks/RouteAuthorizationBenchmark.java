@@ -0,0 +1,68 @@
+package co.edu.javeriana.lms.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import co.edu.javeriana.lms.config.security.AuthorizationInterceptor;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable;
+
+// Resource resolution per request across the routes the interceptor is registered on
+@Tag(Benchmarks.TAG)
+public class RouteAuthorizationBenchmark {
+
+    private static final List<String> ROUTES = List.of(
+            "/class/all", "/class/12/member/all", "/class/12/member/students", "/class/12/member/professors",
+            "/class/12/member/all/outside", "/class/12/member/students/outside",
+            "/class/12/member/professors/outside", "/class/12", "/class/delete/12", "/class/delete/12/member/7",
+            "/class/update/12", "/class/update/12/members", "/class/update/12/members/professor/7",
+            "/class/update/12/members/student/7", "/class/add", "/class/add/excel", "/class/all/professor",
+            "/class/all/student", "/simulation/all", "/simulation/34", "/simulation/schedule",
+            "/practice/all", "/practice/56", "/practice/class/12", "/practice/add/12", "/practice/56/rubric/3",
+            "/practice/56/enrolled", "/grade/class/12", "/grade/student/12", "/grade/class/12/percentages");
+
+    private static final int RUNS = 20000;
+
+    @Test
+    public void testResolutionCost() {
+        RouteAuthorizationTable table = AuthorizationInterceptor.ROUTES;
+
+        long legacy = Benchmarks.nanosPerRun(RUNS, () -> ROUTES.forEach(this::legacyChecks));
+        long compiled = Benchmarks.nanosPerRun(RUNS, () -> ROUTES.forEach(table::resolve));
+
+        Benchmarks.report("Route resolution per request: %d ns with regex scans, %d ns with the route table",
+                legacy / ROUTES.size(), compiled / ROUTES.size());
+    }
+
+    // The scans the interceptor used to run, compiling each pattern on every request
+    private List<Long> legacyChecks(String uri) {
+        List<Long> checks = new ArrayList<>();
+        if (uri.contains("/practice/")) {
+            addCheck(checks, "/practice/(\\d+)", uri);
+        }
+        if (uri.contains("/grade/")) {
+            addCheck(checks, "/grade/class/(\\d+)", uri);
+        }
+        if (uri.contains("/member/")) {
+            addCheck(checks, "/class/(\\d+)/member", uri);
+        }
+        if (uri.contains("/class/")) {
+            addCheck(checks, "/class/(\\d+)", uri);
+        }
+        if (uri.contains("/simulation/")) {
+            addCheck(checks, "/simulation/(\\d+)", uri);
+        }
+        return checks;
+    }
+
+    private void addCheck(List<Long> checks, String regex, String uri) {
+        Matcher matcher = Pattern.compile(regex).matcher(uri);
+        if (matcher.find()) {
+            checks.add(Long.parseLong(matcher.group(1)));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package co.edu.javeriana.lms.integration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import co.edu.javeriana.lms.shared.services.JobLockService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+public class JobLockIntegrationTest {
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    public static void setUpAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void AfterAll() {
+        postgres.stop();
+    }
+
+    // A second instance, same database but its own identity
+    private JobLockService otherInstance() {
+        JobLockService other = new JobLockService();
+        ReflectionTestUtils.setField(other, "jdbcTemplate", jdbcTemplate);
+        return other;
+    }
+
+    @Test
+    public void testLockIsHeldByOneInstance() {
+        JobLockService other = otherInstance();
+
+        assertTrue(jobLockService.tryLock("job-held", Duration.ofMinutes(1)));
+        assertFalse(other.tryLock("job-held", Duration.ofMinutes(1)));
+        assertFalse(jobLockService.tryLock("job-held", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testUnlockReleasesLock() {
+        JobLockService other = otherInstance();
+
+        assertTrue(jobLockService.tryLock("job-released", Duration.ofMinutes(1)));
+        jobLockService.unlock("job-released", Duration.ZERO);
+
+        assertTrue(other.tryLock("job-released", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testUnlockKeepsLockAtLeastFor() {
+        JobLockService other = otherInstance();
+
+        assertTrue(jobLockService.tryLock("job-kept", Duration.ofMinutes(1)));
+        jobLockService.unlock("job-kept", Duration.ofMinutes(5));
+
+        assertFalse(other.tryLock("job-kept", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testOnlyOwnerCanUnlock() {
+        JobLockService other = otherInstance();
+
+        assertTrue(jobLockService.tryLock("job-owned", Duration.ofMinutes(1)));
+        other.unlock("job-owned", Duration.ZERO);
+
+        assertFalse(other.tryLock("job-owned", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testExpiredLockCanBeTaken() throws InterruptedException {
+        JobLockService other = otherInstance();
+
+        assertTrue(jobLockService.tryLock("job-expired", Duration.ofSeconds(1)));
+        Thread.sleep(1500);
+
+        assertTrue(other.tryLock("job-expired", Duration.ofMinutes(1)));
+    }
+}
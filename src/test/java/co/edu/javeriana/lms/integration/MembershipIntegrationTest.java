@@ -0,0 +1,112 @@
+package co.edu.javeriana.lms.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.practices.models.Simulation;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
+import co.edu.javeriana.lms.subjects.models.ClassModel;
+import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@Transactional
+public class MembershipIntegrationTest {
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    public static void setUpAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void AfterAll() {
+        postgres.stop();
+    }
+
+    @Test
+    public void testClassMembershipMatchesRosters() {
+        List<User> users = userRepository.findAll();
+        List<ClassModel> classes = classRepository.findAll();
+        assertFalse(classes.isEmpty());
+
+        for (ClassModel classModel : classes) {
+            for (User user : users) {
+                int expected = ClassMembership.EXISTS
+                        | (contains(classModel.getStudents(), user) ? ClassMembership.STUDENT : 0)
+                        | (contains(classModel.getProfessors(), user) ? ClassMembership.PROFESSOR : 0)
+                        | (isCoordinator(classModel, user) ? ClassMembership.COORDINATOR : 0);
+
+                assertEquals(expected, classRepository.findMembership(classModel.getClassId(), user.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testSimulationMembershipMatchesRosters() {
+        List<User> users = userRepository.findAll();
+
+        for (Simulation simulation : simulationRepository.findAll()) {
+            ClassModel classModel = simulation.getPractice().getClassModel();
+            for (User user : users) {
+                int expected = ClassMembership.EXISTS
+                        | (contains(simulation.getUsers(), user) ? ClassMembership.STUDENT : 0)
+                        | (contains(classModel.getProfessors(), user) ? ClassMembership.PROFESSOR : 0)
+                        | (isCoordinator(classModel, user) ? ClassMembership.COORDINATOR : 0);
+
+                assertEquals(expected, simulationRepository.findMembership(simulation.getSimulationId(), user.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testMissingResourceHasNoMembership() {
+        assertEquals(0, classRepository.findMembership(-1L, 1L));
+        assertEquals(0, simulationRepository.findMembership(-1L, 1L));
+    }
+
+    private boolean contains(List<User> members, User user) {
+        return members.stream().anyMatch(member -> member.getId().equals(user.getId()));
+    }
+
+    private boolean isCoordinator(ClassModel classModel, User user) {
+        return classModel.getCourse().getCoordinator().getId().equals(user.getId());
+    }
+}
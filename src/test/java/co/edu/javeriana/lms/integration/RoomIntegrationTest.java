@@ -93,6 +93,31 @@ public class RoomIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Rooms retrieved successfully"));
     }
 
+    @Test
+    @Order(1)
+    public void testGetFreeRooms_Integration() throws Exception {
+        mockMvc.perform(get("/room/free")
+                .param("start", "2030-03-04 08:00")
+                .param("end", "2030-03-04 18:00")
+                .param("duration", "60")
+                .param("minCapacity", "5")
+                .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Free rooms retrieved successfully"))
+                .andExpect(jsonPath("$.data[0].windows[0]").exists());
+    }
+
+    @Test
+    @Order(1)
+    public void testGetFreeRooms_Integration_InvalidRange() throws Exception {
+        mockMvc.perform(get("/room/free")
+                .param("start", "2030-03-04 18:00")
+                .param("end", "2030-03-04 08:00")
+                .param("duration", "60")
+                .header("Authorization", token))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Order(2)
     public void testUpdateRoom_Integration_Success() throws Exception {
@@ -0,0 +1,162 @@
+package co.edu.javeriana.lms.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.booking.models.RoomType;
+import co.edu.javeriana.lms.booking.repositories.RoomRepository;
+import co.edu.javeriana.lms.booking.repositories.RoomTypeRepository;
+import co.edu.javeriana.lms.practices.dtos.SimulationByTimeSlotDto;
+import co.edu.javeriana.lms.practices.models.Practice;
+import co.edu.javeriana.lms.practices.models.PracticeType;
+import co.edu.javeriana.lms.practices.models.Simulation;
+import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
+import co.edu.javeriana.lms.practices.services.SimulationService;
+import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@Transactional
+public class SimulationBulkIntegrationTest {
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private PracticeRepository practiceRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @BeforeAll
+    public static void setUpAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void AfterAll() {
+        postgres.stop();
+    }
+
+    @Test
+    public void testTwoHundredGroupsAcrossTenRooms() {
+        List<SimulationByTimeSlotDto> slots = twoHundredGroupsAcrossTenRooms();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Simulation> simulations = simulationService.addSimulations(slots);
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(200, simulations.size());
+        assertEquals(200, simulations.stream().map(Simulation::getGroupNumber).distinct().count());
+        // One statement per simulation and room row would be over 400
+        assertTrue(statements < 40);
+    }
+
+    // Only runs with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    public void testTwoHundredGroupsAcrossTenRoomsTiming() {
+        List<SimulationByTimeSlotDto> slots = twoHundredGroupsAcrossTenRooms();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        List<Simulation> simulations = simulationService.addSimulations(slots);
+        entityManager.flush();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(200, simulations.size());
+        System.out.printf("[benchmark] Created %d simulations in %d ms with %d statements%n", simulations.size(),
+                elapsedMillis, statistics.getPrepareStatementCount());
+    }
+
+    private List<SimulationByTimeSlotDto> twoHundredGroupsAcrossTenRooms() {
+        Practice practice = practiceRepository.save(Practice.builder()
+                .name("Práctica masiva")
+                .description("200 grupos en 10 salas")
+                .type(PracticeType.GRUPAL)
+                .gradeable(true)
+                .numberOfGroups(200)
+                .maxStudentsGroup(3)
+                .simulationDuration(30)
+                .gradePercentage(10f)
+                .classModel(classRepository.findAll().get(0))
+                .build());
+        RoomType roomType = roomTypeRepository.findAll().get(0);
+
+        // Each room runs twenty back to back groups of thirty minutes
+        Instant day = Instant.parse("2031-01-06T07:00:00Z");
+        List<SimulationByTimeSlotDto> slots = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Room room = roomRepository.save(Room.builder()
+                    .name("Sala masiva " + i)
+                    .capacity(10)
+                    .ip("10.10.0." + i)
+                    .type(roomType)
+                    .build());
+            slots.add(SimulationByTimeSlotDto.builder()
+                    .practiceId(practice.getId())
+                    .roomIds(List.of(room.getId()))
+                    .startDateTime(Date.from(day))
+                    .endDateTime(Date.from(day.plus(600, ChronoUnit.MINUTES)))
+                    .build());
+        }
+        entityManager.flush();
+        return slots;
+    }
+}
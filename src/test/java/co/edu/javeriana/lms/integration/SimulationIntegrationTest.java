@@ -286,6 +286,31 @@ public class SimulationIntegrationTest {
                 .andExpect(jsonPath("$.data", is(not(empty()))));
     }
 
+    @Test
+    public void testFindSimulationsScheduleRange() throws Exception {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+        LocalDate monday = LocalDate.now().minusWeeks(2).with(DayOfWeek.MONDAY);
+
+        mockMvc.perform(get("/simulation/schedule")
+                .header("Authorization", token)
+                .param("start", monday.format(formatter))
+                .param("end", monday.plusDays(6).format(formatter)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(200)))
+                .andExpect(jsonPath("$.data", is(not(empty()))))
+                .andExpect(jsonPath("$.data[0].room", is(notNullValue())));
+    }
+
+    @Test
+    public void testFindSimulationsScheduleRangeTooLong() throws Exception {
+        mockMvc.perform(get("/simulation/schedule")
+                .header("Authorization", token)
+                .param("start", "2025-01-01")
+                .param("end", "2025-12-31"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testFindSimulationStudents() throws Exception {
         Long simulationId = 1L; // ID de simulación existente
@@ -310,6 +335,7 @@ public class SimulationIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status", is(200)))
                 .andExpect(jsonPath("$.data", is(not(empty()))))
+                .andExpect(jsonPath("$.data[0].enrolledStudents", is(greaterThanOrEqualTo(0))))
                 .andExpect(jsonPath("$.metadata.total", is(greaterThan(0))));
     }
 }
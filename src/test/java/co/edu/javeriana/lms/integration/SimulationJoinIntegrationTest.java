@@ -0,0 +1,244 @@
+package co.edu.javeriana.lms.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.practices.dtos.EnrollmentRequestDto;
+import co.edu.javeriana.lms.practices.models.EnrollmentStatus;
+import co.edu.javeriana.lms.practices.models.Practice;
+import co.edu.javeriana.lms.practices.models.PracticeType;
+import co.edu.javeriana.lms.practices.models.Simulation;
+import co.edu.javeriana.lms.practices.repositories.EnrollmentRequestRepository;
+import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.practices.services.EnrollmentQueueService;
+import co.edu.javeriana.lms.practices.services.SimulationService;
+import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+public class SimulationJoinIntegrationTest {
+
+    private static final int JOINS = 1000;
+    private static final int GROUP_SIZE = 10;
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private EnrollmentQueueService enrollmentQueueService;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private PracticeRepository practiceRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EnrollmentRequestRepository enrollmentRequestRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    public static void setUpAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void AfterAll() {
+        postgres.stop();
+    }
+
+    @Test
+    public void testThousandParallelJoinsNeverOverbook() throws Exception {
+        Practice practice = practice("Práctica concurrida", 5, GROUP_SIZE);
+        List<Simulation> simulations = simulations(practice, 5);
+        Long fullGroupId = simulations.get(4).getSimulationId();
+        List<User> students = students("concurrente", JOINS);
+
+        // The first ten students start in the last group, joining another one moves them out of it
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            simulationService.joinSimulation(fullGroupId, students.get(i).getId());
+        }
+
+        // Everyone races for one of the four other groups at once
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < JOINS; i++) {
+            Long simulationId = simulations.get(i % 4).getSimulationId();
+            Long userId = students.get(i).getId();
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    simulationService.joinSimulation(simulationId, userId);
+                    joined.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4 * GROUP_SIZE, joined.get());
+        assertEquals(JOINS - 4 * GROUP_SIZE, rejected.get());
+        for (Simulation simulation : simulations) {
+            Long id = simulation.getSimulationId();
+            Integer members = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM simulation_users WHERE simulation_id = ?", Integer.class, id);
+            Integer seatsTaken = jdbcTemplate.queryForObject(
+                    "SELECT seats_taken FROM simulation WHERE simulation_id = ?", Integer.class, id);
+            assertTrue(members <= GROUP_SIZE);
+            assertEquals(members, seatsTaken);
+        }
+        // Nobody is in two groups of the practice
+        Integer enrolled = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM simulation_users su "
+                + "JOIN simulation s ON s.simulation_id = su.simulation_id WHERE s.practice_id = ?",
+                Integer.class, practice.getId());
+        Integer distinctStudents = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT su.id) FROM simulation_users su "
+                + "JOIN simulation s ON s.simulation_id = su.simulation_id WHERE s.practice_id = ?",
+                Integer.class, practice.getId());
+        assertEquals(distinctStudents, enrolled);
+    }
+
+    @Test
+    public void testQueuedJoinsAreWaitlistedAndPromoted() {
+        Practice practice = practice("Práctica en cola", 1, 2);
+        Long simulationId = simulations(practice, 1).get(0).getSimulationId();
+        List<User> students = students("encola", 5);
+
+        List<Long> requestIds = new ArrayList<>();
+        for (User student : students) {
+            EnrollmentRequestDto request = enrollmentQueueService.enqueue(simulationId, student.getId());
+            assertEquals(EnrollmentStatus.PENDING, request.getStatus());
+            requestIds.add(request.getId());
+        }
+
+        enrollmentQueueService.processQueue();
+
+        assertEquals(EnrollmentStatus.ENROLLED, status(requestIds.get(0), students.get(0)).getStatus());
+        assertEquals(EnrollmentStatus.ENROLLED, status(requestIds.get(1), students.get(1)).getStatus());
+        for (int i = 2; i < 5; i++) {
+            EnrollmentRequestDto waitlisted = status(requestIds.get(i), students.get(i));
+            assertEquals(EnrollmentStatus.WAITLISTED, waitlisted.getStatus());
+            assertEquals(i - 1, waitlisted.getPosition());
+        }
+
+        // The seat freed by a student leaving goes to the first one on the waitlist, and only once even when the
+        // waitlists are updated again before the promoted request is joined
+        simulationService.leaveSimulation(simulationId, students.get(0).getId());
+        assertEquals(1, enrollmentRequestRepository.promoteWaitlisted());
+        assertEquals(0, enrollmentRequestRepository.promoteWaitlisted());
+        enrollmentQueueService.processQueue();
+
+        assertEquals(EnrollmentStatus.ENROLLED, status(requestIds.get(2), students.get(2)).getStatus());
+        assertEquals(1L, status(requestIds.get(3), students.get(3)).getPosition());
+        assertEquals(2L, status(requestIds.get(4), students.get(4)).getPosition());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT seats_taken FROM simulation WHERE simulation_id = ?", Integer.class, simulationId));
+    }
+
+    private EnrollmentRequestDto status(Long requestId, User student) {
+        return enrollmentQueueService.findRequest(requestId, student.getId());
+    }
+
+    private Practice practice(String name, int groups, int groupSize) {
+        return practiceRepository.save(Practice.builder()
+                .name(name)
+                .description(groups + " grupos de " + groupSize)
+                .type(PracticeType.GRUPAL)
+                .gradeable(true)
+                .numberOfGroups(groups)
+                .maxStudentsGroup(groupSize)
+                .simulationDuration(60)
+                .gradePercentage(10f)
+                .classModel(classRepository.findAll().get(0))
+                .build());
+    }
+
+    private List<Simulation> simulations(Practice practice, int groups) {
+        Instant start = Instant.now().plus(7, ChronoUnit.DAYS);
+        List<Simulation> simulations = new ArrayList<>();
+        for (int group = 1; group <= groups; group++) {
+            simulations.add(Simulation.builder()
+                    .practice(practice)
+                    .groupNumber(group)
+                    .startDateTime(Date.from(start.plus(group, ChronoUnit.HOURS)))
+                    .endDateTime(Date.from(start.plus(group + 1, ChronoUnit.HOURS)))
+                    .build());
+        }
+        return simulationRepository.saveAll(simulations);
+    }
+
+    private List<User> students(String prefix, int count) {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            students.add(User.builder()
+                    .email(prefix + i + "@javeriana.edu.co")
+                    .password("password")
+                    .name("Estudiante")
+                    .lastName(prefix + " " + i)
+                    .institutionalId(prefix + i)
+                    .roles(Set.of(Role.ESTUDIANTE))
+                    .preferredRole(Role.ESTUDIANTE)
+                    .build());
+        }
+        return userRepository.saveAll(students);
+    }
+}
@@ -0,0 +1,436 @@
+package co.edu.javeriana.lms.integration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.booking.repositories.RoomRepository;
+import co.edu.javeriana.lms.grades.dtos.EvaluatedCriteriaDto;
+import co.edu.javeriana.lms.grades.dtos.RubricDto;
+import co.edu.javeriana.lms.practices.dtos.CreateSimulationRequestDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationByTimeSlotDto;
+import co.edu.javeriana.lms.practices.models.Practice;
+import co.edu.javeriana.lms.practices.models.PracticeType;
+import co.edu.javeriana.lms.practices.models.Simulation;
+import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
+import co.edu.javeriana.lms.videos.models.Comment;
+import co.edu.javeriana.lms.videos.models.Video;
+import co.edu.javeriana.lms.videos.repositories.VideoRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+// Every simulation endpoint is called on a small and a large data set, the number of statements must stay the same
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+public class SimulationQueryCountIntegrationTest {
+
+    // A batch load split in two when it crosses the batch fetch size, a query per row would be far above it
+    private static final long SLACK = 2;
+
+    private static final int ROOM_CAPACITY = 11;
+
+    // Each data set gets a day of its own, so its simulations never share a room with another one
+    private static final AtomicInteger DAYS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PracticeRepository practiceRepository;
+
+    @Autowired
+    private SimulationRepository simulationRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    private String token;
+
+    private Statistics statistics;
+
+    @DynamicPropertySource
+    public static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        // The queue worker would join the enrollments made here behind the test's back
+        registry.add("ENROLLMENT_QUEUE_ENABLED", () -> "false");
+    }
+
+    private String getTokenString() throws Exception {
+        String loginRequest = """
+                {
+                    "email": "superadmin@gmail.com",
+                    "password": "superadmin"
+                }
+                """;
+
+        String response = mockMvc.perform(post("/auth/login")
+                .contentType("application/json")
+                .content(loginRequest))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        JsonNode jsonNode = objectMapper.readTree(response);
+        String tokenString = jsonNode.get("data").get("token").asText();
+
+        return "Bearer " + tokenString.trim();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        token = getTokenString();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Caches on the way to the controllers are filled before anything is counted
+        perform(get("/simulation/all").header("Authorization", token));
+    }
+
+    @Test
+    public void testListsDoNotGrowWithThePage() throws Exception {
+        List<Simulation> simulations = simulations(20, 1, 1);
+        Long practiceId = simulations.get(0).getPractice().getId();
+
+        assertConstant("/simulation/all",
+                statements(get("/simulation/all").header("Authorization", token)
+                        .param("page", "0").param("size", "1")),
+                statements(get("/simulation/all").header("Authorization", token)
+                        .param("page", "0").param("size", "20")));
+        assertConstant("/simulation/practice/{practiceId}",
+                statements(get("/simulation/practice/{practiceId}", practiceId).header("Authorization", token)
+                        .param("page", "0").param("size", "1")),
+                statements(get("/simulation/practice/{practiceId}", practiceId).header("Authorization", token)
+                        .param("page", "0").param("size", "20")));
+        assertConstant("/simulation/practice/{practiceId}/available",
+                statements(get("/simulation/practice/{practiceId}/available", practiceId)
+                        .header("Authorization", token).param("page", "0").param("size", "1")),
+                statements(get("/simulation/practice/{practiceId}/available", practiceId)
+                        .header("Authorization", token).param("page", "0").param("size", "20")));
+
+        // Listings carry the practice id, the rooms and the seat count, never the videos or the practice itself
+        mockMvc.perform(get("/simulation/practice/{practiceId}", practiceId)
+                .header("Authorization", token)
+                .param("page", "0")
+                .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(20)))
+                .andExpect(jsonPath("$.data[0].practiceId", is(practiceId.intValue())))
+                .andExpect(jsonPath("$.data[0].rooms", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].enrolledStudents", is(1)))
+                .andExpect(jsonPath("$.data[0].videos").doesNotExist())
+                .andExpect(jsonPath("$.data[0].practice").doesNotExist());
+    }
+
+    @Test
+    public void testDetailsDoNotGrowWithTheSimulation() throws Exception {
+        Long small = simulations(1, 1, 1).get(0).getSimulationId();
+        Long large = simulations(1, 10, 10).get(0).getSimulationId();
+
+        assertConstant("/simulation/{id}",
+                statements(get("/simulation/{id}", small).header("Authorization", token)),
+                statements(get("/simulation/{id}", large).header("Authorization", token)));
+        assertConstant("/simulation/{id}/users",
+                statements(get("/simulation/{id}/users", small).header("Authorization", token)),
+                statements(get("/simulation/{id}/users", large).header("Authorization", token)));
+
+        mockMvc.perform(get("/simulation/{id}", large)
+                .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.videos", hasSize(10)))
+                .andExpect(jsonPath("$.data.videos[0].comments", hasSize(3)))
+                .andExpect(jsonPath("$.data.rooms", hasSize(2)));
+    }
+
+    @Test
+    public void testDaysDoNotGrowWithTheirSimulations() throws Exception {
+        List<Simulation> quiet = simulations(2, 1, 1);
+        List<Simulation> busy = simulations(20, 1, 1);
+        String quietDay = day(quiet).toString();
+        String busyDay = day(busy).toString();
+
+        assertConstant("/simulation/{id}/candidates",
+                statements(get("/simulation/{id}/candidates", quiet.get(0).getSimulationId())
+                        .header("Authorization", token)),
+                statements(get("/simulation/{id}/candidates", busy.get(0).getSimulationId())
+                        .header("Authorization", token)));
+        assertConstant("/simulation/schedule",
+                statements(get("/simulation/schedule").header("Authorization", token).param("date", quietDay)),
+                statements(get("/simulation/schedule").header("Authorization", token).param("date", busyDay)));
+        assertConstant("/simulation/schedule?start&end",
+                statements(get("/simulation/schedule").header("Authorization", token)
+                        .param("start", quietDay).param("end", quietDay)),
+                statements(get("/simulation/schedule").header("Authorization", token)
+                        .param("start", busyDay).param("end", busyDay)));
+
+        mockMvc.perform(get("/simulation/{id}/candidates", busy.get(0).getSimulationId())
+                .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(19)));
+    }
+
+    @Test
+    public void testChangesDoNotGrowWithTheSimulation() throws Exception {
+        Simulation small = simulations(1, 1, 1).get(0);
+        Simulation large = simulations(1, 8, 10).get(0);
+
+        assertConstant("POST /simulation/{id}/enroll",
+                statementsOnce(post("/simulation/{id}/enroll", small.getSimulationId())
+                        .header("Authorization", token)),
+                statementsOnce(post("/simulation/{id}/enroll", large.getSimulationId())
+                        .header("Authorization", token)));
+        assertConstant("POST /simulation/{id}/join",
+                statementsOnce(post("/simulation/{id}/join", small.getSimulationId())
+                        .header("Authorization", token)),
+                statementsOnce(post("/simulation/{id}/join", large.getSimulationId())
+                        .header("Authorization", token)));
+        assertConstant("POST /simulation/{id}/leave",
+                statementsOnce(post("/simulation/{id}/leave", small.getSimulationId())
+                        .header("Authorization", token)),
+                statementsOnce(post("/simulation/{id}/leave", large.getSimulationId())
+                        .header("Authorization", token)));
+        assertConstant("PUT /simulation/{id}/rubric",
+                statementsOnce(put("/simulation/{id}/rubric", small.getSimulationId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(rubric())),
+                statementsOnce(put("/simulation/{id}/rubric", large.getSimulationId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(rubric())));
+        assertConstant("PUT /simulation/{id}/publish",
+                statementsOnce(put("/simulation/{id}/publish", small.getSimulationId())
+                        .header("Authorization", token)),
+                statementsOnce(put("/simulation/{id}/publish", large.getSimulationId())
+                        .header("Authorization", token)));
+        assertConstant("PUT /simulation/{id}",
+                statementsOnce(put("/simulation/{id}", small.getSimulationId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(moved(small))),
+                statementsOnce(put("/simulation/{id}", large.getSimulationId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(moved(large))));
+        assertConstant("DELETE /simulation/{id}",
+                statementsOnce(delete("/simulation/{id}", small.getSimulationId())
+                        .header("Authorization", token)),
+                statementsOnce(delete("/simulation/{id}", large.getSimulationId())
+                        .header("Authorization", token)));
+    }
+
+    @Test
+    public void testCreationDoesNotGrowWithTheGroups() throws Exception {
+        assertConstant("POST /simulation",
+                statementsOnce(post("/simulation")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(timeSlot(practice("Consultas una", 1), 1))),
+                statementsOnce(post("/simulation")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(timeSlot(practice("Consultas diez", 10), 10))));
+    }
+
+    private static void assertConstant(String endpoint, long few, long many) {
+        assertTrue(many <= few + SLACK,
+                endpoint + " ran " + few + " statements on a small data set and " + many + " on a large one");
+    }
+
+    // Statements of the second of two identical requests, the first one warms up whatever it loads once
+    private long statements(RequestBuilder request) throws Exception {
+        perform(request);
+        return statementsOnce(request);
+    }
+
+    private long statementsOnce(RequestBuilder request) throws Exception {
+        statistics.clear();
+        perform(request);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    // Back to back thirty minute simulations of a new practice in the same two rooms, each with its own students
+    // and videos of three comments
+    private List<Simulation> simulations(int count, int students, int videos) {
+        int day = DAYS.incrementAndGet();
+        LocalDateTime start = LocalDate.now().plusYears(2).plusDays(day).atTime(8, 0);
+        Practice practice = practice("Consultas " + day, count);
+        List<Room> rooms = roomRepository.findAll().subList(0, 2);
+
+        List<Simulation> simulations = new ArrayList<>();
+        for (int group = 0; group < count; group++) {
+            simulations.add(Simulation.builder()
+                    .practice(practice)
+                    .groupNumber(group + 1)
+                    .startDateTime(date(start.plusMinutes(30L * group)))
+                    .endDateTime(date(start.plusMinutes(30L * (group + 1))))
+                    .rooms(new ArrayList<>(rooms))
+                    .users(students("consultas" + day + "g" + group, students))
+                    .build());
+        }
+        simulations = simulationRepository.saveAll(simulations);
+
+        List<Video> saved = new ArrayList<>();
+        for (Simulation simulation : simulations) {
+            for (int i = 0; i < videos; i++) {
+                String name = "consultas-" + simulation.getSimulationId() + "-" + i + ".mp4";
+                saved.add(Video.builder()
+                        .name(name)
+                        .recordingDate(simulation.getStartDateTime())
+                        .duration(600L)
+                        .size(50.0)
+                        .videoUrl("http://localhost/videos/" + name)
+                        .simulation(simulation)
+                        .comments(new ArrayList<>(List.of(
+                                Comment.builder().message("Inicio").timestamp(0L).build(),
+                                Comment.builder().message("Intervención").timestamp(120L).build(),
+                                Comment.builder().message("Cierre").timestamp(540L).build())))
+                        .build());
+            }
+        }
+        videoRepository.saveAll(saved);
+        return simulations;
+    }
+
+    private Practice practice(String name, int groups) {
+        return practiceRepository.save(Practice.builder()
+                .name(name)
+                .description(groups + " grupos")
+                .type(PracticeType.GRUPAL)
+                .gradeable(true)
+                .numberOfGroups(groups)
+                .maxStudentsGroup(ROOM_CAPACITY)
+                .simulationDuration(30)
+                .gradePercentage(10f)
+                .classModel(classRepository.findAll().get(0))
+                .build());
+    }
+
+    private List<User> students(String prefix, int count) {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            students.add(User.builder()
+                    .email(prefix + "e" + i + "@javeriana.edu.co")
+                    .password("password")
+                    .name("Estudiante")
+                    .lastName(prefix + " " + i)
+                    .institutionalId(prefix + "e" + i)
+                    .roles(Set.of(Role.ESTUDIANTE))
+                    .preferredRole(Role.ESTUDIANTE)
+                    .build());
+        }
+        return userRepository.saveAll(students);
+    }
+
+    private String rubric() throws Exception {
+        return objectMapper.writeValueAsString(RubricDto.builder()
+                .evaluatedCriterias(List.of(
+                        EvaluatedCriteriaDto.builder()
+                                .comment("Buen desempeño")
+                                .score(4.0f)
+                                .build()))
+                .total(EvaluatedCriteriaDto.builder()
+                        .comment("Total")
+                        .score(4.5f)
+                        .build())
+                .build());
+    }
+
+    // Later the same day, after every simulation of its data set
+    private String moved(Simulation simulation) throws Exception {
+        LocalDateTime start = day(List.of(simulation)).atTime(20, 0);
+        return objectMapper.writeValueAsString(SimulationByTimeSlotDto.builder()
+                .practiceId(simulation.getPractice().getId())
+                .roomIds(simulation.getRooms().stream().map(Room::getId).toList())
+                .startDateTime(date(start))
+                .endDateTime(date(start.plusMinutes(30)))
+                .build());
+    }
+
+    // One slot on a day of its own that fits every group of the practice
+    private String timeSlot(Practice practice, int groups) throws Exception {
+        LocalDateTime start = LocalDate.now().plusYears(2).plusDays(DAYS.incrementAndGet()).atTime(8, 0);
+        return objectMapper.writeValueAsString(new CreateSimulationRequestDto(List.of(
+                SimulationByTimeSlotDto.builder()
+                        .practiceId(practice.getId())
+                        .roomIds(List.of(roomRepository.findAll().get(0).getId()))
+                        .startDateTime(date(start))
+                        .endDateTime(date(start.plusMinutes(30L * groups)))
+                        .build())));
+    }
+
+    private static LocalDate day(List<Simulation> simulations) {
+        return LocalDate.ofInstant(simulations.get(0).getStartDateTime().toInstant(), ZoneId.systemDefault());
+    }
+
+    private static Date date(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
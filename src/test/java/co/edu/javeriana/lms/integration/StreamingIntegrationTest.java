@@ -1,10 +1,14 @@
 package co.edu.javeriana.lms.integration;
 
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -39,6 +43,33 @@ public class StreamingIntegrationTest {
                 .andExpect(header().string("Accept-Ranges", "bytes"));
     }
 
+    @Test
+    public void testGetVideoStaleIfRangeSendsWholeVideo() throws Exception {
+        String size = String.valueOf(Files.size(Paths.get("src/main/resources/videos/test.mp4")));
+
+        mockMvc.perform(get("/streaming/video/test.mp4")
+                .header("Range", "bytes=0-1024")
+                .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Range"))
+                .andExpect(header().string("Content-Length", size))
+                .andExpect(result -> assertEquals(Long.parseLong(size),
+                        result.getResponse().getContentAsByteArray().length));
+    }
+
+    @Test
+    public void testGetVideoMalformedRangeSendsWholeVideo() throws Exception {
+        String size = String.valueOf(Files.size(Paths.get("src/main/resources/videos/test.mp4")));
+
+        mockMvc.perform(get("/streaming/video/test.mp4")
+                .header("Range", "bytes=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Range"))
+                .andExpect(header().string("Content-Length", size))
+                .andExpect(result -> assertEquals(Long.parseLong(size),
+                        result.getResponse().getContentAsByteArray().length));
+    }
+
     @Test
     public void testGetVideoNotExists() throws Exception {
         mockMvc.perform(get("/streaming/video/notexists.mp4"))
@@ -0,0 +1,162 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import co.edu.javeriana.lms.videos.dtos.ArecVideosResponseDto;
+import co.edu.javeriana.lms.videos.services.ArecReactiveClient;
+
+public class ArecReactiveClientTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    private ArecReactiveClient arecReactiveClient;
+
+    private HttpServer arecServer;
+
+    private final List<Integer> requestedPages = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger logins = new AtomicInteger();
+
+    // Statuses answered before serving the page, one per request
+    private final List<Integer> failures = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        arecReactiveClient = new ArecReactiveClient();
+        ReflectionTestUtils.setField(arecReactiveClient, "webClient", WebClient.builder().build());
+        ReflectionTestUtils.setField(arecReactiveClient, "pageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(arecReactiveClient, "retryBackoffMillis", 10L);
+        ReflectionTestUtils.setField(arecReactiveClient, "AREC_USERNAME", "user");
+        ReflectionTestUtils.setField(arecReactiveClient, "AREC_PASSWORD", "password");
+        startArec();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        arecServer.stop(0);
+    }
+
+    @Test
+    public void testFetchVideosFollowsEveryPage() {
+        List<ArecVideosResponseDto.Video> videos = arecReactiveClient.fetchVideos(arecAddress(), null)
+                .collectList().block();
+
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L), videos.stream().map(ArecVideosResponseDto.Video::getId).toList());
+        assertEquals(List.of(1, 2, 3), requestedPages);
+        assertEquals(1, logins.get());
+    }
+
+    @Test
+    public void testFetchVideosStopsAtWatermark() {
+        List<ArecVideosResponseDto.Video> videos = arecReactiveClient.fetchVideos(arecAddress(), 4L)
+                .collectList().block();
+
+        assertEquals(List.of(6L, 5L), videos.stream().map(ArecVideosResponseDto.Video::getId).toList());
+        assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    public void testFetchVideosLogsInAgainWhenSessionIsRejected() {
+        failures.add(401);
+
+        List<ArecVideosResponseDto.Video> videos = arecReactiveClient.fetchVideos(arecAddress(), 4L)
+                .collectList().block();
+
+        assertEquals(2, videos.size());
+        assertEquals(2, logins.get());
+    }
+
+    @Test
+    public void testFetchVideosRetriesServerErrors() {
+        failures.add(503);
+        failures.add(502);
+
+        List<ArecVideosResponseDto.Video> videos = arecReactiveClient.fetchVideos(arecAddress(), 4L)
+                .collectList().block();
+
+        assertEquals(2, videos.size());
+        assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    public void testFetchVideosDoesNotRetryClientErrors() {
+        failures.add(404);
+
+        assertThrows(WebClientResponseException.NotFound.class,
+                () -> arecReactiveClient.fetchVideos(arecAddress(), null).collectList().block());
+        assertEquals(List.of(), requestedPages);
+    }
+
+    private String arecAddress() {
+        return "localhost:" + arecServer.getAddress().getPort();
+    }
+
+    // Serves the recordings fixture split into pages, newest first like the recorder does
+    private void startArec() throws IOException {
+        JsonObject fixture = JsonParser.parseString(
+                Files.readString(Paths.get("src/test/resources/arecVideosResponse.json"))).getAsJsonObject();
+        JsonArray recordings = fixture.getAsJsonArray("result");
+
+        arecServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        arecServer.createContext("/api/login", exchange -> {
+            logins.incrementAndGet();
+            exchange.getResponseHeaders().add("Set-Cookie", "session=test-session; Max-Age=600");
+            respond(exchange, 200, "{}");
+        });
+        arecServer.createContext("/api/recording", exchange -> {
+            if (!failures.isEmpty()) {
+                respond(exchange, failures.remove(0), "{}");
+                return;
+            }
+
+            int page = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*page=(\\d+)&.*", "$1"));
+            requestedPages.add(page);
+
+            JsonArray result = new JsonArray();
+            for (int i = (page - 1) * PAGE_SIZE; i < Math.min(page * PAGE_SIZE, recordings.size()); i++) {
+                result.add(recordings.get(i));
+            }
+            JsonObject pageInfo = new JsonObject();
+            pageInfo.addProperty("total", recordings.size());
+            pageInfo.addProperty("count", result.size());
+            JsonObject body = new JsonObject();
+            body.add("page_info", pageInfo);
+            body.add("result", result);
+            respond(exchange, 200, body.toString());
+        });
+        arecServer.start();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
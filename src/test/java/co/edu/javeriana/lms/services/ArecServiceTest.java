@@ -1,27 +1,55 @@
 package co.edu.javeriana.lms.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import co.edu.javeriana.lms.practices.dtos.SimulationIntervalDto;
 import co.edu.javeriana.lms.practices.models.Simulation;
 import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
 import co.edu.javeriana.lms.videos.dtos.ArecVideosResponseDto;
+import co.edu.javeriana.lms.videos.models.ArecSyncState;
 import co.edu.javeriana.lms.videos.models.Video;
+import co.edu.javeriana.lms.videos.repositories.ArecSyncStateRepository;
 import co.edu.javeriana.lms.videos.repositories.VideoRepository;
 import co.edu.javeriana.lms.videos.services.ArecService;
 
@@ -38,6 +66,11 @@ public class ArecServiceTest {
     @Mock
     private SimulationRepository simulationRepository;
 
+    @Mock
+    private ArecSyncStateRepository arecSyncStateRepository;
+
+    private HttpServer arecServer;
+
     @Test
     public void testAssociateVideoWithSimulation() throws URISyntaxException, IOException, InterruptedException {
         Long roomId = 1L;
@@ -53,7 +86,7 @@ public class ArecServiceTest {
                 .comments(List.of())
                 .build();
 
-        ArecVideosResponseDto.Video arecVideo = new ArecVideosResponseDto.Video("Test Video", 10.0, new Date(), new Date(),
+        ArecVideosResponseDto.Video arecVideo = new ArecVideosResponseDto.Video(1L, "Test Video", 10.0, new Date(), new Date(),
                 "finished", List.of(new ArecVideosResponseDto.VideoMetadata("Movie", "playbackUrl",
                         "downloadUrl", 10.0, "thumbnail")));
 
@@ -66,4 +99,249 @@ public class ArecServiceTest {
 
         arecService.associateVideoWithSimulation(roomId, arecVideo);
     }
+
+    @Test
+    public void testFetchVideosFollowsEveryPage() throws Exception {
+        List<Integer> requestedPages = startArec(2);
+
+        List<ArecVideosResponseDto.Video> videos = arecService.fetchVideos(arecAddress(), null);
+
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L), videos.stream().map(ArecVideosResponseDto.Video::getId).toList());
+        assertEquals(List.of(1, 2, 3), requestedPages);
+    }
+
+    @Test
+    public void testFetchVideosStopsAtWatermark() throws Exception {
+        List<Integer> requestedPages = startArec(2);
+
+        List<ArecVideosResponseDto.Video> videos = arecService.fetchVideos(arecAddress(), 4L);
+
+        assertEquals(List.of(6L, 5L), videos.stream().map(ArecVideosResponseDto.Video::getId).toList());
+        assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    public void testSyncVideosAdvancesWatermark() throws Exception {
+        startArec(2);
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.of(ArecSyncState.builder()
+                .roomId(1L)
+                .lastRecordingId(3L)
+                .build()));
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+
+        arecService.syncVideos(1L, arecAddress());
+
+        ArgumentCaptor<ArecSyncState> state = ArgumentCaptor.forClass(ArecSyncState.class);
+        verify(arecSyncStateRepository).save(state.capture());
+        assertEquals(6L, state.getValue().getLastRecordingId());
+        assertEquals(recordedAt(6L), state.getValue().getLastRecordedAt());
+        verify(videoRepository).findExistingNames(List.of("Consult2__2025_04_11_14_13_31",
+                "Consult2__2025_01_29_13_02_53", "Consult2__2025_01_28_13_00_29"));
+    }
+
+    @Test
+    public void testSyncVideosKeepsWatermarkBelowRecordingInProgress() throws Exception {
+        startArec(2, recordings -> recordings.get(1).getAsJsonObject().remove("finished_at"));
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+
+        arecService.syncVideos(1L, arecAddress());
+
+        ArgumentCaptor<ArecSyncState> state = ArgumentCaptor.forClass(ArecSyncState.class);
+        verify(arecSyncStateRepository).save(state.capture());
+        assertEquals(4L, state.getValue().getLastRecordingId());
+        assertEquals(recordedAt(4L), state.getValue().getLastRecordedAt());
+        verify(videoRepository).findExistingNames(List.of("Consult2__2025_04_11_14_13_31",
+                "Consult2__2025_01_28_13_00_29", "Consult2__2025_01_17_09_58_37", "Consult2__2024_10_04_14_18_29"));
+    }
+
+    @Test
+    public void testSyncVideosKeepsWatermarkBelowRecordingNotReady() throws Exception {
+        ReflectionTestUtils.setField(arecService, "retryHours", 100000L);
+        startArec(2, recordings -> recordings.get(1).getAsJsonObject().addProperty("status", "waiting"));
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+
+        arecService.syncVideos(1L, arecAddress());
+
+        ArgumentCaptor<ArecSyncState> state = ArgumentCaptor.forClass(ArecSyncState.class);
+        verify(arecSyncStateRepository).save(state.capture());
+        assertEquals(4L, state.getValue().getLastRecordingId());
+        assertEquals(recordedAt(4L), state.getValue().getLastRecordedAt());
+    }
+
+    @Test
+    public void testSyncVideosKeepsWatermarkBelowRecordingWithoutMovie() throws Exception {
+        ReflectionTestUtils.setField(arecService, "retryHours", 100000L);
+        startArec(2, recordings -> {
+            JsonArray metadata = recordings.get(1).getAsJsonObject().getAsJsonArray("videos");
+            for (int i = metadata.size() - 1; i >= 0; i--) {
+                if (metadata.get(i).getAsJsonObject().get("channel_name").getAsString().equals("Movie")) {
+                    metadata.remove(i);
+                }
+            }
+        });
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+
+        arecService.syncVideos(1L, arecAddress());
+
+        ArgumentCaptor<ArecSyncState> state = ArgumentCaptor.forClass(ArecSyncState.class);
+        verify(arecSyncStateRepository).save(state.capture());
+        assertEquals(4L, state.getValue().getLastRecordingId());
+        assertEquals(recordedAt(4L), state.getValue().getLastRecordedAt());
+    }
+
+    @Test
+    public void testSyncVideosPassesRecordingTooOldToRetry() throws Exception {
+        startArec(2, recordings -> recordings.get(1).getAsJsonObject().addProperty("status", "waiting"));
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+
+        arecService.syncVideos(1L, arecAddress());
+
+        ArgumentCaptor<ArecSyncState> state = ArgumentCaptor.forClass(ArecSyncState.class);
+        verify(arecSyncStateRepository).save(state.capture());
+        assertEquals(6L, state.getValue().getLastRecordingId());
+        assertEquals(recordedAt(6L), state.getValue().getLastRecordedAt());
+    }
+
+    @Test
+    public void testSyncVideosKeepsWatermarkWhenBatchFails() throws Exception {
+        startArec(2);
+        when(arecSyncStateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(videoRepository.findExistingNames(any())).thenThrow(new IllegalStateException("Database down"));
+
+        assertThrows(IllegalStateException.class, () -> arecService.syncVideos(1L, arecAddress()));
+
+        verify(arecSyncStateRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAssociateVideosSkipsExistingAndMatchesSimulations() throws Exception {
+        List<ArecVideosResponseDto.Video> videos = loadFixture().getResult();
+        ArecVideosResponseDto.Video recorded = videos.get(0);
+        Date simulationStart = new Date(recorded.getRecordedAt().getTime() + 60000);
+        Date simulationEnd = new Date(recorded.getFinishedAt().getTime() - 60000);
+
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of(videos.get(1).getName()));
+        when(simulationRepository.findIntervalsByRoomIdWithin(eq(1L), any(), any()))
+                .thenReturn(List.of(new SimulationIntervalDto(7L, simulationStart, simulationEnd)));
+        when(videoRepository.insertIgnoringExisting(any())).thenAnswer(invocation -> invocation
+                .<List<Video>>getArgument(0).size());
+
+        int inserted = arecService.associateVideosWithSimulations(1L, videos);
+
+        ArgumentCaptor<List<Video>> rows = ArgumentCaptor.forClass(List.class);
+        verify(videoRepository).insertIgnoringExisting(rows.capture());
+        assertEquals(4, inserted);
+        assertEquals(recorded.getName(), rows.getValue().get(0).getName());
+        assertEquals(7L, rows.getValue().get(0).getSimulation().getSimulationId());
+        assertTrue(rows.getValue().stream().skip(1).allMatch(video -> video.getSimulation() == null));
+        assertTrue(rows.getValue().stream().noneMatch(video -> video.getName().equals(videos.get(1).getName())));
+        verify(videoRepository).markAvailable(List.of(videos.get(1).getName()));
+    }
+
+    @Test
+    public void testAssociateVideosRoundTripsPerBatch() throws Exception {
+        int batchSize = 500;
+        int batches = 20;
+        List<ArecVideosResponseDto.Video> template = loadFixture().getResult();
+        List<ArecVideosResponseDto.Video> videos = new ArrayList<>();
+        for (int i = 0; i < batchSize * batches; i++) {
+            ArecVideosResponseDto.Video source = template.get(i % template.size());
+            videos.add(new ArecVideosResponseDto.Video((long) i, source.getName() + "_" + i, source.getLength(),
+                    source.getRecordedAt(), source.getFinishedAt(), source.getStatus(), source.getMetadata()));
+        }
+
+        when(videoRepository.findExistingNames(any())).thenReturn(Set.of());
+        when(simulationRepository.findIntervalsByRoomIdWithin(eq(1L), any(), any())).thenReturn(List.of());
+        when(videoRepository.insertIgnoringExisting(any())).thenAnswer(invocation -> invocation
+                .<List<Video>>getArgument(0).size());
+
+        int inserted = 0;
+        for (int i = 0; i < videos.size(); i += batchSize) {
+            inserted += arecService.associateVideosWithSimulations(1L, videos.subList(i, i + batchSize));
+        }
+
+        assertEquals(videos.size(), inserted);
+        // Three round-trips per batch instead of four per video
+        verify(videoRepository, times(batches)).findExistingNames(any());
+        verify(simulationRepository, times(batches)).findIntervalsByRoomIdWithin(eq(1L), any(), any());
+        verify(videoRepository, times(batches)).insertIgnoringExisting(any());
+        verify(videoRepository, never()).findByName(any());
+        verify(videoRepository, never()).save(any());
+    }
+
+    @AfterEach
+    public void stopArec() {
+        if (arecServer != null) {
+            arecServer.stop(0);
+        }
+    }
+
+    private ArecVideosResponseDto loadFixture() throws IOException {
+        return new Gson().fromJson(Files.readString(Paths.get("src/test/resources/arecVideosResponse.json")),
+                ArecVideosResponseDto.class);
+    }
+
+    private Date recordedAt(Long id) throws IOException {
+        return loadFixture().getResult().stream()
+                .filter(video -> video.getId().equals(id))
+                .findFirst()
+                .get()
+                .getRecordedAt();
+    }
+
+    private String arecAddress() {
+        return "localhost:" + arecServer.getAddress().getPort();
+    }
+
+    // Serves the recordings fixture split into pages, newest first like the recorder does
+    private List<Integer> startArec(int pageSize) throws IOException {
+        return startArec(pageSize, recordings -> {
+        });
+    }
+
+    private List<Integer> startArec(int pageSize, Consumer<JsonArray> fixtureChanges) throws IOException {
+        ReflectionTestUtils.setField(arecService, "pageSize", pageSize);
+        JsonObject fixture = JsonParser.parseString(
+                Files.readString(Paths.get("src/test/resources/arecVideosResponse.json"))).getAsJsonObject();
+        JsonArray recordings = fixture.getAsJsonArray("result");
+        fixtureChanges.accept(recordings);
+        List<Integer> requestedPages = new CopyOnWriteArrayList<>();
+
+        arecServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        arecServer.createContext("/api/login", exchange -> {
+            exchange.getResponseHeaders().add("Set-Cookie", "session=test-session; Max-Age=600");
+            respond(exchange, "{}");
+        });
+        arecServer.createContext("/api/recording", exchange -> {
+            int page = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*page=(\\d+)&.*", "$1"));
+            requestedPages.add(page);
+
+            JsonArray result = new JsonArray();
+            for (int i = (page - 1) * pageSize; i < Math.min(page * pageSize, recordings.size()); i++) {
+                result.add(recordings.get(i));
+            }
+            JsonObject pageInfo = new JsonObject();
+            pageInfo.addProperty("total", recordings.size());
+            pageInfo.addProperty("count", result.size());
+            JsonObject body = new JsonObject();
+            body.add("page_info", pageInfo);
+            body.add("result", result);
+            respond(exchange, body.toString());
+        });
+        arecServer.start();
+        return requestedPages;
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
 }
@@ -0,0 +1,274 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.booking.models.Room;
+import co.edu.javeriana.lms.booking.models.RoomType;
+import co.edu.javeriana.lms.practices.dtos.SimulationRoomEndDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+import co.edu.javeriana.lms.videos.services.ArecService;
+import co.edu.javeriana.lms.videos.services.ArecSyncService;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ArecSyncServiceTest {
+
+    @InjectMocks
+    private ArecSyncService arecSyncService;
+
+    @Mock
+    private ArecService arecService;
+
+    @Mock
+    private SimulationRepository simulationRepository;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    private static final RoomType ROOM_TYPE = RoomType.builder().id(1L).name("Simulación").build();
+    private static final Room ROOM_1 = new Room(1L, "Sala 1", 10, "10.0.0.1", ROOM_TYPE, null);
+    private static final Room ROOM_2 = new Room(2L, "Sala 2", 10, "10.0.0.2", ROOM_TYPE, null);
+    private static final Room ROOM_3 = new Room(3L, "Sala 3", 10, "10.0.0.3", ROOM_TYPE, null);
+
+    @BeforeEach
+    public void setUp() {
+        when(jobLockService.tryLock(anyString(), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        arecSyncService.shutdown();
+    }
+
+    @Test
+    public void testSyncRoomsSyncsEveryRoom() throws Exception {
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2, ROOM_3));
+
+        verify(arecService).syncVideos(1L, "10.0.0.1");
+        verify(arecService).syncVideos(2L, "10.0.0.2");
+        verify(arecService).syncVideos(3L, "10.0.0.3");
+    }
+
+    @Test
+    public void testSyncRoomsSkipsRoomsLockedByAnotherInstance() throws Exception {
+        when(jobLockService.tryLock(eq("arec-sync-room-2"), any())).thenReturn(false);
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2, ROOM_3));
+
+        verify(arecService).syncVideos(1L, "10.0.0.1");
+        verify(arecService, never()).syncVideos(2L, "10.0.0.2");
+        verify(arecService).syncVideos(3L, "10.0.0.3");
+        verify(jobLockService, never()).unlock(eq("arec-sync-room-2"), any());
+    }
+
+    @Test
+    public void testSyncRoomsKeepsLockOnlyAfterSuccess() throws Exception {
+        doThrow(new IOException("Connection refused")).when(arecService).syncVideos(1L, "10.0.0.1");
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(jobLockService).unlock("arec-sync-room-1", Duration.ZERO);
+        verify(jobLockService).unlock("arec-sync-room-2", Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void testReactiveSyncSkipsRoomsLockedByAnotherInstance() {
+        ReflectionTestUtils.setField(arecSyncService, "clientMode", "reactive");
+        when(jobLockService.tryLock(eq("arec-sync-room-1"), any())).thenReturn(false);
+        when(arecService.syncVideosReactive(anyLong(), anyString())).thenReturn(Mono.empty());
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(arecService, never()).syncVideosReactive(1L, "10.0.0.1");
+        verify(arecService).syncVideosReactive(2L, "10.0.0.2");
+        verify(jobLockService).unlock("arec-sync-room-2", Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void testSyncRoomsRunsRoomsConcurrently() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            // Only returns once every room is being synced at the same time
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(arecService).syncVideos(anyLong(), anyString());
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2, ROOM_3));
+
+        assertEquals(0, allStarted.getCount());
+    }
+
+    @Test
+    public void testSyncRoomsContinuesAfterRoomFails() throws Exception {
+        doThrow(new IOException("Connection refused")).when(arecService).syncVideos(1L, "10.0.0.1");
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(arecService).syncVideos(2L, "10.0.0.2");
+    }
+
+    @Test
+    public void testSyncRoomsCancelsSlowRoom() throws Exception {
+        ReflectionTestUtils.setField(arecSyncService, "roomTimeoutSeconds", 1L);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }).when(arecService).syncVideos(1L, "10.0.0.1");
+
+        long start = System.nanoTime();
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(arecService).syncVideos(2L, "10.0.0.2");
+    }
+
+    @Test
+    public void testReactiveSyncLimitsConcurrencyPerDevice() {
+        ReflectionTestUtils.setField(arecSyncService, "clientMode", "reactive");
+        Room sharedRecorder = new Room(4L, "Sala 4", 10, "10.0.0.1", ROOM_TYPE, null);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<String, Integer> peak = new ConcurrentHashMap<>();
+        AtomicInteger devicesRunning = new AtomicInteger();
+        AtomicInteger devicesPeak = new AtomicInteger();
+
+        when(arecService.syncVideosReactive(anyLong(), anyString())).thenAnswer(invocation -> {
+            String ip = invocation.getArgument(1);
+            return Mono.defer(() -> {
+                int current = running.computeIfAbsent(ip, key -> new AtomicInteger()).incrementAndGet();
+                peak.merge(ip, current, Math::max);
+                devicesPeak.accumulateAndGet(devicesRunning.incrementAndGet(), Math::max);
+                return Mono.delay(Duration.ofMillis(100));
+            }).then().doOnTerminate(() -> {
+                running.get(ip).decrementAndGet();
+                devicesRunning.decrementAndGet();
+            });
+        });
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2, ROOM_3, sharedRecorder));
+
+        verify(arecService).syncVideosReactive(1L, "10.0.0.1");
+        verify(arecService).syncVideosReactive(4L, "10.0.0.1");
+        assertEquals(1, peak.get("10.0.0.1"));
+        assertEquals(3, devicesPeak.get());
+    }
+
+    @Test
+    public void testReactiveSyncContinuesAfterRoomFails() {
+        ReflectionTestUtils.setField(arecSyncService, "clientMode", "reactive");
+        when(arecService.syncVideosReactive(anyLong(), anyString())).thenReturn(Mono.empty());
+        when(arecService.syncVideosReactive(1L, "10.0.0.1"))
+                .thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(arecService).syncVideosReactive(2L, "10.0.0.2");
+    }
+
+    @Test
+    public void testReactiveSyncContinuesAfterLeaseFails() {
+        ReflectionTestUtils.setField(arecSyncService, "clientMode", "reactive");
+        when(jobLockService.tryLock(eq("arec-sync-room-1"), any()))
+                .thenThrow(new IllegalStateException("Connection is not available"));
+        when(arecService.syncVideosReactive(anyLong(), anyString())).thenReturn(Mono.empty());
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(arecService, never()).syncVideosReactive(1L, "10.0.0.1");
+        verify(arecService).syncVideosReactive(2L, "10.0.0.2");
+        verify(jobLockService, never()).unlock(eq("arec-sync-room-1"), any());
+    }
+
+    @Test
+    public void testSyncRoomsContinuesAfterLeaseFails() throws Exception {
+        when(jobLockService.tryLock(eq("arec-sync-room-1"), any()))
+                .thenThrow(new IllegalStateException("Connection is not available"));
+
+        arecSyncService.syncRooms(List.of(ROOM_1, ROOM_2));
+
+        verify(arecService, never()).syncVideos(1L, "10.0.0.1");
+        verify(arecService).syncVideos(2L, "10.0.0.2");
+    }
+
+    @Test
+    public void testPlanSimulationEndSyncsQueuesOnlyEndingRooms() throws Exception {
+        Instant end = Instant.now().plus(Duration.ofMinutes(3)).truncatedTo(ChronoUnit.SECONDS);
+        when(simulationRepository.findRoomsByEndDateTimeBetween(any(), any())).thenReturn(List.of(
+                new SimulationRoomEndDto(1L, Date.from(end), ROOM_1),
+                new SimulationRoomEndDto(1L, Date.from(end), ROOM_2),
+                new SimulationRoomEndDto(2L, Date.from(end), ROOM_2)));
+
+        arecSyncService.planSimulationEndSyncs();
+        arecSyncService.planSimulationEndSyncs();
+
+        ArgumentCaptor<Runnable> sync = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(sync.capture(), eq(end.plus(Duration.ofMinutes(5))));
+
+        sync.getValue().run();
+
+        verify(arecService).syncVideos(1L, "10.0.0.1");
+        verify(arecService).syncVideos(2L, "10.0.0.2");
+        verify(arecService, never()).syncVideos(3L, "10.0.0.3");
+    }
+
+    @Test
+    public void testPlanSimulationEndSyncsSeparatesEndTimes() {
+        Instant end = Instant.now().plus(Duration.ofMinutes(3)).truncatedTo(ChronoUnit.SECONDS);
+        Instant laterEnd = end.plus(Duration.ofMinutes(10));
+        when(simulationRepository.findRoomsByEndDateTimeBetween(any(), any())).thenReturn(List.of(
+                new SimulationRoomEndDto(1L, Date.from(end), ROOM_1),
+                new SimulationRoomEndDto(2L, Date.from(laterEnd), ROOM_1)));
+
+        arecSyncService.planSimulationEndSyncs();
+
+        verify(taskScheduler).schedule(any(Runnable.class), eq(end.plus(Duration.ofMinutes(5))));
+        verify(taskScheduler).schedule(any(Runnable.class), eq(laterEnd.plus(Duration.ofMinutes(5))));
+    }
+}
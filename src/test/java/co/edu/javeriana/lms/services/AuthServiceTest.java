@@ -1,21 +1,30 @@
 package co.edu.javeriana.lms.services;
 
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeAll;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import co.edu.javeriana.lms.accounts.dtos.LoginResponseDto;
 import co.edu.javeriana.lms.accounts.models.Role;
@@ -23,6 +32,9 @@ import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.accounts.services.AuthService;
 import co.edu.javeriana.lms.accounts.services.EmailService;
+import co.edu.javeriana.lms.accounts.services.LoginThrottleService;
+import co.edu.javeriana.lms.shared.errors.RetryLaterException;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 import co.edu.javeriana.lms.shared.services.JwtService;
 
 @SpringBootTest
@@ -44,6 +56,12 @@ public class AuthServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private LoginThrottleService loginThrottleService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private static String mockEmail = "mock@email.com";
     private static String mockPassword = "mockPassword";
     private static String mockNewPassword = "newMockPassword";
@@ -82,6 +100,54 @@ public class AuthServiceTest {
         verify(jwtService).generateToken(mockUser);
     }
 
+    @Test
+    public void testLoginRehashesWeakPassword() {
+        User user = User.builder().id(2L).email(mockEmail).password("weakHash").roles(Set.of(Role.ESTUDIANTE)).build();
+        when(userRepository.findByEmail(mockEmail)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(mockPassword, "weakHash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("weakHash")).thenReturn(true);
+        when(passwordEncoder.encode(mockPassword)).thenReturn(mockEncodedPassword);
+
+        authService.login(mockEmail, mockPassword);
+
+        assert user.getPassword().equals(mockEncodedPassword);
+        verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    public void testLoginRunsOnBoundedPool() {
+        when(userRepository.findByEmail(mockEmail)).thenReturn(Optional.of(mockUser));
+        when(passwordEncoder.matches(mockPassword, mockUser.getPassword())).thenReturn(true);
+        when(jwtService.generateToken(mockUser)).thenReturn(mockToken);
+        when(loginThrottleService.runBounded(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        LoginResponseDto res = authService.login(mockEmail, mockPassword, "10.0.0.1");
+
+        assert res.getToken().equals(mockToken);
+        verify(loginThrottleService).checkRate(mockEmail, "10.0.0.1");
+        verify(loginThrottleService).refund(mockEmail, "10.0.0.1");
+    }
+
+    @Test
+    public void testFailedLoginKeepsTheAttempt() {
+        when(userRepository.findByEmail(mockEmail)).thenReturn(Optional.of(mockUser));
+        when(passwordEncoder.matches(mockPassword, mockUser.getPassword())).thenReturn(false);
+        when(loginThrottleService.runBounded(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        assertThrows(IllegalArgumentException.class, () -> authService.login(mockEmail, mockPassword, "10.0.0.1"));
+        verify(loginThrottleService, never()).refund(any(), any());
+    }
+
+    @Test
+    public void testLoginThrottled() {
+        doThrow(new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", 12))
+                .when(loginThrottleService).checkRate(mockEmail, "10.0.0.1");
+
+        assertThrows(RetryLaterException.class, () -> authService.login(mockEmail, mockPassword, "10.0.0.1"));
+        verify(passwordEncoder, never()).matches(any(), any());
+    }
+
     @Test
     public void testLoginUserNotFound() {
         when(userRepository.findByEmail(mockEmail)).thenReturn(Optional.empty());
@@ -114,6 +180,7 @@ public class AuthServiceTest {
         verify(passwordEncoder).encode(mockNewPassword);
         verify(userRepository).save(mockUser);
         verify(jwtService).generateToken(mockUser);
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent event) -> event.getEmails().equals(Set.of(mockEmail))));
     }
 
     @Test
@@ -181,6 +248,26 @@ public class AuthServiceTest {
         verify(userRepository).findByEmail(mockEmail);
     }
 
+    @Test
+    public void testGetUserIdByTokenFromClaims() {
+        when(jwtService.extractUserId(mockToken)).thenReturn(Optional.of(mockUser.getId()));
+
+        Long userId = authService.getUserIdByToken(mockToken);
+
+        assert userId.equals(mockUser.getId());
+        verify(userRepository, never()).findByEmail(mockEmail);
+    }
+
+    @Test
+    public void testGetRolesByTokenFromClaims() {
+        when(jwtService.extractRoles(mockToken)).thenReturn(Optional.of(List.of(Role.ADMIN.name())));
+
+        String[] roles = authService.getRolesByToken(mockToken);
+
+        assert roles.length == 1 && roles[0].equals(Role.ADMIN.name());
+        verify(userRepository, never()).findByEmail(mockEmail);
+    }
+
     @Test
     public void testGetUserIdByTokenUserNotFound() {
         when(jwtService.extractUserName(mockToken)).thenReturn(mockEmail);
@@ -189,4 +276,28 @@ public class AuthServiceTest {
         assertThrows(UsernameNotFoundException.class, () -> authService.getUserIdByToken(mockToken));
     }
 
+    @Test
+    public void testReissueTokenWithMembershipClaim() {
+        ReflectionTestUtils.setField(authService, "membershipClaim", true);
+        when(userRepository.findById(mockUser.getId())).thenReturn(Optional.of(mockUser));
+        when(userRepository.findStudentClassIds(mockUser.getId())).thenReturn(List.of(9L, 4L));
+        when(userRepository.findProfessorClassIds(mockUser.getId())).thenReturn(List.of());
+        when(userRepository.findSimulationIds(mockUser.getId())).thenReturn(List.of(7L));
+        when(jwtService.generateToken(eq(mockUser), argThat(membership -> membership.isStudentOf(4L)
+                && membership.isStudentOf(9L) && membership.isEnrolledIn(7L)))).thenReturn(mockToken);
+
+        try {
+            assert authService.reissueToken(mockUser.getId()).equals(mockToken);
+        } finally {
+            ReflectionTestUtils.setField(authService, "membershipClaim", false);
+        }
+    }
+
+    @Test
+    public void testReissueTokenUserNotFound() {
+        when(userRepository.findById(mockUser.getId())).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> authService.reissueToken(mockUser.getId()));
+    }
+
 }
@@ -0,0 +1,223 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.config.security.AuthorizationCache;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import co.edu.javeriana.lms.practices.services.PracticeService;
+import co.edu.javeriana.lms.practices.services.SimulationService;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
+import co.edu.javeriana.lms.subjects.services.ClassService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AuthorizationCacheTest {
+
+    @InjectMocks
+    private AuthorizationCache authorizationCache;
+
+    @Mock
+    private ClassService classService;
+
+    @Mock
+    private SimulationService simulationService;
+
+    @Mock
+    private PracticeService practiceService;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final int STUDENT = ClassMembership.EXISTS | ClassMembership.STUDENT;
+
+    @BeforeEach
+    public void setUp() {
+        authorizationCache.init();
+    }
+
+    @Test
+    public void testRepeatedRequestsHitTheCache() {
+        when(classService.findMembership(1L, 3L)).thenReturn(STUDENT);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(STUDENT, authorizationCache.findMembership(3L, Resource.CLASS, 1L));
+        }
+
+        verify(classService, times(1)).findMembership(1L, 3L);
+        assertEquals(4, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+    }
+
+    @Test
+    public void testClassChangeInvalidatesClassAndPracticeDecisions() {
+        when(practiceService.findClassId(7L)).thenReturn(1L);
+        when(classService.findMembership(1L, 3L)).thenReturn(STUDENT);
+        when(classService.findMembership(2L, 3L)).thenReturn(STUDENT);
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(3L, Resource.PRACTICE, 7L);
+        authorizationCache.findMembership(3L, Resource.CLASS, 2L);
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of(3L)));
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(3L, Resource.PRACTICE, 7L);
+        authorizationCache.findMembership(3L, Resource.CLASS, 2L);
+
+        // Class 1 and practice 7 are both queried again, class 2 is untouched
+        verify(classService, times(4)).findMembership(1L, 3L);
+        verify(classService, times(1)).findMembership(2L, 3L);
+    }
+
+    @Test
+    public void testSimulationChangeOnlyInvalidatesThatUser() {
+        when(simulationService.findMembership(5L, 3L)).thenReturn(STUDENT);
+        when(simulationService.findMembership(5L, 4L)).thenReturn(STUDENT);
+        authorizationCache.findMembership(3L, Resource.SIMULATION, 5L);
+        authorizationCache.findMembership(4L, Resource.SIMULATION, 5L);
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.SIMULATION, 5L, Set.of(3L)));
+        authorizationCache.findMembership(3L, Resource.SIMULATION, 5L);
+        authorizationCache.findMembership(4L, Resource.SIMULATION, 5L);
+
+        verify(simulationService, times(2)).findMembership(5L, 3L);
+        verify(simulationService, times(1)).findMembership(5L, 4L);
+    }
+
+    @Test
+    public void testClassChangeInvalidatesSimulationDecisions() {
+        when(simulationService.findMembership(5L, 3L)).thenReturn(ClassMembership.EXISTS | ClassMembership.PROFESSOR);
+        authorizationCache.findMembership(3L, Resource.SIMULATION, 5L);
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of()));
+        authorizationCache.findMembership(3L, Resource.SIMULATION, 5L);
+
+        verify(simulationService, times(2)).findMembership(5L, 3L);
+    }
+
+    @Test
+    public void testDecisionReadDuringInvalidationIsNotCached() {
+        doAnswer(invocation -> {
+            // The membership changes while this request is still reading the old one
+            authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of(3L)));
+            return STUDENT;
+        }).when(classService).findMembership(1L, 3L);
+
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+
+        verify(classService, times(2)).findMembership(1L, 3L);
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysQueries() {
+        ReflectionTestUtils.setField(authorizationCache, "enabled", false);
+        when(classService.findMembership(1L, 3L)).thenReturn(STUDENT);
+
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+
+        verify(classService, times(2)).findMembership(1L, 3L);
+        assertEquals(0, cacheGets("hit"));
+    }
+
+    @Test
+    public void testExpiredDecisionIsQueriedAgain() {
+        ReflectionTestUtils.setField(authorizationCache, "ttlSeconds", 0L);
+        authorizationCache.init();
+        when(classService.findMembership(1L, 3L)).thenReturn(STUDENT);
+
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+
+        verify(classService, times(2)).findMembership(1L, 3L);
+    }
+
+    @Test
+    public void testClaimIsStaleAfterUserMembershipChange() {
+        long issuedAt = System.currentTimeMillis() - 1;
+        assertTrue(authorizationCache.isClaimCurrent(3L, issuedAt));
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of(3L)));
+
+        assertFalse(authorizationCache.isClaimCurrent(3L, issuedAt));
+        assertTrue(authorizationCache.isClaimCurrent(4L, issuedAt));
+    }
+
+    @Test
+    public void testClaimIsStaleAfterClassWideChange() {
+        long issuedAt = System.currentTimeMillis() - 1;
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of()));
+
+        assertFalse(authorizationCache.isClaimCurrent(4L, issuedAt));
+    }
+
+    @Test
+    public void testEvictedUserChangeStalesEveryClaim() {
+        ReflectionTestUtils.setField(authorizationCache, "cacheSize", 1);
+        long issuedAt = System.currentTimeMillis() - 1;
+
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.SIMULATION, 2L, Set.of(3L)));
+        authorizationCache.onMembershipChanged(new MembershipChangedEvent(Resource.SIMULATION, 2L, Set.of(5L)));
+
+        assertFalse(authorizationCache.isClaimCurrent(3L, issuedAt));
+        assertFalse(authorizationCache.isClaimCurrent(4L, issuedAt));
+    }
+
+    @Test
+    public void testRemoteChangeStalesClaimsAndDropsDecisionsOfThatUser() {
+        when(classService.findMembership(1L, 3L)).thenReturn(STUDENT);
+        when(classService.findMembership(1L, 4L)).thenReturn(STUDENT);
+        long issuedAt = System.currentTimeMillis() - 1;
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(4L, Resource.CLASS, 1L);
+
+        authorizationCache.onRemoteMembershipChanged(Set.of(3L));
+        authorizationCache.findMembership(3L, Resource.CLASS, 1L);
+        authorizationCache.findMembership(4L, Resource.CLASS, 1L);
+
+        assertFalse(authorizationCache.isClaimCurrent(3L, issuedAt));
+        assertTrue(authorizationCache.isClaimCurrent(4L, issuedAt));
+        verify(classService, times(2)).findMembership(1L, 3L);
+        verify(classService, times(1)).findMembership(1L, 4L);
+    }
+
+    @Test
+    public void testOldClaimIsStale() {
+        ReflectionTestUtils.setField(authorizationCache, "claimTtlSeconds", 60L);
+
+        assertFalse(authorizationCache.isClaimCurrent(3L, System.currentTimeMillis() - 61000));
+    }
+
+    @Test
+    public void testStaleClaimIsReissuedOnce() {
+        assertTrue(authorizationCache.shouldReissue(3L, 100L));
+        assertFalse(authorizationCache.shouldReissue(3L, 100L));
+        assertTrue(authorizationCache.shouldReissue(3L, 200L));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "authorization").tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -1,7 +1,9 @@
 package co.edu.javeriana.lms.services;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,6 +22,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -32,7 +35,9 @@ import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.grades.models.RubricTemplate;
 import co.edu.javeriana.lms.shared.errors.CustomError;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
 import co.edu.javeriana.lms.subjects.dtos.ClassDto;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
 import co.edu.javeriana.lms.subjects.models.ClassModel;
 import co.edu.javeriana.lms.subjects.models.Course;
 import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
@@ -56,6 +61,9 @@ public class ClassServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private static User mockCoordinator;
     private static User mockProfessor;
     private static User mockProfessor2;
@@ -374,6 +382,24 @@ public class ClassServiceTest {
         verify(classRepository, times(1)).findById(1L);
     }
 
+    @Test
+    public void testFindMembership() {
+        int membership = ClassMembership.EXISTS | ClassMembership.STUDENT;
+        when(classRepository.findMembership(1L, 3L)).thenReturn(membership);
+
+        int result = classService.findMembership(1L, 3L);
+
+        assert (result == membership);
+        verify(classRepository, never()).findById(1L);
+    }
+
+    @Test
+    public void testFindMembershipClassNotFound() {
+        when(classRepository.findMembership(1L, 3L)).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () -> classService.findMembership(1L, 3L));
+    }
+
     @Test
     public void testSaveClass() {
         // Mock the repository behavior
@@ -444,6 +470,7 @@ public class ClassServiceTest {
 
         // Assert
         verify(classRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(any(MembershipChangedEvent.class));
     }
 
     @Test
@@ -0,0 +1,154 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.accounts.services.CustomUserDetailService;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class CustomUserDetailServiceTest {
+
+    @InjectMocks
+    private CustomUserDetailService customUserDetailService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final String EMAIL = "student@javeriana.edu.co";
+
+    @BeforeEach
+    public void setUp() {
+        User user = User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .password("encodedPassword")
+                .roles(Set.of(Role.ESTUDIANTE))
+                .build();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        customUserDetailService.init();
+    }
+
+    @Test
+    public void testRepeatedLoadsHitTheCache() {
+        UserDetails first = customUserDetailService.loadUserByUsername(EMAIL);
+        UserDetails second = customUserDetailService.loadUserByUsername(EMAIL);
+
+        assertEquals(EMAIL, second.getUsername());
+        assertEquals(List.of("ESTUDIANTE"), second.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertNotSame(first, second);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        assertEquals(1, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+    }
+
+    @Test
+    public void testUserChangeEvictsOnlyThatUser() {
+        when(userRepository.findByEmail("other@javeriana.edu.co")).thenReturn(Optional.of(
+                User.builder().id(2L).email("other@javeriana.edu.co").password("p").roles(Set.of(Role.PROFESOR)).build()));
+        customUserDetailService.loadUserByUsername(EMAIL);
+        customUserDetailService.loadUserByUsername("other@javeriana.edu.co");
+
+        customUserDetailService.onUserChanged(new UserChangedEvent(Set.of(EMAIL)));
+        customUserDetailService.loadUserByUsername(EMAIL);
+        customUserDetailService.loadUserByUsername("other@javeriana.edu.co");
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+        verify(userRepository, times(1)).findByEmail("other@javeriana.edu.co");
+    }
+
+    @Test
+    public void testUnknownUserChangeEvictsEveryone() {
+        customUserDetailService.loadUserByUsername(EMAIL);
+
+        customUserDetailService.onUserChanged(new UserChangedEvent(Set.of()));
+        customUserDetailService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void testLoadDuringEvictionIsNotCached() {
+        doAnswer(invocation -> {
+            customUserDetailService.onUserChanged(new UserChangedEvent(Set.of(EMAIL)));
+            return Optional.of(User.builder().id(1L).email(EMAIL).password("old").roles(Set.of(Role.ESTUDIANTE)).build());
+        }).when(userRepository).findByEmail(EMAIL);
+
+        customUserDetailService.loadUserByUsername(EMAIL);
+        customUserDetailService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void testExpiredUserIsLoadedAgain() {
+        ReflectionTestUtils.setField(customUserDetailService, "cacheTtlSeconds", 0L);
+        customUserDetailService.init();
+
+        customUserDetailService.loadUserByUsername(EMAIL);
+        customUserDetailService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void testUncachedLoadAlwaysReadsTheDatabase() {
+        customUserDetailService.loadUserByUsername(EMAIL);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(
+                User.builder().id(1L).email(EMAIL).password("encodedPassword").roles(Set.of()).build()));
+
+        UserDetails strict = customUserDetailService.loadUserByUsernameUncached(EMAIL);
+        customUserDetailService.loadUserByUsernameUncached(EMAIL);
+
+        assertEquals(List.of(), strict.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        verify(userRepository, times(3)).findByEmail(EMAIL);
+        assertEquals(1, cacheGets("miss"));
+    }
+
+    @Test
+    public void testUnknownUserIsNotCached() {
+        when(userRepository.findByEmail("missing@javeriana.edu.co")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> customUserDetailService.loadUserByUsername("missing@javeriana.edu.co"));
+        assertThrows(UsernameNotFoundException.class,
+                () -> customUserDetailService.loadUserByUsername("missing@javeriana.edu.co"));
+        verify(userRepository, times(2)).findByEmail("missing@javeriana.edu.co");
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "user.details").tag("result", result)
+                .functionCounter().count();
+    }
+}
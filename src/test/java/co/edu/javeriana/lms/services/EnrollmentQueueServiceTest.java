@@ -0,0 +1,240 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
+import co.edu.javeriana.lms.practices.dtos.EnrollmentRequestDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto;
+import co.edu.javeriana.lms.practices.models.EnrollmentRequest;
+import co.edu.javeriana.lms.practices.models.EnrollmentStatus;
+import co.edu.javeriana.lms.practices.repositories.EnrollmentRequestRepository;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.practices.services.EnrollmentQueueService;
+import co.edu.javeriana.lms.practices.services.SimulationService;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+import jakarta.persistence.EntityNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class EnrollmentQueueServiceTest {
+
+    @InjectMocks
+    private EnrollmentQueueService enrollmentQueueService;
+
+    @Mock
+    private EnrollmentRequestRepository enrollmentRequestRepository;
+
+    @Mock
+    private SimulationRepository simulationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SimulationService simulationService;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    @BeforeEach
+    public void setUp() {
+        when(userRepository.existsById(any())).thenReturn(true);
+        when(jobLockService.tryLock(eq("enrollment-queue-practice-1"), any())).thenReturn(true);
+        when(jobLockService.tryLock(eq("enrollment-queue-waitlists"), any())).thenReturn(true);
+        when(enrollmentRequestRepository.findPracticeIdsByStatus(EnrollmentStatus.PENDING)).thenReturn(List.of(1L));
+    }
+
+    @Test
+    public void testEnqueue() {
+        when(simulationRepository.findJoinState(10L, 7L)).thenReturn(Optional.of(joinState(false)));
+        when(enrollmentRequestRepository.save(any())).thenAnswer(invocation -> {
+            EnrollmentRequest request = invocation.getArgument(0);
+            request.setId(100L);
+            return request;
+        });
+        when(enrollmentRequestRepository.countByPracticeIdAndStatusAndIdLessThanEqual(1L, EnrollmentStatus.PENDING,
+                100L)).thenReturn(42L);
+
+        EnrollmentRequestDto request = enrollmentQueueService.enqueue(10L, 7L);
+
+        assertEquals(100L, request.getId());
+        assertEquals(EnrollmentStatus.PENDING, request.getStatus());
+        assertEquals(42L, request.getPosition());
+        verify(enrollmentRequestRepository).cancelOpenRequests(eq(7L), eq(1L), any());
+        verify(simulationService, never()).joinSimulation(any(), any());
+    }
+
+    @Test
+    public void testEnqueueAlreadyEnrolled() {
+        when(simulationRepository.findJoinState(10L, 7L)).thenReturn(Optional.of(joinState(true)));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> enrollmentQueueService.enqueue(10L, 7L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(enrollmentRequestRepository, never()).save(any());
+    }
+
+    @Test
+    public void testEnqueueSimulationNotFound() {
+        when(simulationRepository.findJoinState(10L, 7L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> enrollmentQueueService.enqueue(10L, 7L));
+    }
+
+    @Test
+    public void testProcessQueue() {
+        EnrollmentRequest joins = request(1L, 7L);
+        EnrollmentRequest full = request(2L, 8L);
+        EnrollmentRequest started = request(3L, 9L);
+        when(enrollmentRequestRepository.findByPracticeIdAndStatusOrderById(eq(1L), eq(EnrollmentStatus.PENDING),
+                any())).thenReturn(List.of(joins, full, started));
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, SimulationService.SIMULATION_FULL))
+                .when(simulationService).joinSimulation(10L, 8L);
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Simulation is in progress, cannot join group"))
+                .when(simulationService).joinSimulation(10L, 9L);
+
+        enrollmentQueueService.processQueue();
+
+        assertEquals(EnrollmentStatus.ENROLLED, joins.getStatus());
+        assertEquals(EnrollmentStatus.WAITLISTED, full.getStatus());
+        assertEquals(EnrollmentStatus.REJECTED, started.getStatus());
+        assertEquals("Simulation is in progress, cannot join group", started.getMessage());
+        verify(enrollmentRequestRepository).closeStaleWaitlists();
+        verify(enrollmentRequestRepository).promoteWaitlisted();
+        verify(jobLockService).unlock(eq("enrollment-queue-waitlists"), any());
+        verify(enrollmentRequestRepository).saveAll(List.of(joins, full, started));
+        verify(jobLockService).unlock(eq("enrollment-queue-practice-1"), any());
+    }
+
+    @Test
+    public void testProcessQueueStopsOnDatabaseError() {
+        EnrollmentRequest joins = request(1L, 7L);
+        EnrollmentRequest failing = request(2L, 8L);
+        EnrollmentRequest waiting = request(3L, 9L);
+        when(enrollmentRequestRepository.findByPracticeIdAndStatusOrderById(eq(1L), eq(EnrollmentStatus.PENDING),
+                any())).thenReturn(List.of(joins, failing, waiting));
+        doThrow(new QueryTimeoutException("timeout")).when(simulationService).joinSimulation(10L, 8L);
+
+        enrollmentQueueService.processQueue();
+
+        assertEquals(EnrollmentStatus.ENROLLED, joins.getStatus());
+        assertEquals(EnrollmentStatus.PENDING, failing.getStatus());
+        assertEquals(1, failing.getAttempts());
+        assertEquals(EnrollmentStatus.PENDING, waiting.getStatus());
+        verify(simulationService, never()).joinSimulation(10L, 9L);
+        verify(enrollmentRequestRepository).saveAll(List.of(joins, failing));
+    }
+
+    @Test
+    public void testProcessQueueFailsRequestAfterMaxAttempts() {
+        EnrollmentRequest failing = request(1L, 8L);
+        failing.setAttempts(4);
+        EnrollmentRequest waiting = request(2L, 9L);
+        when(enrollmentRequestRepository.findByPracticeIdAndStatusOrderById(eq(1L), eq(EnrollmentStatus.PENDING),
+                any())).thenReturn(List.of(failing, waiting));
+        doThrow(new QueryTimeoutException("timeout")).when(simulationService).joinSimulation(10L, 8L);
+
+        enrollmentQueueService.processQueue();
+
+        assertEquals(EnrollmentStatus.FAILED, failing.getStatus());
+        assertEquals(5, failing.getAttempts());
+        assertNotNull(failing.getProcessedAt());
+        assertEquals(EnrollmentStatus.ENROLLED, waiting.getStatus());
+        verify(enrollmentRequestRepository).saveAll(List.of(failing, waiting));
+    }
+
+    @Test
+    public void testProcessQueueSkipsWaitlistsLockedByAnotherInstance() {
+        when(jobLockService.tryLock(eq("enrollment-queue-waitlists"), any())).thenReturn(false);
+
+        enrollmentQueueService.processQueue();
+
+        verify(enrollmentRequestRepository, never()).closeStaleWaitlists();
+        verify(enrollmentRequestRepository, never()).promoteWaitlisted();
+        verify(enrollmentRequestRepository).findByPracticeIdAndStatusOrderById(eq(1L), eq(EnrollmentStatus.PENDING),
+                any());
+    }
+
+    @Test
+    public void testProcessQueueSkipsLockedPractice() {
+        when(jobLockService.tryLock(eq("enrollment-queue-practice-1"), any())).thenReturn(false);
+
+        enrollmentQueueService.processQueue();
+
+        verify(enrollmentRequestRepository, never()).findByPracticeIdAndStatusOrderById(any(), any(), any());
+        verify(simulationService, never()).joinSimulation(any(), any());
+    }
+
+    @Test
+    public void testFindRequestOfAnotherUser() {
+        when(enrollmentRequestRepository.findByIdAndUserId(100L, 8L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> enrollmentQueueService.findRequest(100L, 8L));
+    }
+
+    @Test
+    public void testFindWaitlistedRequest() {
+        EnrollmentRequest request = request(100L, 7L);
+        request.setStatus(EnrollmentStatus.WAITLISTED);
+        when(enrollmentRequestRepository.findByIdAndUserId(100L, 7L)).thenReturn(Optional.of(request));
+        when(enrollmentRequestRepository.countBySimulationIdAndStatusAndIdLessThanEqual(10L,
+                EnrollmentStatus.WAITLISTED, 100L)).thenReturn(3L);
+
+        EnrollmentRequestDto found = enrollmentQueueService.findRequest(100L, 7L);
+
+        assertEquals(EnrollmentStatus.WAITLISTED, found.getStatus());
+        assertEquals(3L, found.getPosition());
+        assertNull(found.getMessage());
+    }
+
+    private static EnrollmentRequest request(Long id, Long userId) {
+        return EnrollmentRequest.builder()
+                .id(id)
+                .practiceId(1L)
+                .simulationId(10L)
+                .userId(userId)
+                .status(EnrollmentStatus.PENDING)
+                .requestedAt(new Date())
+                .build();
+    }
+
+    private static SimulationJoinStateDto joinState(boolean enrolled) {
+        Date start = Date.from(Instant.now().plusSeconds(86400));
+        return SimulationJoinStateDto.builder()
+                .simulationId(10L)
+                .practiceId(1L)
+                .startDateTime(start)
+                .endDateTime(Date.from(start.toInstant().plusSeconds(3600)))
+                .seatsTaken(0)
+                .maxStudentsGroup(3)
+                .enrolled(enrolled)
+                .build();
+    }
+}
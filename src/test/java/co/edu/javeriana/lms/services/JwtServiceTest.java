@@ -0,0 +1,274 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Base64;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.accounts.models.Role;
+import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.shared.dtos.MembershipClaimDto;
+import co.edu.javeriana.lms.shared.services.JwtService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JwtServiceTest {
+
+    private static final String SIGNING_KEY = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final String OTHER_SIGNING_KEY = Base64.getEncoder()
+            .encodeToString("fedcba9876543210fedcba9876543210".getBytes());
+
+    private JwtService jwtService;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = newJwtService(SIGNING_KEY);
+        user = User.builder()
+                .id(1L)
+                .email("mock@email.com")
+                .password("encodedMockPassword")
+                .roles(Set.of(Role.ADMIN))
+                .preferredRole(Role.ADMIN)
+                .build();
+    }
+
+    @Test
+    public void testTokenIsValid() {
+        String token = jwtService.generateToken(user);
+
+        assertEquals("mock@email.com", jwtService.extractUserName(token));
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    public void testTokenCarriesIdAndRoles() {
+        String token = jwtService.generateToken(user);
+
+        assertEquals(Optional.of(1L), jwtService.extractUserId(token));
+        assertEquals(Optional.of(List.of("ADMIN")), jwtService.extractRoles(token));
+    }
+
+    @Test
+    public void testPrincipalIsBuiltFromClaims() {
+        UserDetails principal = jwtService.extractPrincipal(jwtService.generateToken(user));
+
+        assertEquals("mock@email.com", principal.getUsername());
+        assertEquals(List.of("ADMIN"), principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).toList());
+        assertTrue(jwtService.isTokenValid(jwtService.generateToken(user), principal));
+    }
+
+    @Test
+    public void testTokenWithoutClaimsHasNoPrincipal() {
+        String token = Jwts.builder()
+                .subject("mock@email.com")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(key(SIGNING_KEY))
+                .compact();
+
+        assertTrue(jwtService.extractUserId(token).isEmpty());
+        assertTrue(jwtService.extractRoles(token).isEmpty());
+        assertNull(jwtService.extractPrincipal(token));
+    }
+
+    @Test
+    public void testCachedTokenIsNotVerifiedAgain() {
+        String token = jwtService.generateToken(user);
+        jwtService.extractUserName(token);
+
+        // Were the signature checked again, the new key would reject the token
+        ReflectionTestUtils.setField(jwtService, "parser", Jwts.parser().verifyWith(key(OTHER_SIGNING_KEY)).build());
+
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    public void testTokenFromOtherKeyIsRejected() {
+        String token = newJwtService(OTHER_SIGNING_KEY).generateToken(user);
+
+        assertThrows(SignatureException.class, () -> jwtService.extractUserName(token));
+        assertThrows(SignatureException.class, () -> jwtService.extractUserName(token));
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() {
+        String token = Jwts.builder()
+                .subject("mock@email.com")
+                .issuedAt(new Date(System.currentTimeMillis() - 60000))
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(key(SIGNING_KEY))
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.extractUserName(token));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtService bounded = new JwtService();
+        ReflectionTestUtils.setField(bounded, "jwtPrivateKey", SIGNING_KEY);
+        ReflectionTestUtils.setField(bounded, "claimsCacheSize", 2);
+        ReflectionTestUtils.setField(bounded, "meterRegistry", meterRegistry);
+        bounded.init();
+
+        for (int i = 0; i < 5; i++) {
+            bounded.extractUserName(Jwts.builder().subject("user" + i).signWith(key(SIGNING_KEY)).compact());
+        }
+
+        assertEquals(2, meterRegistry.get("cache.size").tag("cache", "jwt.claims").gauge().value());
+    }
+
+    @Test
+    public void testRepeatedResolutionHitsTheCache() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtService service = newJwtService(SIGNING_KEY, meterRegistry);
+        String token = service.generateToken(user);
+
+        // One request resolves the token four times: filter user name and validity, interceptor id and roles
+        service.extractUserName(token);
+        service.isTokenValid(token, user);
+        service.extractUserId(token);
+        service.extractRoles(token);
+
+        assertEquals(1, cacheGets(meterRegistry, "miss"));
+        assertEquals(4, cacheGets(meterRegistry, "hit"));
+    }
+
+    @Test
+    public void testExpiredCacheEntryIsVerifiedAgain() {
+        ReflectionTestUtils.setField(jwtService, "claimsCacheTtlSeconds", 0L);
+        jwtService.init();
+        String token = jwtService.generateToken(user);
+        jwtService.extractUserName(token);
+
+        ReflectionTestUtils.setField(jwtService, "parser", Jwts.parser().verifyWith(key(OTHER_SIGNING_KEY)).build());
+
+        assertThrows(SignatureException.class, () -> jwtService.extractUserName(token));
+    }
+
+    @Test
+    public void testRejectedTokenIsNotCached() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtService service = newJwtService(SIGNING_KEY, meterRegistry);
+        String token = newJwtService(OTHER_SIGNING_KEY).generateToken(user);
+
+        assertThrows(SignatureException.class, () -> service.extractUserName(token));
+        assertThrows(SignatureException.class, () -> service.extractUserName(token));
+
+        assertEquals(0, cacheGets(meterRegistry, "hit"));
+        assertEquals(2, cacheGets(meterRegistry, "miss"));
+    }
+
+    @Test
+    public void testMembershipClaimRoundTrip() {
+        MembershipClaimDto membership = new MembershipClaimDto(new long[] { 3, 17, 900000000000L },
+                new long[] {}, new long[] { 1, 2, 128, 16384 }, 1700000000000L);
+
+        MembershipClaimDto extracted = jwtService.extractMembership(jwtService.generateToken(user, membership))
+                .orElseThrow();
+
+        assertArrayEquals(new long[] { 3, 17, 900000000000L }, extracted.getStudentClassIds());
+        assertArrayEquals(new long[] {}, extracted.getProfessorClassIds());
+        assertArrayEquals(new long[] { 1, 2, 128, 16384 }, extracted.getSimulationIds());
+        assertEquals(1700000000000L, extracted.getIssuedAt());
+        assertTrue(extracted.isStudentOf(17L));
+        assertFalse(extracted.isProfessorOf(17L));
+        assertTrue(extracted.isEnrolledIn(128L));
+    }
+
+    @Test
+    public void testTokenWithoutMembershipClaim() {
+        assertTrue(jwtService.extractMembership(jwtService.generateToken(user)).isEmpty());
+    }
+
+    @Test
+    public void testMembershipClaimIsOmittedOverLimit() {
+        ReflectionTestUtils.setField(jwtService, "membershipClaimMaxIds", 2);
+        MembershipClaimDto membership = new MembershipClaimDto(new long[] { 1, 2 }, new long[] { 3 },
+                new long[] {}, System.currentTimeMillis());
+
+        String token = jwtService.generateToken(user, membership);
+
+        assertTrue(jwtService.extractMembership(token).isEmpty());
+        assertEquals(Optional.of(1L), jwtService.extractUserId(token));
+    }
+
+    @Test
+    public void testMembershipClaimIsCompact() {
+        // A professor in 300 classes who also sits in 300 simulations, ids spread like a busy database
+        long[] classIds = ids(300, 5000, 7);
+        long[] simulationIds = ids(300, 120000, 31);
+        MembershipClaimDto membership = new MembershipClaimDto(classIds, classIds, simulationIds,
+                System.currentTimeMillis());
+
+        String encoded = jwtService.generateToken(user, membership);
+        String json = Jwts.builder()
+                .claims(Map.of("id", 1L, "roles", List.of("ADMIN"), "mbr", Map.of(
+                        "sc", Arrays.stream(classIds).boxed().toList(),
+                        "pc", Arrays.stream(classIds).boxed().toList(),
+                        "s", Arrays.stream(simulationIds).boxed().toList())))
+                .subject("mock@email.com")
+                .signWith(key(SIGNING_KEY))
+                .compact();
+
+        assertTrue(encoded.length() < json.length() / 2);
+        MembershipClaimDto extracted = jwtService.extractMembership(encoded).orElseThrow();
+        assertArrayEquals(classIds, extracted.getProfessorClassIds());
+        assertArrayEquals(simulationIds, extracted.getSimulationIds());
+    }
+
+    private long[] ids(int count, long start, long maxGap) {
+        long[] ids = new long[count];
+        long id = start;
+        for (int i = 0; i < count; i++) {
+            id += 1 + (i * 7919L) % maxGap;
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    private JwtService newJwtService(String signingKey) {
+        return newJwtService(signingKey, new SimpleMeterRegistry());
+    }
+
+    private JwtService newJwtService(String signingKey, SimpleMeterRegistry meterRegistry) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "jwtPrivateKey", signingKey);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.init();
+        return service;
+    }
+
+    private double cacheGets(SimpleMeterRegistry meterRegistry, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt.claims").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private SecretKey key(String signingKey) {
+        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(signingKey));
+    }
+}
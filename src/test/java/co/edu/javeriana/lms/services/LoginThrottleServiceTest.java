@@ -0,0 +1,165 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import co.edu.javeriana.lms.accounts.services.LoginThrottleService;
+import co.edu.javeriana.lms.shared.errors.RetryLaterException;
+
+public class LoginThrottleServiceTest {
+
+    private LoginThrottleService loginThrottleService;
+
+    @BeforeEach
+    public void setUp() {
+        loginThrottleService = new LoginThrottleService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loginThrottleService.shutdown();
+    }
+
+    @Test
+    public void testEmailIsThrottledAfterBurst() {
+        ReflectionTestUtils.setField(loginThrottleService, "emailBurst", 3);
+
+        for (int i = 0; i < 3; i++) {
+            loginThrottleService.checkRate("Student@Javeriana.edu.co", "10.0.0.1");
+        }
+        RetryLaterException e = assertThrows(RetryLaterException.class,
+                () -> loginThrottleService.checkRate("student@javeriana.edu.co", "10.0.0.2"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(String.valueOf(e.getRetryAfterSeconds()), e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        loginThrottleService.checkRate("other@javeriana.edu.co", "10.0.0.1");
+    }
+
+    @Test
+    public void testAddressIsThrottledAcrossEmails() {
+        ReflectionTestUtils.setField(loginThrottleService, "ipBurst", 2);
+
+        loginThrottleService.checkRate("a@javeriana.edu.co", "10.0.0.1");
+        loginThrottleService.checkRate("b@javeriana.edu.co", "10.0.0.1");
+
+        assertThrows(RetryLaterException.class,
+                () -> loginThrottleService.checkRate("c@javeriana.edu.co", "10.0.0.1"));
+        loginThrottleService.checkRate("c@javeriana.edu.co", "10.0.0.2");
+    }
+
+    @Test
+    public void testBucketRefills() throws Exception {
+        ReflectionTestUtils.setField(loginThrottleService, "emailBurst", 1);
+        ReflectionTestUtils.setField(loginThrottleService, "emailPerMinute", 600.0);
+
+        loginThrottleService.checkRate("student@javeriana.edu.co", null);
+        Thread.sleep(150);
+
+        loginThrottleService.checkRate("student@javeriana.edu.co", null);
+    }
+
+    @Test
+    public void testFullQueueIsRejected() throws Exception {
+        ReflectionTestUtils.setField(loginThrottleService, "threads", 1);
+        ReflectionTestUtils.setField(loginThrottleService, "queueSize", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> running = clients.submit(() -> loginThrottleService.runBounded(() -> await(release)));
+            waitFor(() -> loginThrottleService.getQueueDepth() == 0 && !running.isDone());
+            Future<?> queued = clients.submit(() -> loginThrottleService.runBounded(() -> await(release)));
+            waitFor(() -> loginThrottleService.getQueueDepth() == 1);
+
+            RetryLaterException e = assertThrows(RetryLaterException.class,
+                    () -> loginThrottleService.runBounded(() -> true));
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoginErrorReachesCaller() {
+        assertThrows(IllegalArgumentException.class, () -> loginThrottleService.runBounded(() -> {
+            throw new IllegalArgumentException("Invalid credentials");
+        }));
+    }
+
+    @Test
+    public void testOtherKeysKeepAdmittingWhileOneIsThrottled() {
+        ReflectionTestUtils.setField(loginThrottleService, "emailBurst", 1);
+        ReflectionTestUtils.setField(loginThrottleService, "ipBurst", 1);
+        loginThrottleService.checkRate("attacker@javeriana.edu.co", "10.0.0.66");
+        assertThrows(RetryLaterException.class,
+                () -> loginThrottleService.checkRate("attacker@javeriana.edu.co", "10.0.0.66"));
+
+        for (int i = 0; i < 200; i++) {
+            loginThrottleService.checkRate("student" + i + "@javeriana.edu.co", "10.0.1." + i);
+        }
+    }
+
+    @Test
+    public void testRefundedAttemptsDoNotCount() {
+        ReflectionTestUtils.setField(loginThrottleService, "emailBurst", 2);
+        ReflectionTestUtils.setField(loginThrottleService, "ipBurst", 2);
+
+        for (int i = 0; i < 10; i++) {
+            loginThrottleService.checkRate("student@javeriana.edu.co", "10.0.0.1");
+            loginThrottleService.refund("Student@Javeriana.edu.co", "10.0.0.1");
+        }
+
+        loginThrottleService.checkRate("student@javeriana.edu.co", "10.0.0.1");
+        loginThrottleService.checkRate("student@javeriana.edu.co", "10.0.0.1");
+        assertThrows(RetryLaterException.class,
+                () -> loginThrottleService.checkRate("student@javeriana.edu.co", "10.0.0.1"));
+    }
+
+    @Test
+    public void testUnknownAddressIsNotThrottled() {
+        ReflectionTestUtils.setField(loginThrottleService, "ipBurst", 1);
+
+        loginThrottleService.checkRate("a@javeriana.edu.co", "");
+        loginThrottleService.checkRate("b@javeriana.edu.co", "");
+        loginThrottleService.checkRate("c@javeriana.edu.co", null);
+        loginThrottleService.checkRate("d@javeriana.edu.co", null);
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import co.edu.javeriana.lms.config.security.AuthorizationCache;
+import co.edu.javeriana.lms.config.security.MembershipChangeFeed;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.services.JobLockService;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class MembershipChangeFeedTest {
+
+    @InjectMocks
+    private MembershipChangeFeed membershipChangeFeed;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    @Mock
+    private AuthorizationCache authorizationCache;
+
+    // Rows of membership_change written by other instances, as user id and change time
+    private final List<long[]> remoteChanges = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        when(jobLockService.getInstanceId()).thenReturn("this-instance");
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyLong(), eq("this-instance")))
+                .thenAnswer(invocation -> {
+                    RowMapper<long[]> mapper = invocation.getArgument(1);
+                    List<long[]> rows = new ArrayList<>();
+                    for (long[] change : remoteChanges) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getLong("user_id")).thenReturn(change[0]);
+                        when(rs.getTimestamp("changed_at")).thenReturn(new Timestamp(change[1]));
+                        rows.add(mapper.mapRow(rs, rows.size()));
+                    }
+                    return rows;
+                });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLocalChangeIsRecordedPerUser() {
+        membershipChangeFeed.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of(3L)));
+
+        ArgumentCaptor<List<Long>> userIds = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), userIds.capture(), anyInt(), any());
+        assertEquals(List.of(3L), userIds.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangeWithoutUsersIsRecordedForEveryone() {
+        membershipChangeFeed.onMembershipChanged(new MembershipChangedEvent(Resource.CLASS, 1L, Set.of()));
+
+        ArgumentCaptor<List<Long>> userIds = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), userIds.capture(), anyInt(), any());
+        assertEquals(List.of(0L), userIds.getValue());
+    }
+
+    @Test
+    public void testRemoteChangeIsAppliedOnce() {
+        remoteChanges.add(new long[] { 3L, System.currentTimeMillis() });
+
+        membershipChangeFeed.poll();
+        membershipChangeFeed.poll();
+
+        verify(authorizationCache, times(1)).onRemoteMembershipChanged(Set.of(3L));
+    }
+
+    @Test
+    public void testLaterRemoteChangeOfSameUserIsApplied() {
+        long now = System.currentTimeMillis();
+        remoteChanges.add(new long[] { 3L, now - 2000 });
+        membershipChangeFeed.poll();
+
+        remoteChanges.set(0, new long[] { 3L, now - 1000 });
+        membershipChangeFeed.poll();
+
+        verify(authorizationCache, times(2)).onRemoteMembershipChanged(Set.of(3L));
+    }
+
+    @Test
+    public void testRemoteChangeForEveryoneDropsEverything() {
+        long now = System.currentTimeMillis();
+        remoteChanges.add(new long[] { 3L, now });
+        remoteChanges.add(new long[] { 0L, now });
+
+        membershipChangeFeed.poll();
+
+        verify(authorizationCache).onRemoteMembershipChanged(Set.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedPollKeepsTheCaches() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyLong(), eq("this-instance")))
+                .thenThrow(new DataAccessResourceFailureException("Database down"));
+
+        membershipChangeFeed.poll();
+
+        verify(authorizationCache, never()).onRemoteMembershipChanged(any());
+    }
+}
@@ -12,6 +12,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
 
 import co.edu.javeriana.lms.grades.models.RubricTemplate;
@@ -19,6 +20,8 @@ import co.edu.javeriana.lms.practices.models.Practice;
 import co.edu.javeriana.lms.practices.models.PracticeType;
 import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
 import co.edu.javeriana.lms.practices.services.PracticeService;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
 import co.edu.javeriana.lms.subjects.repositories.ClassRepository;
 import co.edu.javeriana.lms.grades.repositories.RubricTemplateRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -39,6 +42,9 @@ public class PracticeServiceTest {
     @Mock
     private ClassRepository classRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private Practice mockPractice;
     private RubricTemplate mockRubricTemplate;
 
@@ -130,4 +136,27 @@ public class PracticeServiceTest {
         verify(rubricTemplateRepository, times(1)).findById(rubricId);
         verify(practiceRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeleteById() {
+        // Given
+        when(practiceRepository.existsById(1L)).thenReturn(true);
+
+        // When
+        practiceService.deleteById(1L);
+
+        // Then
+        verify(practiceRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(any(MembershipChangedEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any(RoomBookingsChangedEvent.class));
+    }
+
+    @Test
+    public void testFindClassIdNotFound() {
+        // Given
+        when(practiceRepository.findClassIdById(99L)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(EntityNotFoundException.class, () -> practiceService.findClassId(99L));
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -23,6 +24,7 @@ import co.edu.javeriana.lms.accounts.repositories.PasswordResetTokenRepository;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.accounts.services.EmailService;
 import co.edu.javeriana.lms.accounts.services.ResetPasswordService;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -43,6 +45,9 @@ public class ResetPasswordServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private static String mockEmail = "mock@email.com";
     private static PasswordResetToken mockToken;
     private static String mockTokenValue = "mockToken";
@@ -114,6 +119,7 @@ public class ResetPasswordServiceTest {
 
         verify(userRepository).save(any());
         verify(passwordEncoder).encode(mockNewPassword);
+        verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
     }
 
 }
@@ -0,0 +1,237 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.practices.services.RoomBookingIndex;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class RoomBookingIndexTest {
+
+    @InjectMocks
+    private RoomBookingIndex roomBookingIndex;
+
+    @Mock
+    private SimulationRepository simulationRepository;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final Instant MONDAY = Instant.now().plus(Duration.ofDays(7)).truncatedTo(ChronoUnit.DAYS);
+
+    private final List<RoomIntervalDto> stored = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        // Room 1 is booked 8:00-9:00 and 10:00-11:00, room 2 9:00-10:00
+        stored.add(booking(1L, 1L, 8, 9));
+        stored.add(booking(1L, 2L, 10, 11));
+        stored.add(booking(2L, 3L, 9, 10));
+        when(simulationRepository.findIntervalsByRoomIdsOverlapping(any(), any(), any())).thenAnswer(invocation -> {
+            Long roomId = invocation.<List<Long>>getArgument(0).get(0);
+            Date start = invocation.getArgument(1);
+            Date end = invocation.getArgument(2);
+            return stored.stream().filter(booking -> booking.getRoomId().equals(roomId)
+                    && booking.getStartDateTime().before(end) && booking.getEndDateTime().after(start)).toList();
+        });
+        roomBookingIndex.init();
+    }
+
+    @Test
+    public void testOverlaps() {
+        assertTrue(roomBookingIndex.overlaps(1L, at(8, 30), at(9, 30), null));
+        assertTrue(roomBookingIndex.overlaps(1L, at(7, 0), at(12, 0), null));
+        assertTrue(roomBookingIndex.overlaps(1L, at(10, 15), at(10, 45), null));
+        assertFalse(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+        assertFalse(roomBookingIndex.overlaps(1L, at(7, 0), at(8, 0), null));
+        assertFalse(roomBookingIndex.overlaps(1L, at(11, 0), at(12, 0), null));
+        assertTrue(roomBookingIndex.overlaps(2L, at(9, 30), at(11, 0), null));
+    }
+
+    @Test
+    public void testOverlapsWithBookingsThatOverlapEachOther() {
+        // Room 3 holds a long 8:00-18:00 booking and a short 9:00-10:00 one inside it
+        stored.add(booking(3L, 6L, 8, 18));
+        stored.add(booking(3L, 7L, 9, 10));
+
+        assertTrue(roomBookingIndex.overlaps(3L, at(12, 0), at(13, 0), null));
+        assertTrue(roomBookingIndex.overlaps(3L, at(10, 0), at(11, 0), null));
+        assertTrue(roomBookingIndex.overlaps(3L, at(9, 30), at(9, 45), 6L));
+        assertFalse(roomBookingIndex.overlaps(3L, at(12, 0), at(13, 0), 6L));
+        assertFalse(roomBookingIndex.overlaps(3L, at(18, 0), at(19, 0), null));
+    }
+
+    @Test
+    public void testOverlapsLoadsEachRoomOnce() {
+        for (int i = 0; i < 100; i++) {
+            roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null);
+        }
+
+        verify(simulationRepository, times(1)).findIntervalsByRoomIdsOverlapping(eq(List.of(1L)), any(), any());
+        assertEquals(100, checks("index"));
+    }
+
+    @Test
+    public void testOverlapsIgnoresTheMovedSimulation() {
+        assertFalse(roomBookingIndex.overlaps(1L, at(8, 30), at(9, 30), 1L));
+        assertTrue(roomBookingIndex.overlaps(1L, at(8, 30), at(10, 30), 1L));
+        assertTrue(roomBookingIndex.overlaps(1L, at(8, 30), at(10, 30), 2L));
+    }
+
+    @Test
+    public void testOverlapsOutsideHorizonAsksTheDatabase() {
+        Date start = Date.from(MONDAY.plus(Duration.ofDays(400)));
+        Date end = Date.from(MONDAY.plus(Duration.ofDays(400)).plus(Duration.ofHours(1)));
+
+        assertFalse(roomBookingIndex.overlaps(1L, start, end, null));
+
+        verify(simulationRepository, times(1)).findIntervalsByRoomIdsOverlapping(List.of(1L), start, end);
+        assertEquals(1, checks("database"));
+    }
+
+    @Test
+    public void testBookingsChangedUpdatesLoadedRooms() {
+        assertFalse(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+        assertFalse(roomBookingIndex.overlaps(2L, at(8, 0), at(9, 0), null));
+
+        // Simulation 1 moves from 8:00 to 9:00 and a new simulation 4 takes 8:00-9:00 in room 2
+        stored.removeIf(booking -> booking.getSimulationId().equals(1L));
+        stored.add(booking(1L, 1L, 9, 10));
+        stored.add(booking(2L, 4L, 8, 9));
+        roomBookingIndex.onRoomBookingsChanged(new RoomBookingsChangedEvent(Set.of(1L, 4L),
+                List.of(booking(1L, 1L, 9, 10), booking(2L, 4L, 8, 9))));
+
+        assertTrue(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+        assertFalse(roomBookingIndex.overlaps(1L, at(8, 0), at(9, 0), null));
+        assertTrue(roomBookingIndex.overlaps(2L, at(8, 0), at(9, 0), null));
+        verifyLoads(1L, 1);
+
+        // Simulation 2 is deleted
+        stored.removeIf(booking -> booking.getSimulationId().equals(2L));
+        roomBookingIndex.onRoomBookingsChanged(new RoomBookingsChangedEvent(Set.of(2L), List.of()));
+
+        assertFalse(roomBookingIndex.overlaps(1L, at(10, 0), at(11, 0), null));
+    }
+
+    @Test
+    public void testBookingsChangedWithoutIdsReloads() {
+        roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null);
+        stored.add(booking(1L, 5L, 9, 10));
+
+        roomBookingIndex.onRoomBookingsChanged(new RoomBookingsChangedEvent(null, List.of()));
+
+        assertTrue(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+        verifyLoads(1L, 2);
+    }
+
+    @Test
+    public void testConflictOnlyInTheIndexIsConfirmedByTheDatabase() {
+        assertTrue(roomBookingIndex.overlaps(1L, at(8, 30), at(9, 30), null));
+
+        // Another instance deletes simulation 1, this one never gets the event
+        stored.removeIf(booking -> booking.getSimulationId().equals(1L));
+
+        assertFalse(roomBookingIndex.overlaps(1L, at(8, 30), at(9, 30), null));
+        assertEquals(2, checks("database"));
+        verifyLoads(1L, 1);
+    }
+
+    @Test
+    public void testBookingFromAnotherInstanceIsLeftToTheConstraint() {
+        assertFalse(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+
+        // Another instance books 9:00-10:00. The index is advisory, the exclusion constraint rejects the new booking
+        stored.add(booking(1L, 9L, 9, 10));
+
+        assertFalse(roomBookingIndex.overlaps(1L, at(9, 0), at(10, 0), null));
+        assertEquals(2, checks("index"));
+    }
+
+    @Test
+    public void testRemovedLongBookingNoLongerOverlaps() {
+        stored.add(booking(3L, 6L, 8, 18));
+        stored.add(booking(3L, 7L, 9, 10));
+        assertTrue(roomBookingIndex.overlaps(3L, at(12, 0), at(13, 0), null));
+
+        stored.removeIf(booking -> booking.getSimulationId().equals(6L));
+        roomBookingIndex.onRoomBookingsChanged(new RoomBookingsChangedEvent(Set.of(6L), List.of()));
+
+        assertFalse(roomBookingIndex.overlaps(3L, at(12, 0), at(13, 0), null));
+        assertTrue(roomBookingIndex.overlaps(3L, at(9, 30), at(9, 45), null));
+        assertEquals(1, checks("index"));
+    }
+
+    @Test
+    public void testOverlapsMatchesAScanOfEveryBooking() {
+        Random random = new Random(42);
+        for (long simulationId = 100; simulationId < 400; simulationId++) {
+            int start = random.nextInt(24 * 60);
+            stored.add(new RoomIntervalDto(4L, simulationId, at(0, start), at(0, start + 15 + random.nextInt(600))));
+        }
+
+        int free = 0;
+        for (int i = 0; i < 1000; i++) {
+            int start = random.nextInt(24 * 60);
+            Date startDateTime = at(0, start);
+            Date endDateTime = at(0, start + 1 + random.nextInt(30));
+            Long ignored = random.nextBoolean() ? 100L + random.nextInt(300) : null;
+            boolean expected = stored.stream().anyMatch(booking -> booking.getRoomId().equals(4L)
+                    && !booking.getSimulationId().equals(ignored)
+                    && booking.getStartDateTime().before(endDateTime) && booking.getEndDateTime().after(startDateTime));
+            free += expected ? 0 : 1;
+
+            assertEquals(expected, roomBookingIndex.overlaps(4L, startDateTime, endDateTime, ignored));
+        }
+        // Only conflicts go to the database, so the index found every free window on its own
+        assertEquals(free, checks("index"));
+    }
+
+    // A load asks for the whole horizon, which starts a day before now
+    private void verifyLoads(Long roomId, int times) {
+        verify(simulationRepository, times(times)).findIntervalsByRoomIdsOverlapping(eq(List.of(roomId)),
+                argThat(from -> from.before(new Date())), any());
+    }
+
+    private double checks(String source) {
+        return meterRegistry.get("room.bookings.checks").tag("source", source).counter().count();
+    }
+
+    private static Date at(int hour, int minute) {
+        return Date.from(MONDAY.plus(Duration.ofHours(hour)).plus(Duration.ofMinutes(minute)));
+    }
+
+    private static RoomIntervalDto booking(Long roomId, Long simulationId, int startHour, int endHour) {
+        return new RoomIntervalDto(roomId, simulationId, at(startHour, 0), at(endHour, 0));
+    }
+}
@@ -1,10 +1,19 @@
 package co.edu.javeriana.lms.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,11 +31,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
+import co.edu.javeriana.lms.booking.dtos.FreeRoomDto;
+import co.edu.javeriana.lms.booking.dtos.FreeWindowDto;
 import co.edu.javeriana.lms.booking.models.Room;
 import co.edu.javeriana.lms.booking.models.RoomType;
 import co.edu.javeriana.lms.booking.repositories.RoomRepository;
 import co.edu.javeriana.lms.booking.repositories.RoomTypeRepository;
 import co.edu.javeriana.lms.booking.services.RoomService;
+import co.edu.javeriana.lms.practices.dtos.RoomIntervalDto;
+import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 @SpringBootTest
@@ -42,6 +55,9 @@ public class RoomServiceTest {
     @Mock
     private RoomTypeRepository roomTypeRepository;
 
+    @Mock
+    private SimulationRepository simulationRepository;
+
     private static Room mockRoom1;
     private static Room mockRoom2;
     private static RoomType mockRoomType;
@@ -354,4 +370,96 @@ public class RoomServiceTest {
         assert (count == 2L);
         verify(roomRepository, times(1)).countByType(mockRoomType);
     }
+
+    @Test
+    public void testFindFreeRooms() throws ParseException {
+        // Arrange
+        when(roomRepository.findByCapacityGreaterThanEqualOrderById(10)).thenReturn(List.of(mockRoom1, mockRoom2));
+        // Room A: overlapping bookings 9:00-10:00 and 9:30-10:30, a 20 minute gap, then 10:50-12:00
+        when(simulationRepository.findIntervalsByRoomIdsOverlapping(any(), any(), any())).thenReturn(List.of(
+                new RoomIntervalDto(1L, 3L, date("2030-03-04 10:50"), date("2030-03-04 12:00")),
+                new RoomIntervalDto(2L, 4L, date("2030-03-04 07:00"), date("2030-03-04 17:00")),
+                new RoomIntervalDto(1L, 1L, date("2030-03-04 09:00"), date("2030-03-04 10:00")),
+                new RoomIntervalDto(1L, 2L, date("2030-03-04 09:30"), date("2030-03-04 10:30"))));
+
+        // Act
+        List<FreeRoomDto> freeRooms = roomService.findFreeRooms("2030-03-04 08:00", "2030-03-04 14:00", 30, 10,
+                null);
+
+        // Assert
+        assertEquals(1, freeRooms.size());
+        assertEquals(1L, freeRooms.get(0).getRoomId());
+        assertEquals(List.of(
+                new FreeWindowDto(date("2030-03-04 08:00"), date("2030-03-04 09:00")),
+                new FreeWindowDto(date("2030-03-04 12:00"), date("2030-03-04 14:00"))),
+                freeRooms.get(0).getWindows());
+        verify(simulationRepository, times(1)).findIntervalsByRoomIdsOverlapping(List.of(1L, 2L),
+                date("2030-03-04 08:00"), date("2030-03-04 14:00"));
+    }
+
+    @Test
+    public void testFindFreeRoomsByType() throws ParseException {
+        // Arrange
+        when(roomRepository.findByCapacityGreaterThanEqualAndType_IdInOrderById(0, List.of(1L)))
+                .thenReturn(List.of(mockRoom2));
+
+        // Act
+        List<FreeRoomDto> freeRooms = roomService.findFreeRooms("2030-03-04 08:00", "2030-03-04 14:00", 60, 0,
+                List.of(1L));
+
+        // Assert
+        assertEquals(1, freeRooms.size());
+        assertEquals(List.of(new FreeWindowDto(date("2030-03-04 08:00"), date("2030-03-04 14:00"))),
+                freeRooms.get(0).getWindows());
+        verify(roomRepository, never()).findByCapacityGreaterThanEqualOrderById(any());
+    }
+
+    @Test
+    public void testFindFreeRoomsInvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.findFreeRooms("2030-03-04 14:00", "2030-03-04 08:00", 30, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.findFreeRooms("2030-01-01 00:00", "2031-01-01 00:00", 30, 0, null));
+        verify(simulationRepository, never()).findIntervalsByRoomIdsOverlapping(any(), any(), any());
+    }
+
+    @Test
+    public void testFindFreeRoomsWholeSemester() throws ParseException {
+        // Arrange: 20 rooms, each booked in two hour blocks from 7:00 to 19:00 on every day but Sunday
+        List<Room> rooms = new ArrayList<>();
+        List<RoomIntervalDto> bookings = new ArrayList<>();
+        long day = 24 * 60 * 60 * 1000L;
+        long semesterStart = date("2030-01-20 00:00").getTime();
+        for (long roomId = 1; roomId <= 20; roomId++) {
+            rooms.add(Room.builder().id(roomId).name("Room " + roomId).capacity(20).ip("10.0.0." + roomId)
+                    .type(mockRoomType).build());
+            for (int d = 0; d < 140; d++) {
+                if (d % 7 == 6) {
+                    continue;
+                }
+                for (int block = 0; block < 6; block++) {
+                    long start = semesterStart + d * day + (7 + block * 2) * 60 * 60 * 1000L;
+                    bookings.add(new RoomIntervalDto(roomId, roomId * 100000 + d * 10 + block, new Date(start),
+                            new Date(start + 2 * 60 * 60 * 1000L)));
+                }
+            }
+        }
+        when(roomRepository.findByCapacityGreaterThanEqualOrderById(0)).thenReturn(rooms);
+        when(simulationRepository.findIntervalsByRoomIdsOverlapping(any(), any(), any())).thenReturn(bookings);
+
+        // Act
+        long startTime = System.nanoTime();
+        List<FreeRoomDto> freeRooms = roomService.findFreeRooms("2030-01-20 00:00", "2030-06-09 00:00", 60, 0,
+                null);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        // Assert: the nights and the Sundays between them
+        assertEquals(20, freeRooms.size());
+        assertEquals(121, freeRooms.get(0).getWindows().size());
+        assertTrue(elapsedMillis < 1000, "Semester search took " + elapsedMillis + " ms");
+    }
+
+    private static Date date(String date) throws ParseException {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm").parse(date);
+    }
 }
@@ -0,0 +1,135 @@
+package co.edu.javeriana.lms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import co.edu.javeriana.lms.config.security.AuthorizationInterceptor;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable;
+import co.edu.javeriana.lms.config.security.RouteAuthorizationTable.Resource;
+
+public class RouteAuthorizationTableTest {
+
+    // Every route of the class, simulation, practice and grade controllers the interceptor is registered on
+    private static final List<String> ROUTES = List.of(
+            "/class/all", "/class/12/member/all", "/class/12/member/students", "/class/12/member/professors",
+            "/class/12/member/all/outside", "/class/12/member/students/outside",
+            "/class/12/member/professors/outside", "/class/12", "/class/delete/12", "/class/delete/12/member/7",
+            "/class/update/12", "/class/update/12/members", "/class/update/12/members/professor/7",
+            "/class/update/12/members/student/7", "/class/add", "/class/add/excel", "/class/all/professor",
+            "/class/all/student", "/simulation/all", "/simulation/34", "/simulation/schedule",
+            "/practice/all", "/practice/56", "/practice/class/12", "/practice/add/12", "/practice/56/rubric/3",
+            "/practice/56/enrolled", "/grade/class/12", "/grade/student/12", "/grade/class/12/percentages");
+
+    private final RouteAuthorizationTable table = AuthorizationInterceptor.ROUTES;
+
+    @Test
+    public void testResolvesResourceOfEachRoute() {
+        assertMatch(Resource.CLASS, 12L, "/class/12");
+        assertMatch(Resource.CLASS, 12L, "/class/12/member/students/outside");
+        assertMatch(Resource.CLASS, 12L, "/grade/class/12/percentages");
+        assertMatch(Resource.CLASS, 12L, "/practice/class/12");
+        assertMatch(Resource.PRACTICE, 56L, "/practice/56/rubric/3");
+        assertMatch(Resource.SIMULATION, 34L, "/simulation/34");
+    }
+
+    @Test
+    public void testRoutesWithoutResourceIdAreNotChecked() {
+        assertNull(table.resolve("/class/all/professor"));
+        assertNull(table.resolve("/class/delete/12/member/7"));
+        assertNull(table.resolve("/practice/add/12"));
+        assertNull(table.resolve("/grade/student/12"));
+        assertNull(table.resolve("/simulation/schedule"));
+        assertNull(table.resolve("/class/12abc"));
+        assertNull(table.resolve("/class/99999999999999999999"));
+    }
+
+    @Test
+    public void testEachRouteIsCheckedOnceForTheResourcesItWasCheckedFor() {
+        for (String route : ROUTES) {
+            List<String> legacyChecks = legacyChecks(route);
+            RouteAuthorizationTable.Match match = table.resolve(route);
+
+            if (legacyChecks.isEmpty()) {
+                assertNull(match, route);
+            } else {
+                // The legacy scans could authorize the same class twice, but never two different resources
+                assertEquals(1, legacyChecks.stream().distinct().count(), route);
+                assertEquals(legacyChecks.get(0), match.getResource() + ":" + match.getId(), route);
+            }
+        }
+    }
+
+    @Test
+    public void testTemplateMustEndWithId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RouteAuthorizationTable().route("/class/all", Resource.CLASS));
+    }
+
+    @Test
+    public void testLiteralSegmentsTakePrecedenceOverIds() {
+        RouteAuthorizationTable routes = new RouteAuthorizationTable()
+                .route("/item/{id}", Resource.CLASS)
+                .route("/item/special/{id}", Resource.SIMULATION);
+
+        RouteAuthorizationTable.Match literal = routes.resolve("/item/special/5");
+        RouteAuthorizationTable.Match id = routes.resolve("/item/7/anything/else");
+
+        assertEquals(Resource.SIMULATION, literal.getResource());
+        assertEquals(5L, literal.getId());
+        assertEquals(Resource.CLASS, id.getResource());
+        assertEquals(7L, id.getId());
+        assertNull(routes.resolve("/item/special"));
+        assertNull(routes.resolve("/item/special/x"));
+    }
+
+    @Test
+    public void testPathsShorterThanAnyTemplateAreNotChecked() {
+        assertNull(table.resolve("/"));
+        assertNull(table.resolve(""));
+        assertNull(table.resolve("/class"));
+        assertNull(table.resolve("/grade/class"));
+        assertNull(table.resolve("/unknown/12"));
+    }
+
+    private void assertMatch(Resource resource, Long id, String path) {
+        RouteAuthorizationTable.Match match = table.resolve(path);
+        assertEquals(resource, match.getResource(), path);
+        assertEquals(id, match.getId(), path);
+    }
+
+    // The checks the interceptor used to run, one entry per membership check
+    private List<String> legacyChecks(String uri) {
+        List<String> checks = new ArrayList<>();
+        if (uri.contains("/practice/")) {
+            addCheck(checks, Resource.PRACTICE, "/practice/(\\d+)", uri);
+        }
+        if (uri.contains("/grade/")) {
+            addCheck(checks, Resource.CLASS, "/grade/class/(\\d+)", uri);
+        }
+        if (uri.contains("/member/")) {
+            addCheck(checks, Resource.CLASS, "/class/(\\d+)/member", uri);
+        }
+        if (uri.contains("/class/")) {
+            addCheck(checks, Resource.CLASS, "/class/(\\d+)", uri);
+        }
+        if (uri.contains("/simulation/")) {
+            addCheck(checks, Resource.SIMULATION, "/simulation/(\\d+)", uri);
+        }
+        return checks;
+    }
+
+    private void addCheck(List<String> checks, Resource resource, String regex, String uri) {
+        Matcher matcher = Pattern.compile(regex).matcher(uri);
+        if (matcher.find()) {
+            checks.add(resource + ":" + Long.parseLong(matcher.group(1)));
+        }
+    }
+}
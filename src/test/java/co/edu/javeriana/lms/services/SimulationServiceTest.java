@@ -3,12 +3,14 @@ package co.edu.javeriana.lms.services;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,27 +21,41 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 
 import co.edu.javeriana.lms.accounts.models.User;
+import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.booking.models.Room;
 import co.edu.javeriana.lms.booking.models.RoomType;
 import co.edu.javeriana.lms.booking.repositories.RoomRepository;
 import co.edu.javeriana.lms.grades.dtos.EvaluatedCriteriaDto;
 import co.edu.javeriana.lms.grades.dtos.RubricDto;
 import co.edu.javeriana.lms.grades.models.*;
+import co.edu.javeriana.lms.practices.dtos.RoomBusyBlockDto;
 import co.edu.javeriana.lms.practices.dtos.SimulationByTimeSlotDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationAvailabilityDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationJoinStateDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationListDto;
+import co.edu.javeriana.lms.practices.dtos.SimulationSeatsDto;
 import co.edu.javeriana.lms.practices.dtos.TimeSlotDto;
 import co.edu.javeriana.lms.practices.models.*;
 import co.edu.javeriana.lms.practices.repositories.PracticeRepository;
 import co.edu.javeriana.lms.practices.repositories.SimulationRepository;
+import co.edu.javeriana.lms.practices.services.RoomBookingIndex;
 import co.edu.javeriana.lms.practices.services.SimulationService;
 import co.edu.javeriana.lms.grades.repositories.RubricRepository;
+import co.edu.javeriana.lms.shared.events.MembershipChangedEvent;
+import co.edu.javeriana.lms.shared.events.RoomBookingsChangedEvent;
+import co.edu.javeriana.lms.subjects.models.ClassMembership;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.web.server.ResponseStatusException;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
@@ -61,6 +77,15 @@ public class SimulationServiceTest {
     @Mock
     private RoomRepository roomRepository;
 
+    @Mock
+    private RoomBookingIndex roomBookingIndex;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private static Simulation mockSimulation;
     private static Practice mockPractice;
     private static User mockUser;
@@ -134,11 +159,11 @@ public class SimulationServiceTest {
                 .build();
 
         Date startDate = Date.from(LocalDateTime.now()
-                .withHour(9).withMinute(0)
+                .withHour(9).withMinute(0).withSecond(0).withNano(0)
                 .atZone(ZoneId.systemDefault()).toInstant());
 
         Date endDate = Date.from(LocalDateTime.now()
-                .withHour(9).withMinute(30)
+                .withHour(9).withMinute(30).withSecond(0).withNano(0)
                 .atZone(ZoneId.systemDefault()).toInstant());
 
         mockSimulation = Simulation.builder()
@@ -168,7 +193,7 @@ public class SimulationServiceTest {
                 .thenReturn(mockPage);
 
         // When
-        Page<Simulation> result = simulationService.findAllSimulations(0, 10);
+        Page<SimulationListDto> result = simulationService.findAllSimulations(0, 10);
 
         // Then
         assertEquals(2, result.getTotalElements());
@@ -180,7 +205,7 @@ public class SimulationServiceTest {
     @Test
     public void testFindSimulationByIdSuccess() {
         // Given
-        when(simulationRepository.findById(1L))
+        when(simulationRepository.findWithDetailsBySimulationId(1L))
                 .thenReturn(Optional.of(mockSimulation));
 
         // When
@@ -200,7 +225,7 @@ public class SimulationServiceTest {
     @Test
     public void testFindSimulationByIdNotFound() {
         // Given
-        when(simulationRepository.findById(99L))
+        when(simulationRepository.findWithDetailsBySimulationId(99L))
                 .thenReturn(Optional.empty());
 
         // When / Then
@@ -209,6 +234,31 @@ public class SimulationServiceTest {
         });
     }
 
+    @Test
+    public void testFindMembership() {
+        // Given
+        int membership = ClassMembership.EXISTS | ClassMembership.PROFESSOR;
+        when(simulationRepository.findMembership(1L, 3L)).thenReturn(membership);
+
+        // When
+        int result = simulationService.findMembership(1L, 3L);
+
+        // Then
+        assertEquals(membership, result);
+        verify(simulationRepository, never()).findById(1L);
+    }
+
+    @Test
+    public void testFindMembershipNotFound() {
+        // Given
+        when(simulationRepository.findMembership(99L, 3L)).thenReturn(0);
+
+        // When / Then
+        assertThrows(EntityNotFoundException.class, () -> {
+            simulationService.findMembership(99L, 3L);
+        });
+    }
+
     @Test
     public void testFindSimulationsByPracticeId() {
         // Given
@@ -224,21 +274,21 @@ public class SimulationServiceTest {
                 PageRequest.of(0, 10, Sort.by("groupNumber").ascending()),
                 simulations.size());
 
-        when(practiceRepository.findById(1L))
-                .thenReturn(Optional.of(mockPractice));
+        when(practiceRepository.existsById(1L)).thenReturn(true);
         when(simulationRepository.findByPracticeId(1L,
                 PageRequest.of(0, 10, Sort.by("groupNumber").ascending())))
                 .thenReturn(mockPage);
 
         // When
-        Page<Simulation> result = simulationService.findSimulationsByPracticeId(
+        Page<SimulationListDto> result = simulationService.findSimulationsByPracticeId(
                 1L, 0, 10, "groupNumber", true, null);
 
         // Then
         assertEquals(2, result.getTotalElements());
         assertEquals(1L, result.getContent().get(0).getSimulationId());
         assertEquals(2L, result.getContent().get(1).getSimulationId());
-        assertEquals(mockPractice, result.getContent().get(0).getPractice());
+        assertEquals(mockPractice.getId(), result.getContent().get(0).getPracticeId());
+        assertEquals(List.of(mockRoom), result.getContent().get(0).getRooms());
     }
 
     @Test
@@ -346,27 +396,73 @@ public class SimulationServiceTest {
         List<Simulation> simulations = Collections.singletonList(expectedSimulation);
         Page<Simulation> mockPage = new PageImpl<>(simulations, PageRequest.of(0, 10), simulations.size());
 
-        when(practiceRepository.findById(1L))
-                .thenReturn(Optional.of(mockPractice));
+        when(practiceRepository.existsById(1L)).thenReturn(true);
         when(simulationRepository.findByPracticeIdAndGroupNumber(1L, 1, PageRequest.of(0, 10)))
                 .thenReturn(mockPage);
 
         // When - Llamamos sin parámetros sort/asc
-        Page<Simulation> result = simulationService.findSimulationsByPracticeId(
+        Page<SimulationListDto> result = simulationService.findSimulationsByPracticeId(
                 1L, 0, 10, null, null, 1);
 
         // Then
         assertEquals(1, result.getTotalElements());
-        Simulation actualSimulation = result.getContent().get(0);
+        SimulationListDto actualSimulation = result.getContent().get(0);
         assertEquals(1L, actualSimulation.getSimulationId());
         assertEquals(1, actualSimulation.getGroupNumber());
-        assertEquals(mockPractice, actualSimulation.getPractice());
+        assertEquals(mockPractice.getId(), actualSimulation.getPracticeId());
 
-        verify(practiceRepository, times(1)).findById(1L);
+        verify(practiceRepository, times(1)).existsById(1L);
         verify(simulationRepository, times(1))
                 .findByPracticeIdAndGroupNumber(1L, 1, PageRequest.of(0, 10));
     }
 
+    @Test
+    public void testFindSimulationStudents() {
+        // Given
+        when(simulationRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findBySimulations_SimulationIdOrderById(1L)).thenReturn(List.of(mockUser));
+
+        // When
+        List<User> result = simulationService.findSimulationStudents(1L);
+
+        // Then
+        assertEquals(List.of(mockUser), result);
+        verify(simulationRepository, never()).findById(1L);
+    }
+
+    @Test
+    public void testFindSimulationStudentsNotFound() {
+        // Given
+        when(simulationRepository.existsById(99L)).thenReturn(false);
+
+        // When / Then
+        assertThrows(EntityNotFoundException.class, () -> simulationService.findSimulationStudents(99L));
+        verify(userRepository, never()).findBySimulations_SimulationIdOrderById(99L);
+    }
+
+    @Test
+    public void testFindSimulationCandidatesQueriesAllRoomsAtOnce() {
+        // Given
+        Room otherRoom = Room.builder().id(2L).name("Consultorio 2").capacity(11).ip("10.197.140.235")
+                .type(mockRoomType).build();
+        Simulation baseSimulation = Simulation.builder().simulationId(1L).groupNumber(1).practice(mockPractice)
+                .startDateTime(mockSimulation.getStartDateTime()).rooms(List.of(mockRoom, otherRoom)).build();
+        Simulation candidate = Simulation.builder().simulationId(2L).groupNumber(2).practice(mockPractice)
+                .startDateTime(mockSimulation.getStartDateTime()).rooms(List.of(otherRoom)).seatsTaken(3).build();
+        when(simulationRepository.findWithDetailsBySimulationId(1L)).thenReturn(Optional.of(baseSimulation));
+        when(simulationRepository.findCandidates(eq(1L), eq(List.of(mockRoom.getId(), 2L)), any(), any()))
+                .thenReturn(List.of(candidate));
+
+        // When
+        List<SimulationListDto> result = simulationService.findSimulationCandidates(1L);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getSimulationId());
+        assertEquals(3, result.get(0).getEnrolledStudents());
+        verify(simulationRepository, times(1)).findCandidates(any(), any(), any(), any());
+    }
+
     @Test
     public void testAddSimulations() {
         // Given
@@ -374,10 +470,8 @@ public class SimulationServiceTest {
                 .thenReturn(Optional.of(mockPractice));
         when(simulationRepository.save(any(Simulation.class)))
                 .thenReturn(mockSimulation);
-        when(roomRepository.findById(1L))
-                .thenReturn(Optional.of(mockRoom));
-        when(simulationRepository.isRoomAvailable(eq(mockRoom), any(Date.class), any(Date.class)))
-                .thenReturn(true);
+        when(roomRepository.findAllById(List.of(1L)))
+                .thenReturn(List.of(mockRoom));
 
         // When
         List<Simulation> result = simulationService.addSimulations(List.of(SimulationByTimeSlotDto.builder()
@@ -391,6 +485,99 @@ public class SimulationServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(1, result.get(0).getGroupNumber());
+        verify(simulationRepository, times(1)).saveAll(result);
+        verify(simulationRepository, never()).save(any(Simulation.class));
+    }
+
+    @Test
+    public void testAddSimulationsAcrossRoomsInOneBatch() {
+        // Given
+        Practice practice = Practice.builder().id(2L).name("Práctica 2").description("Descripción")
+                .type(PracticeType.GRUPAL).gradeable(false).numberOfGroups(4).maxStudentsGroup(3)
+                .simulationDuration(30).build();
+        Room otherRoom = Room.builder().id(2L).name("Consultorio 2").capacity(5).ip("10.197.140.235")
+                .type(mockRoomType).build();
+        Date start = Date.from(Instant.parse("2030-03-04T14:00:00Z"));
+        Date end = Date.from(Instant.parse("2030-03-04T15:00:00Z"));
+        when(practiceRepository.findById(2L)).thenReturn(Optional.of(practice));
+        when(roomRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(mockRoom, otherRoom));
+        when(simulationRepository.findMaxGroupNumberByPracticeId(2L)).thenReturn(6);
+
+        // When
+        List<Simulation> result = simulationService.addSimulations(List.of(
+                SimulationByTimeSlotDto.builder().practiceId(2L).roomIds(List.of(1L))
+                        .startDateTime(start).endDateTime(end).build(),
+                SimulationByTimeSlotDto.builder().practiceId(2L).roomIds(List.of(2L))
+                        .startDateTime(start).endDateTime(end).build()));
+
+        // Then
+        assertEquals(List.of(7, 8, 9, 10), result.stream().map(Simulation::getGroupNumber).toList());
+        assertEquals(GradeStatus.NOT_EVALUABLE, result.get(0).getGradeStatus());
+        verify(practiceRepository, times(1)).findById(2L);
+        verify(roomRepository, never()).findById(any());
+        verify(roomBookingIndex, times(1)).overlaps(1L, start, end, null);
+        verify(roomBookingIndex, times(1)).overlaps(2L, start, end, null);
+        verify(simulationRepository, never()).findIntervalsByRoomIdsOverlapping(any(), any(), any());
+        verify(simulationRepository, times(1)).findMaxGroupNumberByPracticeId(2L);
+        verify(simulationRepository, times(1)).saveAll(result);
+        verify(eventPublisher, times(1)).publishEvent(any(RoomBookingsChangedEvent.class));
+    }
+
+    @Test
+    public void testAddSimulationsRoomAlreadyBooked() {
+        // Given
+        Practice practice = Practice.builder().id(2L).name("Práctica 2").description("Descripción")
+                .type(PracticeType.GRUPAL).gradeable(true).numberOfGroups(2).maxStudentsGroup(3)
+                .simulationDuration(30).build();
+        when(practiceRepository.findById(2L)).thenReturn(Optional.of(practice));
+        when(roomRepository.findAllById(List.of(1L))).thenReturn(List.of(mockRoom));
+        when(roomBookingIndex.overlaps(eq(1L), any(Date.class), any(Date.class), isNull())).thenReturn(true);
+
+        // When / Then
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> simulationService.addSimulations(List.of(SimulationByTimeSlotDto.builder().practiceId(2L)
+                        .roomIds(List.of(1L)).startDateTime(Date.from(Instant.parse("2030-03-04T14:00:00Z")))
+                        .endDateTime(Date.from(Instant.parse("2030-03-04T15:00:00Z"))).build())));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verify(simulationRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any(RoomBookingsChangedEvent.class));
+    }
+
+    @Test
+    public void testAddSimulationsOverlappingSlotsInRequest() {
+        // Given
+        Practice practice = Practice.builder().id(2L).name("Práctica 2").description("Descripción")
+                .type(PracticeType.GRUPAL).gradeable(true).numberOfGroups(4).maxStudentsGroup(3)
+                .simulationDuration(30).build();
+        SimulationByTimeSlotDto slot = SimulationByTimeSlotDto.builder().practiceId(2L).roomIds(List.of(1L))
+                .startDateTime(Date.from(Instant.parse("2030-03-04T14:00:00Z")))
+                .endDateTime(Date.from(Instant.parse("2030-03-04T15:00:00Z"))).build();
+        SimulationByTimeSlotDto overlapping = SimulationByTimeSlotDto.builder().practiceId(2L).roomIds(List.of(1L))
+                .startDateTime(Date.from(Instant.parse("2030-03-04T14:30:00Z")))
+                .endDateTime(Date.from(Instant.parse("2030-03-04T15:30:00Z"))).build();
+        when(practiceRepository.findById(2L)).thenReturn(Optional.of(practice));
+        when(roomRepository.findAllById(List.of(1L))).thenReturn(List.of(mockRoom));
+
+        // When / Then
+        assertThrows(ResponseStatusException.class,
+                () -> simulationService.addSimulations(List.of(slot, overlapping)));
+        verify(simulationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testAddSimulationsRoomNotFound() {
+        // Given
+        when(practiceRepository.findById(1L)).thenReturn(Optional.of(mockPractice));
+        when(roomRepository.findAllById(List.of(1L))).thenReturn(List.of());
+
+        // When / Then
+        assertThrows(EntityNotFoundException.class,
+                () -> simulationService.addSimulations(List.of(SimulationByTimeSlotDto.builder()
+                        .startDateTime(mockSimulation.getStartDateTime())
+                        .endDateTime(mockSimulation.getEndDateTime())
+                        .practiceId(1L)
+                        .roomIds(List.of(1L))
+                        .build())));
     }
 
     @Test
@@ -400,8 +587,6 @@ public class SimulationServiceTest {
                 .thenReturn(Optional.of(mockSimulation));
         when(simulationRepository.save(any(Simulation.class)))
                 .thenReturn(mockSimulation);
-        when(simulationRepository.isRoomAvailable(eq(mockRoom), any(Date.class), any(Date.class)))
-                .thenReturn(true);
         when(roomRepository.findById(1L)).thenReturn(Optional.of(mockRoom));
 
         // When
@@ -416,6 +601,58 @@ public class SimulationServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getSimulationId());
         assertEquals(mockPractice, result.getPractice());
+        // The simulation does not conflict with its own booking
+        verify(roomBookingIndex, times(1)).overlaps(eq(1L), any(Date.class), any(Date.class), eq(1L));
+        verify(eventPublisher, times(1)).publishEvent(any(RoomBookingsChangedEvent.class));
+    }
+
+    @Test
+    public void testUpdateSimulationRoomBooked() {
+        // Given
+        when(simulationRepository.findById(1L)).thenReturn(Optional.of(mockSimulation));
+        when(roomRepository.findById(1L)).thenReturn(Optional.of(mockRoom));
+        when(roomBookingIndex.overlaps(eq(1L), any(Date.class), any(Date.class), eq(1L))).thenReturn(true);
+
+        // When / Then
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> simulationService.updateSimulation(1L, SimulationByTimeSlotDto.builder()
+                        .startDateTime(mockSimulation.getStartDateTime())
+                        .endDateTime(mockSimulation.getEndDateTime())
+                        .practiceId(1L)
+                        .roomIds(List.of(1L))
+                        .build()));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verify(simulationRepository, never()).save(any(Simulation.class));
+    }
+
+    @Test
+    public void testFindAvailableSimulationsByPracticeId() {
+        Date tomorrow = Date.from(Instant.now().plusSeconds(86400));
+        Date yesterday = Date.from(Instant.now().minusSeconds(86400));
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("groupNumber").ascending());
+        when(practiceRepository.existsById(1L)).thenReturn(true);
+        when(simulationRepository.findSeatsByPracticeId(1L, null, pageable)).thenReturn(new PageImpl<>(List.of(
+                seats(1L, tomorrow, GradeStatus.PENDING, 1),
+                seats(2L, tomorrow, GradeStatus.PENDING, 3),
+                seats(3L, yesterday, GradeStatus.PENDING, 0),
+                seats(4L, tomorrow, GradeStatus.REGISTERED, 0)), pageable, 4));
+
+        Page<SimulationAvailabilityDto> result = simulationService.findAvailableSimulationsByPracticeId(1L, 0, 10,
+                "groupNumber", true, null);
+
+        assertEquals(4, result.getTotalElements());
+        assertEquals(List.of(true, false, false, false),
+                result.getContent().stream().map(SimulationAvailabilityDto::getAvailable).toList());
+        assertEquals(3, result.getContent().get(1).getEnrolledStudents());
+        verify(simulationRepository, never()).findByPracticeId(any(), any(Pageable.class));
+    }
+
+    @Test
+    public void testFindAvailableSimulationsByPracticeIdNotFound() {
+        when(practiceRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> simulationService.findAvailableSimulationsByPracticeId(1L, 0, 10, "groupNumber", true, null));
     }
 
     @Test
@@ -429,6 +666,8 @@ public class SimulationServiceTest {
 
         // Then
         verify(simulationRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(any(MembershipChangedEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any(RoomBookingsChangedEvent.class));
     }
 
     @Test
@@ -447,20 +686,10 @@ public class SimulationServiceTest {
     public void testFindSimulationsSchedule() {
         String mockDate = "2023-10-01T09:00:00Z";
         // Given
-        List<Simulation> simulations = Arrays.asList(
-                mockSimulation,
-                Simulation.builder()
-                        .simulationId(2L)
-                        .groupNumber(2)
-                        .practice(mockPractice)
-                        .rooms(List.of(mockRoom))
-                        .startDateTime(Date.from(Instant.parse(mockDate)))
-                        .endDateTime(Date.from(Instant.parse(mockDate).plusSeconds(3600)))
-                        .build());
-
-        when(simulationRepository.findByStartDateTimeBetween(
-                any(Date.class), any(Date.class)))
-                .thenReturn(simulations);
+        when(simulationRepository.streamBusyBlocksByStartDateTimeBetween(any(Date.class), any(Date.class)))
+                .thenReturn(Stream.of(
+                        busyBlock(1L, mockRoom.getName(), "2023-10-01T08:00:00", "2023-10-01T10:00:00"),
+                        busyBlock(1L, mockRoom.getName(), "2023-10-01T11:00:00", "2023-10-01T11:30:00")));
 
         // When
         List<TimeSlotDto> result = simulationService.findSimulationsSchedule(mockDate);
@@ -469,5 +698,170 @@ public class SimulationServiceTest {
         assertEquals(2, result.size());
         assertEquals(mockRoom.getName(), result.get(0).getRoom());
         assertEquals(mockRoom.getName(), result.get(1).getRoom());
+        assertEquals("2023-10-01 08:00", result.get(0).getStartDateTime());
+        assertEquals("2023-10-01 10:00", result.get(0).getEndDateTime());
+        verify(simulationRepository, never()).findByStartDateTimeBetween(any(), any());
+    }
+
+    @Test
+    public void testFindSimulationsScheduleRange() {
+        // Given
+        when(simulationRepository.streamBusyBlocksByStartDateTimeBetween(any(Date.class), any(Date.class)))
+                .thenReturn(Stream.of(busyBlock(1L, "Sala 1", "2023-10-02T08:00:00", "2023-10-02T10:00:00"),
+                        busyBlock(2L, "Sala 2", "2023-10-08T08:00:00", "2023-10-08T09:00:00")));
+
+        // When
+        List<TimeSlotDto> result = simulationService.findSimulationsSchedule("2023-10-02", "2023-10-08");
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("Sala 2", result.get(1).getRoom());
+        // The end date is included
+        verify(simulationRepository).streamBusyBlocksByStartDateTimeBetween(
+                Date.from(LocalDateTime.parse("2023-10-02T00:00:00").atZone(ZoneId.systemDefault()).toInstant()),
+                Date.from(LocalDateTime.parse("2023-10-09T00:00:00").atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    @Test
+    public void testFindSimulationsScheduleInvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> simulationService.findSimulationsSchedule("2023-10-08", "2023-10-02"));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulationService.findSimulationsSchedule("2023-01-01", "2023-12-31"));
+        assertThrows(ResponseStatusException.class,
+                () -> simulationService.findSimulationsSchedule("yesterday", "2023-12-31"));
+        verify(simulationRepository, never()).streamBusyBlocksByStartDateTimeBetween(any(), any());
+    }
+
+    @Test
+    public void testJoinSimulation() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(2, false)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(simulationRepository.joinIfSeatFree(1L, 7L)).thenReturn(1);
+
+        simulationService.joinSimulation(1L, 7L);
+
+        verify(simulationRepository).lockSeats(1L, 7L, 1L);
+        verify(simulationRepository).joinIfSeatFree(1L, 7L);
+        verify(simulationRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(any(MembershipChangedEvent.class));
+    }
+
+    @Test
+    public void testJoinSimulationSeatTakenMeanwhile() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(2, false)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(simulationRepository.joinIfSeatFree(1L, 7L)).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> simulationService.joinSimulation(1L, 7L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testJoinSimulationFull() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(3, false)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> simulationService.joinSimulation(1L, 7L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(simulationRepository, never()).joinIfSeatFree(any(), any());
+    }
+
+    @Test
+    public void testJoinSimulationAlreadyEnrolled() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(1, true)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        assertThrows(ResponseStatusException.class, () -> simulationService.joinSimulation(1L, 7L));
+        verify(simulationRepository, never()).joinIfSeatFree(any(), any());
+    }
+
+    @Test
+    public void testJoinSimulationNotFound() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> simulationService.joinSimulation(1L, 7L));
+    }
+
+    @Test
+    public void testLeaveSimulation() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(1, true)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        simulationService.leaveSimulation(1L, 7L);
+
+        verify(simulationRepository).removeUser(1L, 7L);
+        verify(eventPublisher).publishEvent(any(MembershipChangedEvent.class));
+    }
+
+    @Test
+    public void testLeaveSimulationNotEnrolled() {
+        when(simulationRepository.findJoinState(1L, 7L)).thenReturn(Optional.of(joinState(1, false)));
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        assertThrows(ResponseStatusException.class, () -> simulationService.leaveSimulation(1L, 7L));
+        verify(simulationRepository, never()).removeUser(any(), any());
+    }
+
+    @Test
+    public void testAddStudentToSimulation() {
+        when(simulationRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(7L)).thenReturn(true);
+
+        simulationService.addStudentToSimulation(1L, 7L);
+
+        verify(simulationRepository).addUser(1L, 7L);
+    }
+
+    // A simulation of a practice with groups of three
+    private static SimulationSeatsDto seats(Long id, Date start, GradeStatus gradeStatus, int enrolledStudents) {
+        return SimulationSeatsDto.builder()
+                .simulationId(id)
+                .groupNumber(id.intValue())
+                .startDateTime(start)
+                .endDateTime(Date.from(start.toInstant().plusSeconds(3600)))
+                .gradeStatus(gradeStatus)
+                .enrolledStudents(enrolledStudents)
+                .maxStudentsGroup(3)
+                .build();
+    }
+
+    // A future simulation of practice 1 with groups of three
+    private static SimulationJoinStateDto joinState(int seatsTaken, boolean enrolled) {
+        Date start = Date.from(Instant.now().plusSeconds(86400));
+        return SimulationJoinStateDto.builder()
+                .simulationId(1L)
+                .practiceId(1L)
+                .startDateTime(start)
+                .endDateTime(Date.from(start.toInstant().plusSeconds(3600)))
+                .seatsTaken(seatsTaken)
+                .maxStudentsGroup(3)
+                .enrolled(enrolled)
+                .build();
+    }
+
+    private static RoomBusyBlockDto busyBlock(Long roomId, String roomName, String start, String end) {
+        return new RoomBusyBlockDto() {
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            public String getRoomName() {
+                return roomName;
+            }
+
+            public Date getStartDateTime() {
+                return Date.from(LocalDateTime.parse(start).atZone(ZoneId.systemDefault()).toInstant());
+            }
+
+            public Date getEndDateTime() {
+                return Date.from(LocalDateTime.parse(end).atZone(ZoneId.systemDefault()).toInstant());
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -22,6 +22,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
@@ -30,6 +31,7 @@ import co.edu.javeriana.lms.videos.services.StreamingService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
@@ -101,6 +103,151 @@ public class StreamingServiceTest {
 
     }
 
+    @Test
+    public void testGetVideoLargeWithoutRangeIsNotCapped() throws IOException {
+        String title = "test.mp4";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(1536L * 1024 * 1024);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, (String) null);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 0-1610612735/1610612736", response.getHeaders().getFirst("Content-Range"));
+        assertEquals("1610612736", response.getHeaders().getFirst("Content-Length"));
+    }
+
+    @Test
+    public void testGetVideoClosedAndSuffixRangesAreNotCapped() throws IOException {
+        String title = "test.mp4";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(1536L * 1024 * 1024);
+
+        ResponseEntity<Resource> closed = streamingService.getVideo(title, "bytes=0-2097151");
+        ResponseEntity<Resource> suffix = streamingService.getVideo(title, "bytes=-2097152");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, closed.getStatusCode());
+        assertEquals("bytes 0-2097151/1610612736", closed.getHeaders().getFirst("Content-Range"));
+        assertEquals(HttpStatus.PARTIAL_CONTENT, suffix.getStatusCode());
+        assertEquals("bytes 1608515584-1610612735/1610612736", suffix.getHeaders().getFirst("Content-Range"));
+    }
+
+    @Test
+    public void testGetVideoOpenEndedRangeIsCappedToChunk() throws IOException {
+        String title = "test.mp4";
+        String range = "bytes=0-";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(1536L * 1024 * 1024);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, range);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("bytes 0-1048575/1610612736", response.getHeaders().getFirst("Content-Range"));
+        assertEquals("1048576", response.getHeaders().getFirst("Content-Length"));
+    }
+
+    @Test
+    public void testGetVideoRangeNotSatisfiable() throws IOException {
+        String title = "test.mp4";
+        String range = "bytes=4096-";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, range);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */2048", response.getHeaders().getFirst("Content-Range"));
+    }
+
+    @Test
+    public void testGetVideoSendsValidators() throws IOException {
+        String title = "test.mp4";
+        String range = "bytes=0-1024";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        when(mockFile.lastModified()).thenReturn(1744400000000L);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, range);
+
+        assertEquals("\"800-1962657a400\"", response.getHeaders().getETag());
+        assertEquals(1744400000000L, response.getHeaders().getLastModified());
+        assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testGetVideoNotModified() throws IOException {
+        String title = "test.mp4";
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.set(HttpHeaders.RANGE, "bytes=0-1024");
+        requestHeaders.setIfNoneMatch("\"800-0\"");
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, requestHeaders);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"800-0\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetVideoPreconditionFailed() throws IOException {
+        String title = "test.mp4";
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setIfMatch("\"stale\"");
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, requestHeaders);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    }
+
+    @Test
+    public void testGetVideoStaleIfRangeSendsFullContent() throws IOException {
+        String title = "test.mp4";
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.set(HttpHeaders.RANGE, "bytes=1024-");
+        requestHeaders.set(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, requestHeaders);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("2048", response.getHeaders().getFirst("Content-Length"));
+    }
+
+    @Test
+    public void testGetVideoMultipleRanges() throws IOException {
+        String title = "test.mp4";
+        String range = "bytes=0-99,1000-1099";
+
+        when(mockPath.toFile()).thenReturn(mockFile);
+        filesMock.when(() -> Files.exists(mockPath)).thenReturn(true);
+        filesMock.when(() -> Files.size(mockPath)).thenReturn(2048L);
+
+        ResponseEntity<Resource> response = streamingService.getVideo(title, range);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertTrue(response.getHeaders().getFirst("Content-Type").startsWith("multipart/byteranges; boundary="));
+    }
+
     @Test
     public void testGetVideoNotExists() throws IOException {
         String title = "nonexistent.mp4";
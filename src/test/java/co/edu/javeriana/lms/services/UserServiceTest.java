@@ -1,6 +1,7 @@
 package co.edu.javeriana.lms.services;
 
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -25,6 +27,7 @@ import co.edu.javeriana.lms.accounts.models.User;
 import co.edu.javeriana.lms.accounts.repositories.UserRepository;
 import co.edu.javeriana.lms.accounts.services.EmailService;
 import co.edu.javeriana.lms.accounts.services.UserService;
+import co.edu.javeriana.lms.shared.events.UserChangedEvent;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -42,6 +45,9 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     static User mockUser1;
     static User mockUser2;
 
@@ -147,6 +153,31 @@ public class UserServiceTest {
         assert updatedUser.getInstitutionalId().equals(mockUser2.getInstitutionalId());
     }
 
+    @Test
+    public void testUpdateUserByIdKeepingTheEmail() {
+        User existing = User.builder().id(4L).email("same@email.com").roles(Set.of(Role.PROFESOR)).build();
+        User update = User.builder().email("same@email.com").name("Renamed").roles(Set.of(Role.PROFESOR)).build();
+        when(userRepository.findById(4L)).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        User updatedUser = userService.updateUserById(4L, update);
+
+        assert updatedUser.getName().equals("Renamed");
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent event) -> event.getEmails().equals(Set.of("same@email.com"))));
+    }
+
+    @Test
+    public void testSetPreferredRoleToUser() {
+        User user = User.builder().id(3L).email("preferred@email.com").roles(Set.of(Role.PROFESOR, Role.COORDINADOR)).build();
+        when(userRepository.findByEmail("preferred@email.com")).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        User updatedUser = userService.setPreferredRoleToUser("preferred@email.com", Role.COORDINADOR);
+
+        assert updatedUser.getPreferredRole().equals(Role.COORDINADOR);
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent event) -> event.getEmails().equals(Set.of("preferred@email.com"))));
+    }
+
     @Test
     public void testUpdateUserByIdNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -166,6 +197,7 @@ public class UserServiceTest {
         userService.deleteById(1L);
 
         verify(userRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent event) -> event.getEmails().equals(Set.of(mockUser1.getEmail()))));
     }
 
     @Test